@@ -0,0 +1,139 @@
+package org.sosylab.benchmark;
+
+import java.util.Collection;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sosylab.model.Cell;
+import org.sosylab.model.Engine;
+import org.sosylab.model.Grid;
+
+/**
+ * Measures the operations of the engines on a square field filled with a random soup. The soup is
+ * created anew for every iteration, so that every iteration starts from the same state.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class GridBenchmark {
+
+  private static final long SEED = 42;
+
+  @Param({"game", "bit", "sparse", "hashlife", "vector"})
+  public String engine;
+
+  @Param({"128", "512"})
+  public int size;
+
+  @Param({"0.1", "0.3"})
+  public double density;
+
+  private Grid grid;
+
+  /**
+   * Creates the game.
+   */
+  @Setup(Level.Trial)
+  public void createGrid() {
+    grid = Engine.getEngineByName(engine).create(size, size);
+  }
+
+  /**
+   * Fills the field with the random soup.
+   */
+  @Setup(Level.Iteration)
+  public void fillGrid() {
+    grid.clear();
+    Random random = new Random(SEED);
+    for (int row = 0; row < size; row++) {
+      for (int col = 0; col < size; col++) {
+        if (random.nextDouble() < density) {
+          grid.setCellAlive(col, row);
+        }
+      }
+    }
+  }
+
+  /**
+   * Computes the next generation. The soup is only refilled per iteration, so most calls compute
+   * the ash the soup has settled into, see {@link SteppingBenchmark} for live soups.
+   */
+  @Benchmark
+  public void next() {
+    grid.next();
+  }
+
+  /**
+   * Renders a field that has not changed since the last rendering.
+   *
+   * @return the rendered field
+   */
+  @Benchmark
+  public String toStringUnchanged() {
+    return grid.toString();
+  }
+
+  /**
+   * Renders the field after an edit, so that the field has to be rendered completely.
+   *
+   * @return the rendered field
+   */
+  @Benchmark
+  public String toStringAfterEdit() {
+    grid.setCellDead(0, 0);
+    return grid.toString();
+  }
+
+  /**
+   * Collects the living cells.
+   *
+   * @return the living cells
+   */
+  @Benchmark
+  public Collection<Cell> getPopulation() {
+    return grid.getPopulation();
+  }
+
+  /**
+   * Streams the keys of the living cells without collecting them.
+   *
+   * @return the sum of the keys
+   */
+  @Benchmark
+  public long sumPopulationKeys() {
+    return grid.getPopulationKeys().sum();
+  }
+
+  /**
+   * Counts the living cells.
+   *
+   * @return the number of living cells
+   */
+  @Benchmark
+  public long getPopulationCount() {
+    return grid.getPopulationCount();
+  }
+
+  /**
+   * Doubles the size of the field and shrinks it back, which keeps all living cells.
+   */
+  @Benchmark
+  public void resize() {
+    grid.resize(2 * size, 2 * size);
+    grid.resize(size, size);
+  }
+}
@@ -0,0 +1,78 @@
+package org.sosylab.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sosylab.model.Engine;
+import org.sosylab.model.Grid;
+import org.sosylab.model.Shape;
+import org.sosylab.model.Shapes;
+
+/**
+ * Measures the engines on a square field that contains one of the built-in shapes in its middle.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class ShapeBenchmark {
+
+  @Param({"game", "bit", "sparse", "hashlife", "vector"})
+  public String engine;
+
+  @Param({"128", "512"})
+  public int size;
+
+  @Param({"block", "boat", "blinker", "toad", "glider", "spaceship", "pulsar"})
+  public String shape;
+
+  private Grid grid;
+  private Shape pattern;
+
+  /**
+   * Creates the game.
+   */
+  @Setup(Level.Trial)
+  public void createGrid() {
+    grid = Engine.getEngineByName(engine).create(size, size);
+    pattern = Shapes.getShapeByName(shape);
+  }
+
+  /**
+   * Places the shape on an empty field.
+   */
+  @Setup(Level.Iteration)
+  public void placeShapeOnEmptyField() {
+    grid.clear();
+    grid.placeShape(pattern);
+  }
+
+  /**
+   * Places the shape again. The cells of the shape are already alive, so the state of the game is
+   * the same after every invocation.
+   */
+  @Benchmark
+  public void placeShape() {
+    grid.placeShape(pattern);
+  }
+
+  /**
+   * Computes the next generation.
+   */
+  @Benchmark
+  public void next() {
+    grid.next();
+  }
+}
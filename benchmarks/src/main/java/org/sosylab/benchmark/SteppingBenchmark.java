@@ -0,0 +1,102 @@
+package org.sosylab.benchmark;
+
+import java.nio.LongBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sosylab.model.Engine;
+import org.sosylab.model.Grid;
+
+/**
+ * Measures how many cells per second the engines compute on a live random soup. Every invocation
+ * starts from a fresh soup and computes a few generations, too few for the soup to settle into
+ * ash. The soups differ from invocation to invocation, so that HashLife cannot answer them from
+ * its cache. The primary result counts generations, the <code>cells</code> counter multiplies
+ * them by the size of the field.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class SteppingBenchmark {
+
+  private static final int GENERATIONS = 8;
+
+  @Param({"game", "bit", "sparse", "hashlife", "vector"})
+  public String engine;
+
+  @Param({"256", "1024"})
+  public int size;
+
+  @Param({"0.3"})
+  public double density;
+
+  private final Random random = new Random(42);
+  private Grid grid;
+  private LongBuffer soup;
+
+  /**
+   * Counts the computed cells, JMH reports them per second.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class Cells {
+
+    public long cells;
+  }
+
+  /**
+   * Creates the game and the buffer for the soups.
+   */
+  @Setup(Level.Trial)
+  public void createGrid() {
+    grid = Engine.getEngineByName(engine).create(size, size);
+    soup = LongBuffer.allocate(size * ((size + 63) / 64));
+  }
+
+  /**
+   * Replaces the field by a new random soup.
+   */
+  @Setup(Level.Invocation)
+  public void fillGrid() {
+    for (int index = 0; index < soup.capacity(); index++) {
+      long bits = 0;
+      for (int bit = 0; bit < 64; bit++) {
+        if (random.nextDouble() < density) {
+          bits |= 1L << bit;
+        }
+      }
+      soup.put(index, bits);
+    }
+    grid.importBits(soup);
+  }
+
+  /**
+   * Computes generations of the soup.
+   *
+   * @param cells the counter of the computed cells
+   */
+  @Benchmark
+  @OperationsPerInvocation(GENERATIONS)
+  public void next(Cells cells) {
+    for (int i = 0; i < GENERATIONS; i++) {
+      grid.next();
+    }
+    cells.cells += (long) GENERATIONS * size * size;
+  }
+}
@@ -0,0 +1,86 @@
+package org.sosylab.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sosylab.model.Engine;
+import org.sosylab.model.Grid;
+
+/**
+ * Measures how the engines that compute a generation in parallel row bands scale with the number
+ * of threads. The field is filled with a dense random soup, so every band has the same work.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class ThreadsBenchmark {
+
+  private static final long SEED = 42;
+
+  @Param({"bit", "vector"})
+  public String engine;
+
+  @Param({"1024", "4096"})
+  public int size;
+
+  @Param({"1", "2", "4", "8"})
+  public int threads;
+
+  private Grid grid;
+
+  /**
+   * Creates the game and its threads.
+   */
+  @Setup(Level.Trial)
+  public void createGrid() {
+    grid = Engine.getEngineByName(engine).create(size, size);
+    grid.setThreads(threads);
+  }
+
+  /**
+   * Fills the field with the random soup.
+   */
+  @Setup(Level.Iteration)
+  public void fillGrid() {
+    grid.clear();
+    Random random = new Random(SEED);
+    for (int row = 0; row < size; row++) {
+      for (int col = 0; col < size; col++) {
+        if (random.nextInt(3) == 0) {
+          grid.setCellAlive(col, row);
+        }
+      }
+    }
+  }
+
+  /**
+   * Shuts down the threads of the game.
+   */
+  @TearDown(Level.Trial)
+  public void closeGrid() {
+    grid.close();
+  }
+
+  /**
+   * Computes the next generation.
+   */
+  @Benchmark
+  public void next() {
+    grid.next();
+  }
+}
@@ -0,0 +1,234 @@
+package org.sosylab;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.sosylab.model.Grid;
+
+/**
+ * Shows a running game on an ANSI terminal. The field is drawn once, afterwards every frame only
+ * moves the cursor to the cells that changed since the last frame and redraws them. A frame is
+ * collected in a buffer and written at once.
+ *
+ * <p>Frames are written by a thread of their own at no more than the given frame rate. The game
+ * offers its state after every generation, but the state is only copied when the writer is ready
+ * for the next frame; all other generations are skipped. A slow terminal therefore drops frames
+ * instead of slowing the simulation down.
+ */
+final class Animation {
+
+  private static final String ESCAPE = "\033[";
+  private static final byte ALIVE = 'X';
+  private static final byte DEAD = '.';
+
+  private final OutputStream out;
+  private final int columns;
+  private final int rows;
+  private final int words;
+  private final long frameNanos;
+  private final ByteArrayOutputStream frame = new ByteArrayOutputStream();
+  private final Thread writer;
+
+  // Rows of the field as shown on the terminal, only accessed by the writer
+  private long[] shown;
+  // Rows of the next frame, written by the simulation while the writer waits for a frame
+  private long[] next;
+
+  private volatile boolean frameWanted;
+  private boolean pending;
+  private long pendingGeneration;
+  private boolean finished;
+  private boolean stopped;
+  private IOException error;
+
+  private long frames;
+  private int cursorCol = -1;
+  private int cursorRow = -1;
+
+  /**
+   * Draws the current state of a game and starts the writer.
+   *
+   * @param game            the game
+   * @param out             the terminal
+   * @param framesPerSecond the highest number of frames per second
+   * @throws IOException              thrown when writing to the terminal fails
+   * @throws IllegalArgumentException if the frame rate is not positive
+   */
+  Animation(Grid game, OutputStream out, int framesPerSecond) throws IOException {
+    if (framesPerSecond <= 0) {
+      throw new IllegalArgumentException("Number of frames per second must be positive");
+    }
+    this.out = out;
+    this.columns = game.getColumns();
+    this.rows = game.getRows();
+    this.words = (columns + 63) / 64;
+    this.frameNanos = TimeUnit.SECONDS.toNanos(1) / framesPerSecond;
+    long length = (long) rows * words;
+    if (length > Integer.MAX_VALUE) {
+      throw new IllegalStateException("Field is too large to be rendered");
+    }
+    this.shown = new long[(int) length];
+    this.next = new long[(int) length];
+    game.exportBits(LongBuffer.wrap(shown));
+
+    // hide the cursor, clear the screen and draw the whole field
+    writeAscii(ESCAPE + "?25l" + ESCAPE + "2J" + ESCAPE + "H");
+    game.render(frame);
+    writeStatus(game.getGenerations());
+    frame.writeTo(out);
+    out.flush();
+
+    writer = new Thread(this::writeFrames, "animation");
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  /**
+   * Offers the current state of the game as the next frame. The state is copied only if the writer
+   * is ready for a frame, otherwise this method returns at once and the state is skipped.
+   *
+   * @param game the game
+   */
+  void offer(Grid game) {
+    if (!frameWanted) {
+      return;
+    }
+    frameWanted = false;
+    game.exportBits(LongBuffer.wrap(next));
+    synchronized (this) {
+      pending = true;
+      pendingGeneration = game.getGenerations();
+      notifyAll();
+    }
+  }
+
+  /**
+   * Shows the final state of the game, waits for the writer to end and moves the cursor below the
+   * field.
+   *
+   * @param game the game
+   * @return the number of shown frames, without the first drawing of the field
+   * @throws IOException          thrown when writing to the terminal fails
+   * @throws InterruptedException thrown when the thread is interrupted while waiting
+   */
+  long finish(Grid game) throws IOException, InterruptedException {
+    synchronized (this) {
+      while (!frameWanted && !stopped) {
+        wait();
+      }
+    }
+    offer(game);
+    synchronized (this) {
+      finished = true;
+      notifyAll();
+    }
+    writer.join();
+    if (error != null) {
+      throw error;
+    }
+    frame.reset();
+    writeAscii(ESCAPE + (rows + 2) + ";1H" + ESCAPE + "?25h");
+    frame.writeTo(out);
+    out.flush();
+    return frames;
+  }
+
+  /**
+   * Writes the offered frames until the animation is finished. After a frame the writer waits
+   * until the frame interval has passed before it asks for the next frame.
+   */
+  private void writeFrames() {
+    try {
+      long due = System.nanoTime();
+      while (true) {
+        long delay = due - System.nanoTime();
+        if (delay > 0) {
+          TimeUnit.NANOSECONDS.sleep(delay);
+        }
+        long generation;
+        synchronized (this) {
+          frameWanted = true;
+          notifyAll();
+          while (!pending && !finished) {
+            wait();
+          }
+          if (!pending) {
+            return;
+          }
+          pending = false;
+          generation = pendingGeneration;
+        }
+        due = System.nanoTime() + frameNanos;
+        writeFrame(generation);
+      }
+    } catch (IOException e) {
+      error = e;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      synchronized (this) {
+        stopped = true;
+        notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Writes the cells that differ between the shown rows and the next frame.
+   *
+   * @param generation the generation of the next frame
+   * @throws IOException thrown when writing to the terminal fails
+   */
+  private void writeFrame(long generation) throws IOException {
+    frame.reset();
+    for (int row = 0; row < rows; row++) {
+      for (int word = 0; word < words; word++) {
+        int index = row * words + word;
+        long alive = next[index];
+        long changed = shown[index] ^ alive;
+        while (changed != 0) {
+          int bit = Long.numberOfTrailingZeros(changed);
+          changed &= changed - 1;
+          int col = word * 64 + bit;
+          // the cursor advances by itself along a row of changed cells
+          if (col != cursorCol || row != cursorRow) {
+            writeAscii(ESCAPE + (row + 1) + ";" + (col + 1) + "H");
+          }
+          frame.write((alive >>> bit & 1) != 0 ? ALIVE : DEAD);
+          cursorCol = col + 1;
+          cursorRow = row;
+        }
+      }
+    }
+    writeStatus(generation);
+    frame.writeTo(out);
+    out.flush();
+    frames++;
+
+    long[] swap = shown;
+    shown = next;
+    next = swap;
+  }
+
+  /**
+   * Writes the status line below the field into the frame buffer.
+   *
+   * @param generation the shown generation
+   */
+  private void writeStatus(long generation) {
+    writeAscii(ESCAPE + (rows + 1) + ";1H" + "Generation: " + generation + ESCAPE + "K");
+    cursorCol = -1;
+  }
+
+  /**
+   * Appends text to the frame buffer.
+   *
+   * @param text the text
+   */
+  private void writeAscii(String text) {
+    frame.writeBytes(text.getBytes(StandardCharsets.US_ASCII));
+  }
+}
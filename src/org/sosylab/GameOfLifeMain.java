@@ -1,16 +1,27 @@
-package org.sosylab;
-
-import java.io.IOException;
-
-/**
- * Main class of the Game of Life project. It starts the application for a user to play the game.
- */
-public class GameOfLifeMain {
-
-  /**
-   * Launch the Game of Life application.
-   */
-  public static void main(String[] args) throws IOException {
-    new Shell().run();
-  }
-}
+package org.sosylab;
+
+import java.io.IOException;
+
+/**
+ * Main class of the Game of Life project. It starts the application for a user to play the game,
+ * or runs a game without user interaction if command-line options are given.
+ */
+public class GameOfLifeMain {
+
+  /**
+   * Launch the Game of Life application.
+   *
+   * @param args command-line options for a run without user interaction, see {@link Headless}
+   * @throws IOException thrown when reading from stdin fails
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length == 0) {
+      new Shell().run();
+      return;
+    }
+    int status = new Headless().run(args);
+    if (status != 0) {
+      System.exit(status);
+    }
+  }
+}
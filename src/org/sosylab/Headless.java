@@ -0,0 +1,376 @@
+package org.sosylab;
+
+import static org.sosylab.model.Engine.getAvailableEngines;
+import static org.sosylab.model.Engine.getEngineByName;
+import static org.sosylab.model.Shapes.getAvailableShapes;
+import static org.sosylab.model.Shapes.getShapeByName;
+
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Locale;
+import org.sosylab.io.Pattern;
+import org.sosylab.io.Snapshot;
+import org.sosylab.model.Cell;
+import org.sosylab.model.Engine;
+import org.sosylab.model.Grid;
+import org.sosylab.model.Rule;
+import org.sosylab.model.Shape;
+
+/**
+ * This class runs the Game of Life without user interaction. The game is configured by
+ * command-line options and the states are streamed to stdout, so that many runs can be chained in
+ * shell pipelines.
+ */
+class Headless {
+
+  private static final String ERROR = "Error! ";
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private static final String USAGE = """
+      Usage: GameOfLifeMain [options]
+        --size XxY         dimensions of the field, default is the size of the pattern
+        --pattern file     read the initial population from a file, - reads stdin
+        --save file        save the final state as a snapshot
+        --shape name       place a built-in shape in the middle of the field
+        --engine e         engine computing the generations, default is game
+        --rule r           rule in B/S notation, default is B3/S23
+        --generations n    number of generations to compute, default is 0
+        --every k          write every k-th generation instead of only the last one
+        --format f         output format: grid (default), cells or population
+        --help             print this help
+
+      Patterns are read in the formats RLE, Life 1.06 or plaintext, or restored from a
+      snapshot, the format is detected from the content. Plaintext patterns are rows of cells,
+      living cells are marked with X, O or *.""";
+
+  private int columns;
+  private int rows;
+  private String patternFile;
+  private String saveFile;
+  private Shape shape;
+  private Engine engine = Engine.GAME;
+  private Rule rule = Rule.CONWAY;
+  private long generations;
+  private long every;
+  private Format format = Format.GRID;
+
+  private final InputStream stdin;
+  private final OutputStream stdout;
+  private final PrintStream stderr;
+
+  private PrintStream out;
+  private boolean firstState = true;
+
+  /**
+   * Create a run reading from stdin and writing to stdout and stderr.
+   */
+  Headless() {
+    this(System.in, new FileOutputStream(FileDescriptor.out), System.err);
+  }
+
+  /**
+   * Create a run on the given streams.
+   *
+   * @param stdin  the stream a pattern given as <code>-</code> is read from
+   * @param stdout the stream the states and the help are written to
+   * @param stderr the stream errors are reported to
+   */
+  Headless(InputStream stdin, OutputStream stdout, PrintStream stderr) {
+    this.stdin = stdin;
+    this.stdout = stdout;
+    this.stderr = stderr;
+  }
+
+  /**
+   * Runs a game configured by the given command-line options.
+   *
+   * @param args the command-line options
+   * @return the exit status, 0 on success
+   */
+  int run(String[] args) {
+    try {
+      out = new PrintStream(new BufferedOutputStream(stdout, BUFFER_SIZE), false,
+          StandardCharsets.US_ASCII);
+      if (!parseOptions(args)) {
+        out.println(USAGE);
+        out.flush();
+        return 0;
+      }
+      Grid game = createGame();
+      game.setRule(rule);
+      execute(game);
+      out.flush();
+      if (saveFile != null) {
+        Snapshot.save(game, Path.of(saveFile));
+      }
+      return 0;
+    } catch (NoSuchFileException e) {
+      stderr.println(ERROR + "File not found: " + e.getFile());
+      return 1;
+    } catch (IllegalArgumentException | IOException e) {
+      stderr.println(ERROR + e.getMessage());
+      return 1;
+    }
+  }
+
+  /**
+   * Parses the command-line options.
+   *
+   * @param args the command-line options
+   * @return <code>false</code> if the help was requested, <code>true</code> otherwise
+   * @throws IllegalArgumentException if an option is unknown or has an invalid argument
+   */
+  private boolean parseOptions(String[] args) {
+    for (int i = 0; i < args.length; i++) {
+      String option = args[i];
+      if (option.equals("--help")) {
+        return false;
+      }
+      if (i + 1 == args.length) {
+        throw new IllegalArgumentException("Missing argument for option " + option);
+      }
+      String argument = args[++i];
+      switch (option) {
+        case "--size":
+          parseSize(argument);
+          break;
+        case "--pattern":
+          patternFile = argument;
+          break;
+        case "--save":
+          saveFile = argument;
+          break;
+        case "--shape":
+          shape = getShapeByName(argument.toLowerCase(Locale.ROOT));
+          if (shape == null) {
+            throw new IllegalArgumentException(
+                "Unknown shape: " + argument + "\nAvailable Shapes are: \n" + getAvailableShapes());
+          }
+          break;
+        case "--engine":
+          engine = getEngineByName(argument.toLowerCase(Locale.ROOT));
+          if (engine == null) {
+            throw new IllegalArgumentException("Unknown engine: " + argument
+                + "\nAvailable Engines are: \n" + getAvailableEngines());
+          }
+          break;
+        case "--rule":
+          rule = Rule.parse(argument);
+          break;
+        case "--generations":
+          generations = parseNumber(option, argument);
+          break;
+        case "--every":
+          every = parseNumber(option, argument);
+          break;
+        case "--format":
+          format = Format.getFormatByName(argument);
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown option: " + option);
+      }
+    }
+    if (patternFile != null && shape != null) {
+      throw new IllegalArgumentException("Options --pattern and --shape may not be combined");
+    }
+    return true;
+  }
+
+  /**
+   * Parses the dimensions of the field given as <code>XxY</code>.
+   *
+   * @param argument the argument of the option
+   * @throws IllegalArgumentException if the argument does not describe dimensions
+   */
+  private void parseSize(String argument) {
+    int separator = argument.toLowerCase(Locale.ROOT).indexOf('x');
+    try {
+      columns = Integer.parseInt(argument.substring(0, Math.max(separator, 0)));
+      rows = Integer.parseInt(argument.substring(separator + 1));
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Size must be given as XxY, e.g. 80x40");
+    }
+    if (columns <= 0 || rows <= 0) {
+      throw new IllegalArgumentException("Number of columns and rows must be positive");
+    }
+  }
+
+  /**
+   * Parses a number of generations that may not be negative.
+   *
+   * @param option   the option for error messages
+   * @param argument the argument of the option
+   * @return the number
+   * @throws IllegalArgumentException if the argument is not a number or negative
+   */
+  private static long parseNumber(String option, String argument) {
+    long number;
+    try {
+      number = Long.parseLong(argument);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Argument of option " + option + " must be a number");
+    }
+    if (number < 0) {
+      throw new IllegalArgumentException("Argument of option " + option + " may not be negative");
+    }
+    return number;
+  }
+
+  /**
+   * Creates the game with the configured size and initial population. A snapshot keeps its size
+   * unless a size is given.
+   *
+   * @return the new game
+   * @throws IOException              thrown when reading the pattern fails or it is not valid
+   * @throws IllegalArgumentException if the size of the field is unknown
+   */
+  private Grid createGame() throws IOException {
+    if (patternFile != null && !patternFile.equals("-")
+        && Snapshot.isSnapshot(Path.of(patternFile))) {
+      Grid game = engine.create(1, 1);
+      Snapshot.load(Path.of(patternFile), game);
+      if (columns != 0) {
+        game.resize(columns, rows);
+      }
+      return game;
+    }
+    Pattern pattern = null;
+    if (patternFile != null) {
+      pattern = patternFile.equals("-") ? Pattern.read(stdin)
+          : Pattern.map(Path.of(patternFile));
+    }
+    if (columns == 0) {
+      if (pattern != null) {
+        if (pattern.getColumns() == 0 || pattern.getRows() == 0) {
+          throw new IllegalArgumentException("Pattern is empty, option --size is required");
+        }
+        if (pattern.getColumns() > Integer.MAX_VALUE || pattern.getRows() > Integer.MAX_VALUE) {
+          throw new IllegalArgumentException("Pattern is too large, option --size is required");
+        }
+        columns = (int) pattern.getColumns();
+        rows = (int) pattern.getRows();
+      } else if (shape != null) {
+        columns = shape.getColumns();
+        rows = shape.getRows();
+      } else {
+        throw new IllegalArgumentException("Option --size is required without a pattern");
+      }
+    }
+    Grid game = engine.create(columns, rows);
+    if (pattern != null) {
+      pattern.placeOn(game);
+    } else if (shape != null) {
+      placeClipped(game, shape);
+    }
+    return game;
+  }
+
+  /**
+   * Places the shape in the middle of the field like {@link Grid#placeShape(Shape)}, but drops
+   * cells that do not fit on the field.
+   *
+   * @param game    the game
+   * @param pattern the shape to be placed
+   */
+  private static void placeClipped(Grid game, Shape pattern) {
+    int offsetRows = Math.floorDiv(game.getRows() - pattern.getRows(), 2);
+    int offsetColumns = Math.floorDiv(game.getColumns() - pattern.getColumns(), 2);
+
+    for (Cell cell : pattern.getShapePopulation()) {
+      int col = cell.getColumn() + offsetColumns;
+      int row = cell.getRow() + offsetRows;
+      if (col >= 0 && col < game.getColumns() && row >= 0 && row < game.getRows()) {
+        game.setCellAlive(col, row);
+      }
+    }
+  }
+
+  /**
+   * Computes the configured number of generations and writes the requested states.
+   *
+   * @param game the game
+   * @throws IOException thrown when writing to stdout fails
+   */
+  private void execute(Grid game) throws IOException {
+    if (every == 0) {
+      game.next(generations);
+      write(game);
+      return;
+    }
+    write(game);
+    long remaining = generations;
+    while (remaining > 0) {
+      long steps = Math.min(every, remaining);
+      game.next(steps);
+      remaining -= steps;
+      write(game);
+    }
+  }
+
+  /**
+   * Writes the current state in the configured format. States of the formats grid and cells are
+   * separated by an empty line.
+   *
+   * @param game the game
+   * @throws IOException thrown when writing to stdout fails
+   */
+  private void write(Grid game) throws IOException {
+    if (!firstState && format != Format.POPULATION) {
+      out.println();
+    }
+    firstState = false;
+    switch (format) {
+      case GRID:
+        game.render(out);
+        break;
+      case CELLS:
+        // keys are ordered by row and then by column
+        game.getPopulationKeys().sorted()
+            .forEach(key -> out.println(Cell.columnOf(key) + " " + Cell.rowOf(key)));
+        break;
+      case POPULATION:
+        out.println(game.getGenerations() + " " + game.getPopulationCount());
+        break;
+      default:
+        throw new AssertionError("Unhandled format: " + format);
+    }
+  }
+
+  /**
+   * The formats in which states are written.
+   */
+  private enum Format {
+    GRID("grid"), CELLS("cells"), POPULATION("population");
+
+    private final String name;
+
+    Format(String name) {
+      this.name = name;
+    }
+
+    /**
+     * Get a format by its name.
+     *
+     * @param name the name of the format
+     * @return the format
+     * @throws IllegalArgumentException if there is no format with this name
+     */
+    static Format getFormatByName(String name) {
+      for (Format format : values()) {
+        if (format.name.equals(name)) {
+          return format;
+        }
+      }
+      throw new IllegalArgumentException(
+          "Unknown format: " + name + ", available formats are grid, cells and population");
+    }
+  }
+}
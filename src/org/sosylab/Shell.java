@@ -1,5 +1,7 @@
 package org.sosylab;
 
+import static org.sosylab.model.Engine.getAvailableEngines;
+import static org.sosylab.model.Engine.getEngineByName;
 import static org.sosylab.model.Shapes.getAvailableShapes;
 import static org.sosylab.model.Shapes.getShapeByName;
 
@@ -7,9 +9,24 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
-import org.sosylab.model.Game;
+import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+import org.sosylab.io.Pattern;
+import org.sosylab.io.Snapshot;
+import org.sosylab.jfr.CommandEvent;
+import org.sosylab.model.BoundingBox;
+import org.sosylab.model.Engine;
 import org.sosylab.model.Grid;
+import org.sosylab.model.History;
+import org.sosylab.model.MetricsSnapshot;
+import org.sosylab.model.Rule;
 import org.sosylab.model.Shape;
+import org.sosylab.model.UnboundedGrid;
 
 /**
  * This class provides the utility to let a user play the Game of Life application interactively on
@@ -19,21 +36,47 @@ class Shell {
 
   private static final String PROMPT = "gol> ";
   private static final String ERROR = "Error! ";
+  private static final int DEFAULT_FRAMES_PER_SECOND = 30;
 
   private static final String HELP = """
       Game of Life - possible commands:
       alive i j    set cell in column i and row j alive
+      animate n    compute n generations and show them on an ANSI terminal,
+                   "animate n f" shows at most f frames per second
+      back n       return to the generation n generations ago
       clear        kill all cells and reset generations
       dead i j     kill cell in column i and row j
-      generate     compute next generation
+      generate [n] compute next generation or n generations at once
+      goto g       return to generation g
       help         print this help
-      new x y      start a new game with dimensions x times y
-      print        print the gameboard
+      history n    record the last n generations, 0 disables the history
+      load file    load a snapshot or a pattern in the formats RLE, Life 1.06 or plaintext
+      new x y [e]  start a new game with dimensions x times y using engine e
+      pause        pause the simulation started by "start"
+      print        print the gameboard, or the occupied area of an unbounded game,
+                   "print x y w h" prints w columns and h rows from column x and row y
       quit         quit the program
       resize x y   resize current game to dimensions x times y
-      shape name   load initial population""";
+      run n [k]    compute n generations, print progress every k generations
+      rule [r]     use rule r in B/S notation, e.g. B36/S23, or print the rule
+      save file    save the game as a snapshot
+      shape name   load initial population
+      start        compute generations in the background until "pause" or "stop"
+      stats        print the metrics of the computed generations, "stats reset" clears them
+      status       print the generation and the speed of the simulation
+      stop         end the simulation started by "start"
+      threads n    compute generations on n threads
+      zoom n       print the gameboard with one character per n x n cells, shaded by density""";
+
+  // Commands that run on the shell thread while a simulation exists, all others run on the worker
+  private static final Set<Command> SHELL_COMMANDS = EnumSet.of(Command.ALIVE, Command.DEAD,
+      Command.SHAPE, Command.HELP, Command.QUIT, Command.UNKNOWN, Command.START, Command.PAUSE,
+      Command.STOP, Command.STATUS);
 
   private Grid game;
+  private History history;
+  private Rule rule = Rule.CONWAY;
+  private Simulation simulation;
 
   /**
    * Launch the user interaction.
@@ -44,7 +87,12 @@ class Shell {
     BufferedReader stdin = new BufferedReader(
         new InputStreamReader(System.in, StandardCharsets.UTF_8));
     execute(stdin);
-
+    if (simulation != null) {
+      simulation.stop();
+    }
+    if (game != null) {
+      game.close();
+    }
   }
 
   /**
@@ -71,49 +119,127 @@ class Shell {
       String[] tokens = input.trim().split("\\s+");
 
       Command command = parseCommand(tokens[0]);
+      CommandEvent event = new CommandEvent();
+      event.begin();
+
+      boolean proceed = true;
+      try {
+        if (simulation != null && !SHELL_COMMANDS.contains(command)) {
+          // the game belongs to the worker while the simulation exists
+          proceed = simulation.call(() -> dispatch(command, tokens));
+        } else {
+          proceed = dispatch(command, tokens);
+        }
+      } catch (IllegalStateException e) {
+        // the command failed on the worker, or the worker has ended and "stop" discards it
+        displayError(e.getMessage());
+      }
+      if (!proceed) {
+        return;
+      }
 
-      switch (command) {
-        case NEW:
-          handleCommandNew(tokens);
-          break;
-        case ALIVE:
-          handleCommandAlive(tokens);
-          break;
-        case DEAD:
-          handleCommandDead(tokens);
-          break;
-        case GENERATE:
-          handleCommandGenerate(tokens);
-          break;
-        case PRINT:
-          handleCommandPrint(tokens);
-          break;
-        case CLEAR:
-          handleCommandClear(tokens);
-          break;
-        case RESIZE:
-          handleCommandResize(tokens);
-          break;
-        case SHAPE:
-          handleCommandShape(tokens);
-          break;
-        case HELP:
-          System.out.println(HELP);
-          break;
-        case QUIT:
-          if (checkCommandQuitTokens(tokens)) {
-            return;
-          }
-          break;
-        case UNKNOWN:
-          displayError("Command not found");
-          break;
-        default:
-          throw new AssertionError("Unhandled command: " + command);
+      event.end();
+      if (event.shouldCommit()) {
+        event.setCommand(command.name());
+        event.setArguments(String.join(" ", Arrays.copyOfRange(tokens, 1, tokens.length)));
+        event.commit();
       }
     }
   }
 
+  /**
+   * Executes a single command.
+   *
+   * @param command the command
+   * @param tokens  the tokens of the input, starting with the command
+   * @return <code>false</code> if the shell should quit
+   * @throws IOException thrown when writing to stdout or a file fails
+   */
+  private boolean dispatch(Command command, String[] tokens) throws IOException {
+    switch (command) {
+      case NEW:
+        handleCommandNew(tokens);
+        break;
+      case ALIVE:
+        handleCommandAlive(tokens);
+        break;
+      case DEAD:
+        handleCommandDead(tokens);
+        break;
+      case GENERATE:
+        handleCommandGenerate(tokens);
+        break;
+      case PRINT:
+        handleCommandPrint(tokens);
+        break;
+      case CLEAR:
+        handleCommandClear(tokens);
+        break;
+      case RESIZE:
+        handleCommandResize(tokens);
+        break;
+      case SHAPE:
+        handleCommandShape(tokens);
+        break;
+      case THREADS:
+        handleCommandThreads(tokens);
+        break;
+      case RUN:
+        handleCommandRun(tokens);
+        break;
+      case LOAD:
+        handleCommandLoad(tokens);
+        break;
+      case SAVE:
+        handleCommandSave(tokens);
+        break;
+      case HISTORY:
+        handleCommandHistory(tokens);
+        break;
+      case BACK:
+        handleCommandBack(tokens);
+        break;
+      case GOTO:
+        handleCommandGoto(tokens);
+        break;
+      case RULE:
+        handleCommandRule(tokens);
+        break;
+      case STATS:
+        handleCommandStats(tokens);
+        break;
+      case ZOOM:
+        handleCommandZoom(tokens);
+        break;
+      case ANIMATE:
+        handleCommandAnimate(tokens);
+        break;
+      case HELP:
+        System.out.println(HELP);
+        break;
+      case START:
+        handleCommandStart(tokens);
+        break;
+      case PAUSE:
+        handleCommandPause(tokens);
+        break;
+      case STOP:
+        handleCommandStop(tokens);
+        break;
+      case STATUS:
+        handleCommandStatus(tokens);
+        break;
+      case QUIT:
+        return !checkCommandQuitTokens(tokens);
+      case UNKNOWN:
+        displayError("Command not found");
+        break;
+      default:
+        throw new AssertionError("Unhandled command: " + command);
+    }
+    return true;
+  }
+
   /**
    * Parse a string-token and check whether it matches a {@link Command}. If successful, the
    * respective command gets returned, {@link Command#UNKNOWN} otherwise.
@@ -143,7 +269,7 @@ class Shell {
    * @param tokens The passed arguments from the user.
    */
   private void handleCommandNew(String[] tokens) {
-    if (tokens.length > 3) {
+    if (tokens.length > 4) {
       displayError("Too many arguments for command \"NEW\"");
       return;
     }
@@ -166,7 +292,27 @@ class Shell {
       return;
     }
 
-    game = new Game(cols, rows);
+    Engine engine = Engine.GAME;
+    if (tokens.length == 4) {
+      String engineName = tokens[3].toLowerCase();
+      engine = getEngineByName(engineName);
+      if (engine == null) {
+        displayError("Unknown engine: " + engineName + ".");
+        System.out.println("Available Engines are: \n" + getAvailableEngines());
+        return;
+      }
+    }
+
+    if (game != null) {
+      // the threads of the replaced game are not needed anymore
+      game.close();
+    }
+    game = engine.create(cols, rows);
+    game.setRule(rule);
+    if (history != null) {
+      history.clear();
+      recordHistory();
+    }
   }
 
 
@@ -189,22 +335,25 @@ class Shell {
       return;
     }
 
-    int col;
-    int row;
+    long col;
+    long row;
     try {
-      col = Integer.parseInt(tokens[1]);
-      row = Integer.parseInt(tokens[2]);
+      col = Long.parseLong(tokens[1]);
+      row = Long.parseLong(tokens[2]);
     } catch (NumberFormatException e) {
       displayError("Arguments of the \"ALIVE\" command must be numbers!");
       return;
     }
 
-    if (col < 0 || row < 0 || col >= game.getColumns() || row >= game.getRows()) {
+    Grid target = game;
+    if (target instanceof UnboundedGrid) {
+      edit(() -> ((UnboundedGrid) target).setAlive(col, row));
+    } else if (col < 0 || row < 0 || col >= game.getColumns() || row >= game.getRows()) {
       displayError(
           "Parameters for column and row may not exceed the maximum number of columns and rows");
-      return;
+    } else {
+      edit(() -> target.setCellAlive((int) col, (int) row));
     }
-    game.setCellAlive(col, row);
   }
 
   /**
@@ -226,31 +375,35 @@ class Shell {
       return;
     }
 
-    int col;
-    int row;
+    long col;
+    long row;
     try {
-      col = Integer.parseInt(tokens[1]);
-      row = Integer.parseInt(tokens[2]);
+      col = Long.parseLong(tokens[1]);
+      row = Long.parseLong(tokens[2]);
     } catch (NumberFormatException e) {
       displayError("Arguments of the \"DEAD\" command must be numbers!");
       return;
     }
 
-    if (col < 0 || row < 0 || col >= game.getColumns() || row >= game.getRows()) {
+    Grid target = game;
+    if (target instanceof UnboundedGrid) {
+      edit(() -> ((UnboundedGrid) target).setDead(col, row));
+    } else if (col < 0 || row < 0 || col >= game.getColumns() || row >= game.getRows()) {
       displayError(
           "Parameters for column and row may not exceed the maximum number of columns and rows");
-      return;
+    } else {
+      edit(() -> target.setCellDead((int) col, (int) row));
     }
-    game.setCellDead(col, row);
   }
 
   /**
-   * Lets a user to switch the game to the next generation.
+   * Lets a user to switch the game to the next generation, or to compute a given number of
+   * generations at once.
    *
-   * @param tokens The tokens to be checked. This method requires them to be empty.
+   * @param tokens The tokens to be checked. This method accepts an optional number of generations.
    */
   private void handleCommandGenerate(String[] tokens) {
-    if (tokens.length > 1) {
+    if (tokens.length > 2) {
       displayError("Too many arguments for command \"GENERATE\"");
       return;
     }
@@ -259,26 +412,562 @@ class Shell {
       displayError("No active game!");
       return;
     }
-    game.next();
+    if (tokens.length == 1) {
+      advance(1);
+      System.out.println("Generation: " + game.getGenerations());
+      return;
+    }
+
+    long generations = parseGenerations(tokens[1], "GENERATE");
+    if (generations <= 0) {
+      return;
+    }
+    long start = System.nanoTime();
+    advance(generations);
+    long duration = System.nanoTime() - start;
     System.out.println("Generation: " + game.getGenerations());
+    printThroughput(generations, duration);
   }
 
   /**
-   * Prints the current state of a running game field.
+   * Lets a user to compute many generations and print the progress in a given interval.
    *
-   * @param tokens The tokens to be checked. This method requires them to be empty.
+   * @param tokens The tokens to be checked. This method requires the number of generations and
+   *               accepts an optional interval.
+   */
+  private void handleCommandRun(String[] tokens) {
+    if (tokens.length > 3) {
+      displayError("Too many arguments for command \"RUN\"");
+      return;
+    }
+    if (tokens.length < 2) {
+      displayError("Missing argument(s) for command \"RUN\"");
+      return;
+    }
+    if (game == null) {
+      displayError("No active game!");
+      return;
+    }
+
+    long generations = parseGenerations(tokens[1], "RUN");
+    if (generations <= 0) {
+      return;
+    }
+    long interval = generations;
+    if (tokens.length == 3) {
+      interval = parseGenerations(tokens[2], "RUN");
+      if (interval <= 0) {
+        return;
+      }
+    }
+
+    long start = System.nanoTime();
+    long remaining = generations;
+    while (remaining > 0) {
+      long steps = Math.min(interval, remaining);
+      advance(steps);
+      remaining -= steps;
+      System.out.println("Generation: " + game.getGenerations());
+    }
+    printThroughput(generations, System.nanoTime() - start);
+  }
+
+  /**
+   * Computes generations one by one and animates them on the terminal. Only the cells that changed
+   * since the last frame are redrawn, and generations are skipped if the terminal cannot keep up.
+   *
+   * @param tokens The tokens to be checked. This method requires the number of generations and
+   *               accepts the highest number of frames per second.
+   * @throws IOException thrown when writing to stdout fails
+   */
+  private void handleCommandAnimate(String[] tokens) throws IOException {
+    if (tokens.length > 3) {
+      displayError("Too many arguments for command \"ANIMATE\"");
+      return;
+    }
+    if (tokens.length < 2) {
+      displayError("Missing argument(s) for command \"ANIMATE\"");
+      return;
+    }
+    if (game == null) {
+      displayError("No active game!");
+      return;
+    }
+
+    long generations = parseGenerations(tokens[1], "ANIMATE");
+    if (generations <= 0) {
+      return;
+    }
+    int framesPerSecond = DEFAULT_FRAMES_PER_SECOND;
+    if (tokens.length == 3) {
+      try {
+        framesPerSecond = Integer.parseInt(tokens[2]);
+      } catch (NumberFormatException e) {
+        displayError("Arguments of the \"ANIMATE\" command must be numbers!");
+        return;
+      }
+    }
+
+    Animation animation;
+    try {
+      animation = new Animation(game, System.out, framesPerSecond);
+    } catch (IllegalArgumentException | IllegalStateException e) {
+      displayError(e.getMessage());
+      return;
+    }
+    long start = System.nanoTime();
+    for (long i = 0; i < generations; i++) {
+      advance(1);
+      animation.offer(game);
+    }
+    long nanos = System.nanoTime() - start;
+    try {
+      long frames = animation.finish(game);
+      System.out.println("Frames shown: " + frames);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    printThroughput(generations, nanos);
+  }
+
+  /**
+   * Computes the given number of generations. If the history is enabled, every generation is
+   * recorded.
+   *
+   * @param generations The number of generations.
+   */
+  private void advance(long generations) {
+    if (history == null) {
+      game.next(generations);
+      return;
+    }
+    for (long i = 0; i < generations; i++) {
+      game.next();
+      history.record(game);
+    }
+  }
+
+  /**
+   * Records the current state of the game, if the history is enabled.
+   */
+  private void recordHistory() {
+    if (history != null) {
+      history.record(game);
+    }
+  }
+
+  /**
+   * Applies an edit to the game and records the result in the history. While a simulation exists,
+   * the edit is queued and applied by the worker between two generations, so that the shell does
+   * not wait for the current generation.
+   *
+   * @param edit the edit
+   */
+  private void edit(Runnable edit) {
+    if (simulation == null) {
+      edit.run();
+      recordHistory();
+      return;
+    }
+    simulation.submit(() -> {
+      try {
+        edit.run();
+        recordHistory();
+      } catch (IllegalArgumentException e) {
+        // the field was resized after the edit was checked
+        displayError(e.getMessage());
+      }
+    });
+  }
+
+  /**
+   * Lets a user start computing generations in the background, or resume a paused simulation.
+   * Commands can be entered while the generations are computed.
+   *
+   * @param tokens The tokens to be checked.
+   */
+  private void handleCommandStart(String[] tokens) {
+    if (tokens.length > 1) {
+      displayError("Too many arguments for command \"START\"");
+      return;
+    }
+    if (game == null) {
+      displayError("No active game!");
+      return;
+    }
+    if (simulation == null) {
+      simulation = new Simulation(() -> advance(1), () -> game.getGenerations());
+    } else {
+      simulation.resume();
+    }
+  }
+
+  /**
+   * Lets a user pause the simulation after the current generation.
+   *
+   * @param tokens The tokens to be checked.
+   * @throws IOException thrown when the shell is interrupted while waiting for the worker
+   */
+  private void handleCommandPause(String[] tokens) throws IOException {
+    if (tokens.length > 1) {
+      displayError("Too many arguments for command \"PAUSE\"");
+      return;
+    }
+    if (simulation == null) {
+      displayError("No simulation started!");
+      return;
+    }
+    simulation.pause();
+  }
+
+  /**
+   * Lets a user end the simulation. Queued edits are applied before the worker ends.
+   *
+   * @param tokens The tokens to be checked.
+   * @throws IOException thrown when the shell is interrupted while waiting for the worker
    */
-  private void handleCommandPrint(String[] tokens) {
+  private void handleCommandStop(String[] tokens) throws IOException {
     if (tokens.length > 1) {
+      displayError("Too many arguments for command \"STOP\"");
+      return;
+    }
+    if (simulation == null) {
+      displayError("No simulation started!");
+      return;
+    }
+    simulation.stop();
+    simulation = null;
+    System.out.println("Generation: " + game.getGenerations());
+  }
+
+  /**
+   * Lets a user see the generation of the game and the speed of the simulation since the last
+   * status, without interrupting the worker.
+   *
+   * @param tokens The tokens to be checked.
+   */
+  private void handleCommandStatus(String[] tokens) {
+    if (tokens.length > 1) {
+      displayError("Too many arguments for command \"STATUS\"");
+      return;
+    }
+    if (game == null) {
+      displayError("No active game!");
+      return;
+    }
+    if (simulation == null) {
+      System.out.println("Generation: " + game.getGenerations() + " (stopped)");
+      return;
+    }
+    long generation = simulation.getGeneration();
+    double speed = simulation.getSpeed();
+    String failure = simulation.getFailure();
+    if (failure != null) {
+      System.out.println("Generation: " + generation + " (paused: " + failure + ")");
+    } else if (simulation.isPaused()) {
+      System.out.println("Generation: " + generation + " (paused)");
+    } else {
+      System.out.println(String.format(Locale.ROOT, "Generation: %d (running, %.1f generations/s)",
+          generation, speed));
+    }
+  }
+
+  /**
+   * Lets a user to enable the history of generations. Generations are only recorded while the
+   * history is enabled.
+   *
+   * @param tokens The tokens to be checked. This method requires the number of generations to
+   *               retain, 0 disables the history.
+   */
+  private void handleCommandHistory(String[] tokens) {
+    if (tokens.length > 2) {
+      displayError("Too many arguments for command \"HISTORY\"");
+      return;
+    }
+    if (tokens.length < 2) {
+      displayError("Missing argument(s) for command \"HISTORY\"");
+      return;
+    }
+    int capacity;
+    try {
+      capacity = Integer.parseInt(tokens[1]);
+    } catch (NumberFormatException e) {
+      displayError("Argument of the \"HISTORY\" command must be a number!");
+      return;
+    }
+    if (capacity < 0) {
+      displayError("Number of generations may not be negative!");
+      return;
+    }
+
+    history = capacity == 0 ? null : new History(capacity);
+    if (history != null && game != null) {
+      history.record(game);
+    }
+  }
+
+  /**
+   * Lets a user to return to an earlier generation.
+   *
+   * @param tokens The tokens to be checked. This method requires the number of generations.
+   */
+  private void handleCommandBack(String[] tokens) {
+    if (tokens.length > 2) {
+      displayError("Too many arguments for command \"BACK\"");
+      return;
+    }
+    if (tokens.length < 2) {
+      displayError("Missing argument(s) for command \"BACK\"");
+      return;
+    }
+    if (game == null) {
+      displayError("No active game!");
+      return;
+    }
+    long generations = parseGenerations(tokens[1], "BACK");
+    if (generations <= 0) {
+      return;
+    }
+    restoreGeneration(game.getGenerations() - generations);
+  }
+
+  /**
+   * Lets a user to return to a recorded generation.
+   *
+   * @param tokens The tokens to be checked. This method requires the generation.
+   */
+  private void handleCommandGoto(String[] tokens) {
+    if (tokens.length > 2) {
+      displayError("Too many arguments for command \"GOTO\"");
+      return;
+    }
+    if (tokens.length < 2) {
+      displayError("Missing argument(s) for command \"GOTO\"");
+      return;
+    }
+    if (game == null) {
+      displayError("No active game!");
+      return;
+    }
+    long generation;
+    try {
+      generation = Long.parseLong(tokens[1]);
+    } catch (NumberFormatException e) {
+      displayError("Argument of the \"GOTO\" command must be a number!");
+      return;
+    }
+    restoreGeneration(generation);
+  }
+
+  /**
+   * Restores a generation from the history.
+   *
+   * @param generation The generation to be restored.
+   */
+  private void restoreGeneration(long generation) {
+    if (history == null) {
+      displayError("No history recorded, enable it with \"HISTORY n\"");
+      return;
+    }
+    if (!history.contains(generation)) {
+      displayError("Generation " + generation + " is not in the history, available are "
+          + history.getOldestGeneration() + " to " + history.getNewestGeneration());
+      return;
+    }
+    history.restore(generation, game);
+    System.out.println("Generation: " + game.getGenerations());
+  }
+
+  /**
+   * Parses a positive number of generations. An error is displayed if the token is invalid.
+   *
+   * @param token   The token to be parsed.
+   * @param command The name of the command for error messages.
+   * @return The number of generations or 0 if the token is invalid.
+   */
+  private long parseGenerations(String token, String command) {
+    long generations;
+    try {
+      generations = Long.parseLong(token);
+    } catch (NumberFormatException e) {
+      displayError("Arguments of the \"" + command + "\" command must be numbers!");
+      return 0;
+    }
+    if (generations <= 0) {
+      displayError("Number of generations must be greater than 0!");
+      return 0;
+    }
+    return generations;
+  }
+
+  /**
+   * Prints how many generations were computed per second.
+   *
+   * @param generations The number of computed generations.
+   * @param nanos       The time needed in nanoseconds.
+   */
+  private void printThroughput(long generations, long nanos) {
+    double seconds = Math.max(nanos, 1) / 1e9;
+    System.out.println(String.format(Locale.ROOT, "%d generations in %.3f s (%.1f generations/s)",
+        generations, seconds, generations / seconds));
+  }
+
+  /**
+   * Restores the game from a snapshot, or replaces the population of the game by the pattern of a
+   * file, which is placed in the middle of the field. Cells that do not fit on the field are
+   * dropped.
+   *
+   * @param tokens The tokens to be checked. This method requires the name of the file.
+   */
+  private void handleCommandLoad(String[] tokens) {
+    if (tokens.length > 2) {
+      displayError("Too many arguments for command \"LOAD\"");
+      return;
+    }
+    if (tokens.length < 2) {
+      displayError("Missing argument(s) for command \"LOAD\"");
+      return;
+    }
+    if (game == null) {
+      displayError("No active game!");
+      return;
+    }
+
+    try {
+      Path file = Path.of(tokens[1]);
+      if (Snapshot.isSnapshot(file)) {
+        Snapshot.load(file, game);
+      } else {
+        Pattern pattern = Pattern.map(file);
+        // the game is only cleared once the whole pattern is known to be valid
+        pattern.validate();
+        game.clear();
+        pattern.placeOn(game);
+      }
+    } catch (InvalidPathException | NoSuchFileException e) {
+      displayError("File not found: " + tokens[1]);
+      return;
+    } catch (IOException e) {
+      displayError(e.getMessage());
+      return;
+    }
+    recordHistory();
+  }
+
+  /**
+   * Saves the game as a snapshot, which can be restored with the command LOAD.
+   *
+   * @param tokens The tokens to be checked. This method requires the name of the file.
+   */
+  private void handleCommandSave(String[] tokens) {
+    if (tokens.length > 2) {
+      displayError("Too many arguments for command \"SAVE\"");
+      return;
+    }
+    if (tokens.length < 2) {
+      displayError("Missing argument(s) for command \"SAVE\"");
+      return;
+    }
+    if (game == null) {
+      displayError("No active game!");
+      return;
+    }
+
+    try {
+      Snapshot.save(game, Path.of(tokens[1]));
+    } catch (InvalidPathException | NoSuchFileException e) {
+      displayError("Cannot write file: " + tokens[1]);
+    } catch (IOException e) {
+      displayError(e.getMessage());
+    }
+  }
+
+  /**
+   * Prints the current state of a running game field. Games in an unbounded universe are printed
+   * in the area occupied by living cells. With a position and dimensions only that area of the
+   * field is printed.
+   *
+   * @param tokens The tokens to be checked. This method accepts an optional area given by the
+   *               column and row of its top left corner, its width and its height.
+   * @throws IOException thrown when writing to stdout fails
+   */
+  private void handleCommandPrint(String[] tokens) throws IOException {
+    if (tokens.length > 5) {
       displayError("Too many arguments for command \"PRINT\"");
       return;
     }
+    if (tokens.length != 1 && tokens.length != 5) {
+      displayError("Missing argument(s) for command \"PRINT\"");
+      return;
+    }
 
     if (game == null) {
       displayError("No active game!");
       return;
     }
-    System.out.println(game);
+    if (tokens.length == 5) {
+      printArea(tokens);
+      return;
+    }
+    BoundingBox area = game instanceof UnboundedGrid
+        ? ((UnboundedGrid) game).getBoundingBox() : null;
+    if (area != null) {
+      System.out.println(area);
+      try {
+        ((UnboundedGrid) game).render(System.out, area);
+      } catch (IllegalStateException e) {
+        displayError(e.getMessage());
+      }
+    } else {
+      game.render(System.out);
+    }
+    System.out.flush();
+  }
+
+  /**
+   * Prints an area of the game field. Games in an unbounded universe may be printed anywhere in
+   * the universe.
+   *
+   * @param tokens The tokens of the command, i.e. the column and row of the top left corner of the
+   *               area, its width and its height.
+   * @throws IOException thrown when writing to stdout fails
+   */
+  private void printArea(String[] tokens) throws IOException {
+    long col;
+    long row;
+    int width;
+    int height;
+    try {
+      col = Long.parseLong(tokens[1]);
+      row = Long.parseLong(tokens[2]);
+      width = Integer.parseInt(tokens[3]);
+      height = Integer.parseInt(tokens[4]);
+    } catch (NumberFormatException e) {
+      displayError("Arguments of the \"PRINT\" command must be numbers!");
+      return;
+    }
+    if (width <= 0 || height <= 0) {
+      displayError("Width and height of the area must be positive");
+      return;
+    }
+
+    try {
+      if (game instanceof UnboundedGrid) {
+        ((UnboundedGrid) game).render(System.out,
+            new BoundingBox(col, row, col + width - 1, row + height - 1));
+      } else if (col < 0 || row < 0 || col + width > game.getColumns()
+          || row + height > game.getRows()) {
+        displayError(
+            "Parameters for column and row may not exceed the maximum number of columns and rows");
+        return;
+      } else {
+        game.render(System.out, (int) col, (int) row, width, height);
+      }
+    } catch (IllegalArgumentException | IllegalStateException e) {
+      displayError(e.getMessage());
+      return;
+    }
+    System.out.flush();
   }
 
   /**
@@ -296,6 +985,7 @@ class Shell {
       return;
     }
     game.clear();
+    recordHistory();
   }
 
   /**
@@ -332,6 +1022,7 @@ class Shell {
     }
 
     game.resize(cols, rows);
+    recordHistory();
   }
 
   /**
@@ -367,7 +1058,165 @@ class Shell {
           + shape.getColumns() + "x" + shape.getRows() + " field.");
       return;
     }
-    game = new Game(game.getColumns(), game.getRows(), shape);
+    Grid target = game;
+    edit(() -> {
+      target.clear();
+      target.placeShape(shape);
+    });
+  }
+
+  /**
+   * Lets a user to choose the number of threads that compute the generations of the current game.
+   *
+   * @param tokens The tokens to be checked.
+   */
+  private void handleCommandThreads(String[] tokens) {
+    if (tokens.length > 2) {
+      displayError("Too many arguments for command \"THREADS\"");
+      return;
+    }
+    if (tokens.length < 2) {
+      displayError("Missing argument(s) for command \"THREADS\"");
+      return;
+    }
+    if (game == null) {
+      displayError("No active game!");
+      return;
+    }
+
+    int threads;
+    try {
+      threads = Integer.parseInt(tokens[1]);
+    } catch (NumberFormatException e) {
+      displayError("Argument of the \"THREADS\" command must be a number!");
+      return;
+    }
+    if (threads <= 0) {
+      displayError("Number of threads must be greater than 0!");
+      return;
+    }
+
+    try {
+      game.setThreads(threads);
+    } catch (UnsupportedOperationException e) {
+      displayError(e.getMessage());
+    }
+  }
+
+  /**
+   * Lets a user to choose the rule of the current and all new games, or prints the current rule.
+   *
+   * @param tokens The tokens to be checked.
+   */
+  private void handleCommandRule(String[] tokens) {
+    if (tokens.length > 2) {
+      displayError("Too many arguments for command \"RULE\"");
+      return;
+    }
+    if (tokens.length == 1) {
+      System.out.println("Rule: " + rule);
+      return;
+    }
+
+    try {
+      rule = Rule.parse(tokens[1]);
+    } catch (IllegalArgumentException e) {
+      displayError(e.getMessage());
+      return;
+    }
+    if (game != null) {
+      game.setRule(rule);
+    }
+  }
+
+  /**
+   * Prints the metrics of the generations computed by the current game, or forgets them.
+   *
+   * @param tokens The tokens to be checked. This method accepts <code>reset</code> as argument.
+   */
+  private void handleCommandStats(String[] tokens) {
+    if (tokens.length > 2) {
+      displayError("Too many arguments for command \"STATS\"");
+      return;
+    }
+    if (game == null) {
+      displayError("No active game!");
+      return;
+    }
+    if (tokens.length == 2) {
+      if (!tokens[1].equalsIgnoreCase("reset")) {
+        displayError("Unknown argument for command \"STATS\": " + tokens[1]);
+        return;
+      }
+      game.resetMetrics();
+      return;
+    }
+
+    MetricsSnapshot metrics = game.getMetrics();
+    long steps = metrics.getSteps();
+    System.out.printf(Locale.ROOT, "Steps: %d, generations: %d, total %.3f ms%n", steps,
+        metrics.getGenerations(), metrics.getTotalNanos() / 1e6);
+    if (steps == 0) {
+      return;
+    }
+    System.out.printf(Locale.ROOT,
+        "Step time: mean %.3f ms, p50 %.3f ms, p90 %.3f ms, p99 %.3f ms, max %.3f ms%n",
+        metrics.getTotalNanos() / 1e6 / steps, metrics.getMedianNanos() / 1e6,
+        metrics.getPercentile90Nanos() / 1e6, metrics.getPercentile99Nanos() / 1e6,
+        metrics.getMaxNanos() / 1e6);
+    if (metrics.getAllocatedBytes() >= 0) {
+      System.out.printf(Locale.ROOT, "Allocated: %.1f KB per step%n",
+          metrics.getAllocatedBytes() / 1024.0 / steps);
+    }
+    long detailed = metrics.getDetailedSteps();
+    if (detailed > 0) {
+      System.out.printf(Locale.ROOT, "Phases: neighborhood %.3f ms, evaluation %.3f ms per step%n",
+          metrics.getNeighborhoodNanos() / 1e6 / detailed,
+          metrics.getEvaluationNanos() / 1e6 / detailed);
+      System.out.printf(Locale.ROOT,
+          "Cells per step: %.1f evaluated, %.1f births, %.1f deaths%n",
+          (double) metrics.getEvaluatedCells() / detailed, (double) metrics.getBirths() / detailed,
+          (double) metrics.getDeaths() / detailed);
+      System.out.println("Population: " + metrics.getPopulation());
+    }
+  }
+
+  /**
+   * Prints an overview of the game field with one character per block of cells, which shows the
+   * density of the living cells in the block.
+   *
+   * @param tokens The tokens to be checked. This method requires the number of columns and rows
+   *               per block.
+   * @throws IOException thrown when writing to stdout fails
+   */
+  private void handleCommandZoom(String[] tokens) throws IOException {
+    if (tokens.length > 2) {
+      displayError("Too many arguments for command \"ZOOM\"");
+      return;
+    }
+    if (tokens.length < 2) {
+      displayError("Missing argument(s) for command \"ZOOM\"");
+      return;
+    }
+    if (game == null) {
+      displayError("No active game!");
+      return;
+    }
+
+    int blockSize;
+    try {
+      blockSize = Integer.parseInt(tokens[1]);
+    } catch (NumberFormatException e) {
+      displayError("Argument of the \"ZOOM\" command must be a number!");
+      return;
+    }
+    try {
+      game.renderDensity(System.out, blockSize);
+    } catch (IllegalArgumentException | IllegalStateException e) {
+      displayError(e.getMessage());
+      return;
+    }
+    System.out.flush();
   }
 
   /**
@@ -398,7 +1247,11 @@ class Shell {
    */
   private enum Command {
     NEW("NEW"), ALIVE("ALIVE"), DEAD("DEAD"), GENERATE("GENERATE"), PRINT("PRINT"), CLEAR(
-        "CLEAR"), RESIZE("RESIZE"), SHAPE("SHAPE"), HELP("HELP"), QUIT("QUIT"), UNKNOWN;
+        "CLEAR"), RESIZE("RESIZE"), SHAPE("SHAPE"), HELP("HELP"), QUIT("QUIT"), THREADS(
+        "THREADS"), RUN("RUN"), LOAD("LOAD"), SAVE(
+        "SAVE"), HISTORY("HISTORY"), BACK("BACK"), GOTO("GOTO"), RULE("RULE"),
+    STATS("STATS"), ZOOM("ZOOM"), ANIMATE("ANIMATE"), START("START"), PAUSE("PAUSE"),
+    STOP("STOP"), STATUS("STATUS"), UNKNOWN;
 
     private final String name;
 
@@ -0,0 +1,271 @@
+package org.sosylab;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Computes generations on a worker thread, so that the shell stays responsive meanwhile. Only the
+ * worker touches the game while the simulation exists: edits and other commands are queued as
+ * tasks, which the worker runs between two generations. The queue is lock-free and the state of
+ * the simulation is published in volatile fields, so computing a generation takes no lock.
+ *
+ * <p>When a generation or a queued task fails, the simulation pauses and keeps the failure for
+ * {@link #getFailure()}. Should the worker end anyway, waiting calls fail instead of blocking.
+ */
+final class Simulation {
+
+  private final Runnable step;
+  private final LongSupplier generation;
+  private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+  private final Thread worker;
+
+  private volatile boolean paused;
+  private volatile boolean stopping;
+  private volatile boolean ended;
+  private volatile long currentGeneration;
+  // Number of generations computed by the worker, only written by the worker
+  private volatile long steps;
+  private volatile String failure;
+
+  // Last sample for the speed, only accessed by the shell
+  private long sampleSteps;
+  private long sampleNanos;
+
+  /**
+   * Starts computing generations.
+   *
+   * @param step       computes one generation
+   * @param generation supplies the current generation of the game
+   */
+  Simulation(Runnable step, LongSupplier generation) {
+    this.step = step;
+    this.generation = generation;
+    this.currentGeneration = generation.getAsLong();
+    this.sampleNanos = System.nanoTime();
+    worker = new Thread(this::work, "simulation");
+    worker.setDaemon(true);
+    worker.start();
+  }
+
+  /**
+   * Computes generations until the simulation is stopped. Queued tasks are run before every
+   * generation, while the simulation is paused the worker sleeps until a task arrives.
+   */
+  private void work() {
+    try {
+      while (true) {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+          try {
+            task.run();
+          } catch (Throwable e) {
+            // the task may have left the game half changed, so no generation is computed
+            fail(e);
+          }
+          currentGeneration = generation.getAsLong();
+        }
+        if (stopping) {
+          return;
+        }
+        if (paused) {
+          LockSupport.park(this);
+          continue;
+        }
+        try {
+          step.run();
+          steps++;
+        } catch (Throwable e) {
+          // the game cannot go on, but the queued commands may still fix it
+          fail(e);
+        }
+        currentGeneration = generation.getAsLong();
+      }
+    } catch (Throwable e) {
+      fail(e);
+      throw e;
+    } finally {
+      ended = true;
+      // nobody runs the tasks queued from now on, so their callers must not wait for them
+      cancelTasks();
+    }
+  }
+
+  /**
+   * Pauses the simulation because of a failure.
+   *
+   * @param e the failure
+   */
+  private void fail(Throwable e) {
+    failure = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+    paused = true;
+  }
+
+  /**
+   * Drops the queued tasks and cancels those a caller waits for.
+   */
+  private void cancelTasks() {
+    Runnable task;
+    while ((task = tasks.poll()) != null) {
+      if (task instanceof FutureTask) {
+        ((FutureTask<?>) task).cancel(false);
+      }
+    }
+  }
+
+  /**
+   * Queues a task, which the worker runs before the next generation.
+   *
+   * @param task the task
+   */
+  void submit(Runnable task) {
+    tasks.add(task);
+    LockSupport.unpark(worker);
+  }
+
+  /**
+   * Runs a task on the worker between two generations and waits for its result.
+   *
+   * @param task the task
+   * @param <T>  the type of the result
+   * @return the result of the task
+   * @throws IOException           thrown when the task fails with an {@link IOException}, or when
+   *                               the thread is interrupted while waiting
+   * @throws IllegalStateException thrown when the task fails with another checked exception, or
+   *                               when the worker has ended
+   */
+  <T> T call(Callable<T> task) throws IOException {
+    FutureTask<T> future = new FutureTask<>(() -> {
+      try {
+        return task.call();
+      } finally {
+        // the caller may ask for the generation as soon as it wakes up
+        currentGeneration = generation.getAsLong();
+      }
+    });
+    submit(future);
+    if (ended) {
+      // the worker may have ended before it saw the task, otherwise this does nothing
+      future.cancel(false);
+    }
+    try {
+      return future.get();
+    } catch (CancellationException e) {
+      throw endedException();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for the simulation");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+
+  /**
+   * Creates the exception for a call to the simulation after its worker ended.
+   *
+   * @return the exception
+   */
+  private IllegalStateException endedException() {
+    String reason = failure;
+    return new IllegalStateException(
+        reason != null ? "The simulation has ended: " + reason : "The simulation has ended");
+  }
+
+  /**
+   * Resumes computing generations after a pause.
+   *
+   * @throws IllegalStateException thrown when the worker has ended
+   */
+  void resume() {
+    if (ended) {
+      throw endedException();
+    }
+    failure = null;
+    paused = false;
+    LockSupport.unpark(worker);
+  }
+
+  /**
+   * Stops computing generations after the current one. The worker keeps running queued tasks.
+   *
+   * @throws IOException thrown when the thread is interrupted while waiting for the worker
+   */
+  void pause() throws IOException {
+    paused = true;
+    call(() -> null);
+  }
+
+  /**
+   * Runs the queued tasks and ends the worker.
+   *
+   * @throws IOException thrown when the thread is interrupted while waiting for the worker
+   */
+  void stop() throws IOException {
+    stopping = true;
+    LockSupport.unpark(worker);
+    try {
+      worker.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for the simulation");
+    }
+  }
+
+  /**
+   * Checks whether the simulation is paused.
+   *
+   * @return <code>true</code> if no generations are computed at the moment
+   */
+  boolean isPaused() {
+    return paused;
+  }
+
+  /**
+   * Get the reason why the simulation paused by itself.
+   *
+   * @return the message of the error, <code>null</code> if no error occurred
+   */
+  String getFailure() {
+    return failure;
+  }
+
+  /**
+   * Get the generation the game has reached. The worker is not interrupted.
+   *
+   * @return the generation after the last computed generation or task
+   */
+  long getGeneration() {
+    return currentGeneration;
+  }
+
+  /**
+   * Get the number of generations computed per second since the last call or the start.
+   *
+   * @return the speed
+   */
+  double getSpeed() {
+    long now = System.nanoTime();
+    long current = steps;
+    double speed = (current - sampleSteps) / (Math.max(now - sampleNanos, 1) / 1e9);
+    sampleSteps = current;
+    sampleNanos = now;
+    return speed;
+  }
+}
@@ -0,0 +1,30 @@
+package org.sosylab.io;
+
+/**
+ * Receives the coordinates of the living cells of a pattern. The coordinates are relative to the
+ * pattern and may be negative for formats without a fixed origin.
+ */
+interface CellConsumer {
+
+  /**
+   * Receives a living cell.
+   *
+   * @param col x-position.
+   * @param row y-position.
+   */
+  void accept(long col, long row);
+
+  /**
+   * Receives a run of living cells in one row. Consumers that drop cells, e.g. because they lie
+   * outside of the field, override this to skip the dropped part of a run without visiting it.
+   *
+   * @param col    x-position of the first cell.
+   * @param row    y-position.
+   * @param length the number of cells, the run does not overflow
+   */
+  default void acceptRun(long col, long row, long length) {
+    for (long cell = col; cell < col + length; cell++) {
+      accept(cell, row);
+    }
+  }
+}
@@ -0,0 +1,151 @@
+package org.sosylab.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Parser of the Life 1.06 format. After the header <code>#Life 1.06</code>, every line contains
+ * the column and the row of a living cell separated by whitespace. The coordinates may be
+ * negative. Lines starting with <code>#</code> are comments. The bounding box is the smallest
+ * rectangle containing all living cells.
+ */
+final class Life106Parser extends PatternParser {
+
+  private final long[] coordinates = new long[2];
+  private int count;
+  private long value;
+  private boolean negative;
+  private boolean inNumber;
+  private boolean lineStart = true;
+  private boolean comment;
+
+  private long minColumn = Long.MAX_VALUE;
+  private long minRow = Long.MAX_VALUE;
+  private long maxColumn = Long.MIN_VALUE;
+  private long maxRow = Long.MIN_VALUE;
+
+  /**
+   * Create a parser.
+   */
+  Life106Parser() {
+    super("Life 1.06");
+  }
+
+  @Override
+  void parse(ByteBuffer chunk, CellConsumer consumer) throws IOException {
+    while (chunk.hasRemaining()) {
+      byte character = chunk.get();
+      if (character == '\n') {
+        endLine(consumer);
+        continue;
+      }
+      if (comment) {
+        continue;
+      }
+      if (lineStart && character == '#') {
+        comment = true;
+        continue;
+      }
+      lineStart = false;
+      if (character >= '0' && character <= '9') {
+        if (!inNumber) {
+          startNumber();
+        }
+        value = value * 10 + (character - '0');
+      } else if ((character == '-' || character == '+') && !inNumber) {
+        startNumber();
+        negative = character == '-';
+      } else if (character == ' ' || character == '\t' || character == '\r') {
+        endNumber();
+      } else {
+        throw unexpected(character);
+      }
+    }
+  }
+
+  /**
+   * Starts a new coordinate.
+   *
+   * @throws IOException if the line already contains two coordinates
+   */
+  private void startNumber() throws IOException {
+    if (count == 2) {
+      throw error("more than two coordinates");
+    }
+    inNumber = true;
+    negative = false;
+    value = 0;
+  }
+
+  /**
+   * Completes the current coordinate, if any.
+   */
+  private void endNumber() {
+    if (inNumber) {
+      coordinates[count++] = negative ? -value : value;
+      inNumber = false;
+    }
+  }
+
+  /**
+   * Completes the current line and passes its cell to the consumer.
+   *
+   * @param consumer the consumer receiving the living cells
+   * @throws IOException if the line does not contain exactly two coordinates
+   */
+  private void endLine(CellConsumer consumer) throws IOException {
+    endNumber();
+    if (count == 1) {
+      throw error("missing row");
+    }
+    if (count == 2) {
+      long col = coordinates[0];
+      long row = coordinates[1];
+      minColumn = Math.min(minColumn, col);
+      minRow = Math.min(minRow, row);
+      maxColumn = Math.max(maxColumn, col);
+      maxRow = Math.max(maxRow, row);
+      consumer.accept(col, row);
+    }
+    count = 0;
+    lineStart = true;
+    comment = false;
+    nextLine();
+  }
+
+  @Override
+  void finish(CellConsumer consumer) throws IOException {
+    if (!lineStart) {
+      endLine(consumer);
+    }
+  }
+
+  /**
+   * Reports whether the pattern contains living cells.
+   *
+   * @return <code>true</code> if no cell was parsed
+   */
+  private boolean isEmpty() {
+    return minColumn > maxColumn;
+  }
+
+  @Override
+  long getMinColumn() {
+    return isEmpty() ? 0 : minColumn;
+  }
+
+  @Override
+  long getMinRow() {
+    return isEmpty() ? 0 : minRow;
+  }
+
+  @Override
+  long getColumns() {
+    return isEmpty() ? 0 : maxColumn - minColumn + 1;
+  }
+
+  @Override
+  long getRows() {
+    return isEmpty() ? 0 : maxRow - minRow + 1;
+  }
+}
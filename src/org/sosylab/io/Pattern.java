@@ -0,0 +1,253 @@
+package org.sosylab.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.sosylab.jfr.PatternLoadEvent;
+import org.sosylab.model.Grid;
+
+/**
+ * A pattern in one of the {@link PatternFormat formats} RLE, Life 1.06 or plaintext. Files are
+ * memory-mapped and parsed in a streaming way, the living cells are written straight into the
+ * engine without building an intermediate representation of the pattern. Parsing the bounding box
+ * and placing the cells are separate passes over the mapped file.
+ */
+public final class Pattern {
+
+  // Largest part of a file that is mapped at once
+  private static final int CHUNK_SIZE = 1 << 30;
+
+  // Number of bytes inspected to detect the format
+  private static final int PREFIX_SIZE = 4096;
+
+  // Consumer of the passes that only check the pattern, long runs cost nothing
+  private static final CellConsumer DISCARD = new CellConsumer() {
+    @Override
+    public void accept(long col, long row) {
+    }
+
+    @Override
+    public void acceptRun(long col, long row, long length) {
+    }
+  };
+
+  private final List<ByteBuffer> chunks;
+  private final String source;
+  private final PatternFormat format;
+  private PatternParser bounds;
+
+  /**
+   * Create a pattern from its content.
+   *
+   * @param chunks the consecutive parts of the content
+   * @param source the file or stream the content was read from
+   */
+  Pattern(List<ByteBuffer> chunks, String source) {
+    this.chunks = chunks;
+    this.source = source;
+    this.format = PatternFormat.detect(prefix());
+  }
+
+  /**
+   * Copies the first bytes of the content, which may span several chunks.
+   *
+   * @return the first bytes
+   */
+  private ByteBuffer prefix() {
+    ByteBuffer prefix = ByteBuffer.allocate(PREFIX_SIZE);
+    for (ByteBuffer chunk : chunks) {
+      ByteBuffer part = chunk.duplicate();
+      part.limit(part.position() + Math.min(part.remaining(), prefix.remaining()));
+      prefix.put(part);
+    }
+    return prefix.flip();
+  }
+
+  /**
+   * Maps a pattern file into memory.
+   *
+   * @param file the file
+   * @return the pattern
+   * @throws IOException thrown when the file cannot be mapped
+   */
+  public static Pattern map(Path file) throws IOException {
+    List<ByteBuffer> chunks = new ArrayList<>();
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      for (long position = 0; position < size; position += CHUNK_SIZE) {
+        chunks.add(channel.map(FileChannel.MapMode.READ_ONLY, position,
+            Math.min(CHUNK_SIZE, size - position)));
+      }
+    }
+    return new Pattern(chunks, file.toString());
+  }
+
+  /**
+   * Reads a pattern from a stream, e.g. stdin, that cannot be mapped into memory.
+   *
+   * @param in the stream
+   * @return the pattern
+   * @throws IOException thrown when reading from the stream fails
+   */
+  public static Pattern read(InputStream in) throws IOException {
+    List<ByteBuffer> chunks = new ArrayList<>();
+    chunks.add(ByteBuffer.wrap(in.readAllBytes()));
+    return new Pattern(chunks, "stream");
+  }
+
+  /**
+   * Get the format of the pattern.
+   *
+   * @return the format
+   */
+  public PatternFormat getFormat() {
+    return format;
+  }
+
+  /**
+   * Gets the dimension of the pattern in x direction.
+   *
+   * @return number of columns.
+   * @throws IOException if the pattern is not valid
+   */
+  public long getColumns() throws IOException {
+    return measure().getColumns();
+  }
+
+  /**
+   * Gets the dimension of the pattern in y direction.
+   *
+   * @return number of rows.
+   * @throws IOException if the pattern is not valid
+   */
+  public long getRows() throws IOException {
+    return measure().getRows();
+  }
+
+  /**
+   * Parses the whole pattern without placing it, so that a pattern that is not valid is detected
+   * before a game is changed. The bounding box of RLE patterns is otherwise only read from the
+   * header.
+   *
+   * @throws IOException if the pattern is not valid
+   */
+  public void validate() throws IOException {
+    PatternParser parser = format.createParser(false);
+    parse(parser, DISCARD);
+    bounds = parser;
+  }
+
+  /**
+   * Places the pattern in the middle of the field like {@link Grid#placeShape}. The cells of the
+   * pattern are set alive, all other cells keep their state. Cells that do not fit on the field are
+   * dropped. If the pattern is not valid, the cells before the error have already been placed, see
+   * {@link #validate()}.
+   *
+   * @param grid the game
+   * @throws IOException if the pattern is not valid
+   */
+  public void placeOn(Grid grid) throws IOException {
+    PatternLoadEvent event = new PatternLoadEvent();
+    event.begin();
+    PatternParser measured = measure();
+    int columns = grid.getColumns();
+    int rows = grid.getRows();
+    long offsetColumns = Math.floorDiv(columns - measured.getColumns(), 2)
+        - measured.getMinColumn();
+    long offsetRows = Math.floorDiv(rows - measured.getRows(), 2) - measured.getMinRow();
+
+    FieldPlacer placer = new FieldPlacer(grid, offsetColumns, offsetRows);
+    parse(format.createParser(false), placer);
+    event.end();
+    if (event.shouldCommit()) {
+      event.setSource(source);
+      event.setFormat(format.getName());
+      event.setColumns(columns);
+      event.setRows(rows);
+      event.setCells(placer.placed);
+      event.commit();
+    }
+  }
+
+  /**
+   * Determines the bounding box of the pattern, unless this has already been done.
+   *
+   * @return the parser holding the bounding box
+   * @throws IOException if the pattern is not valid
+   */
+  private PatternParser measure() throws IOException {
+    if (bounds == null) {
+      PatternParser parser = format.createParser(true);
+      parse(parser, DISCARD);
+      bounds = parser;
+    }
+    return bounds;
+  }
+
+  /**
+   * Passes the whole content to a parser.
+   *
+   * @param parser   the parser
+   * @param consumer the consumer receiving the living cells
+   * @throws IOException if the pattern is not valid
+   */
+  private void parse(PatternParser parser, CellConsumer consumer) throws IOException {
+    for (ByteBuffer chunk : chunks) {
+      parser.parse(chunk.duplicate(), consumer);
+      if (parser.isComplete()) {
+        return;
+      }
+    }
+    parser.finish(consumer);
+  }
+
+  /**
+   * Sets the cells of the pattern alive that fall on the field. Runs are clipped to the field, so
+   * the cost of a run does not depend on its length outside of the field.
+   */
+  private static final class FieldPlacer implements CellConsumer {
+
+    private final Grid grid;
+    private final long offsetColumns;
+    private final long offsetRows;
+    private long placed;
+
+    /**
+     * Create a consumer placing the cells on a game.
+     *
+     * @param grid          the game
+     * @param offsetColumns the column of the field the pattern column 0 is placed at
+     * @param offsetRows    the row of the field the pattern row 0 is placed at
+     */
+    FieldPlacer(Grid grid, long offsetColumns, long offsetRows) {
+      this.grid = grid;
+      this.offsetColumns = offsetColumns;
+      this.offsetRows = offsetRows;
+    }
+
+    @Override
+    public void accept(long col, long row) {
+      acceptRun(col, row, 1);
+    }
+
+    @Override
+    public void acceptRun(long col, long row, long length) {
+      long fieldRow = row + offsetRows;
+      if (fieldRow < 0 || fieldRow >= grid.getRows()) {
+        return;
+      }
+      // the part of the run on the field, in pattern coordinates
+      long first = Math.max(col, -offsetColumns);
+      long end = Math.min(col + length, grid.getColumns() - offsetColumns);
+      for (long patternCol = first; patternCol < end; patternCol++) {
+        grid.setCellAlive((int) (patternCol + offsetColumns), (int) fieldRow);
+        placed++;
+      }
+    }
+  }
+}
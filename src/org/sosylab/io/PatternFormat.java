@@ -0,0 +1,114 @@
+package org.sosylab.io;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The supported formats of pattern files.
+ */
+public enum PatternFormat {
+  RLE("RLE"),
+  LIFE_106("Life 1.06"),
+  PLAINTEXT("plaintext");
+
+  private static final byte[] LIFE_106_HEADER = "#Life 1.06".getBytes(StandardCharsets.US_ASCII);
+
+  private final String name;
+
+  PatternFormat(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Get the name of the format.
+   *
+   * @return the name
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Creates a parser of this format.
+   *
+   * @param boundsOnly whether only the bounding box of the pattern is needed
+   * @return the parser
+   */
+  PatternParser createParser(boolean boundsOnly) {
+    switch (this) {
+      case RLE:
+        return new RleParser(boundsOnly);
+      case LIFE_106:
+        return new Life106Parser();
+      case PLAINTEXT:
+        return new PlaintextParser();
+      default:
+        throw new AssertionError("Unhandled format: " + this);
+    }
+  }
+
+  /**
+   * Detects the format of a pattern from its first bytes. Files starting with
+   * <code>#Life 1.06</code> are in the Life 1.06 format, files whose first line that is not a
+   * <code>#</code> comment starts with <code>x =</code> are run length encoded, all other files
+   * are treated as plaintext.
+   *
+   * @param start the first bytes of the pattern
+   * @return the format
+   */
+  static PatternFormat detect(ByteBuffer start) {
+    if (startsWith(start, 0, LIFE_106_HEADER)) {
+      return LIFE_106;
+    }
+    int position = 0;
+    while (position < start.limit() && start.get(position) == '#') {
+      while (position < start.limit() && start.get(position) != '\n') {
+        position++;
+      }
+      position++;
+    }
+    position = skipBlanks(start, position);
+    if (position < start.limit() && start.get(position) == 'x') {
+      position = skipBlanks(start, position + 1);
+      if (position < start.limit() && start.get(position) == '=') {
+        return RLE;
+      }
+    }
+    return PLAINTEXT;
+  }
+
+  /**
+   * Checks whether the buffer contains the given bytes at the given position.
+   *
+   * @param buffer   the buffer
+   * @param position the position
+   * @param prefix   the bytes
+   * @return <code>true</code> if the bytes are found at the position
+   */
+  private static boolean startsWith(ByteBuffer buffer, int position, byte[] prefix) {
+    if (buffer.limit() - position < prefix.length) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length; i++) {
+      if (buffer.get(position + i) != prefix[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Skips spaces and tabs.
+   *
+   * @param buffer   the buffer
+   * @param position the position of the first character to be checked
+   * @return the position of the first other character
+   */
+  private static int skipBlanks(ByteBuffer buffer, int position) {
+    while (position < buffer.limit()
+        && (buffer.get(position) == ' ' || buffer.get(position) == '\t')) {
+      position++;
+    }
+    return position;
+  }
+}
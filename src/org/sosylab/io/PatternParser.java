@@ -0,0 +1,108 @@
+package org.sosylab.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Streaming parser of a pattern format. The input is passed in chunks of bytes, the parser keeps
+ * its state between the chunks, so tokens may span the boundary of two chunks. The living cells
+ * are passed to a consumer as soon as they are parsed.
+ *
+ * <p>After the whole input has been parsed, the parser reports the bounding box of the pattern.
+ */
+abstract class PatternParser {
+
+  private final String formatName;
+  private long line = 1;
+
+  /**
+   * Create a parser.
+   *
+   * @param formatName the name of the format for error messages
+   */
+  PatternParser(String formatName) {
+    this.formatName = formatName;
+  }
+
+  /**
+   * Parses the next chunk of the input.
+   *
+   * @param chunk    the bytes to be parsed
+   * @param consumer the consumer receiving the living cells
+   * @throws IOException if the input is not valid
+   */
+  abstract void parse(ByteBuffer chunk, CellConsumer consumer) throws IOException;
+
+  /**
+   * Completes parsing after the last chunk.
+   *
+   * @param consumer the consumer receiving the living cells
+   * @throws IOException if the input is not valid
+   */
+  abstract void finish(CellConsumer consumer) throws IOException;
+
+  /**
+   * Reports whether the parser does not need any further input, e.g. because the format marks the
+   * end of the pattern.
+   *
+   * @return <code>true</code> if the remaining input can be skipped
+   */
+  boolean isComplete() {
+    return false;
+  }
+
+  /**
+   * Gets the smallest column of the pattern.
+   *
+   * @return the column
+   */
+  abstract long getMinColumn();
+
+  /**
+   * Gets the smallest row of the pattern.
+   *
+   * @return the row
+   */
+  abstract long getMinRow();
+
+  /**
+   * Gets the dimension of the pattern in x direction.
+   *
+   * @return number of columns.
+   */
+  abstract long getColumns();
+
+  /**
+   * Gets the dimension of the pattern in y direction.
+   *
+   * @return number of rows.
+   */
+  abstract long getRows();
+
+  /**
+   * Counts a line break of the input for error messages.
+   */
+  final void nextLine() {
+    line++;
+  }
+
+  /**
+   * Creates an exception describing invalid input in the current line.
+   *
+   * @param message the description of the problem
+   * @return the exception
+   */
+  final IOException error(String message) {
+    return new IOException("Invalid " + formatName + " pattern in line " + line + ": " + message);
+  }
+
+  /**
+   * Creates an exception describing an unexpected character in the current line.
+   *
+   * @param character the unexpected character
+   * @return the exception
+   */
+  final IOException unexpected(byte character) {
+    return error("unexpected character '" + (char) (character & 0xFF) + "'");
+  }
+}
@@ -0,0 +1,102 @@
+package org.sosylab.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Parser of the plaintext format. Every line is a row of the pattern, living cells are marked
+ * with <code>O</code>, <code>X</code> or <code>*</code>, dead cells with <code>.</code> or a
+ * space. Lines starting with <code>!</code> are comments. The bounding box covers all rows and the
+ * longest row, including dead cells.
+ */
+final class PlaintextParser extends PatternParser {
+
+  private long col;
+  private long row;
+  private long columns;
+  private boolean lineStart = true;
+  private boolean comment;
+
+  /**
+   * Create a parser.
+   */
+  PlaintextParser() {
+    super("plaintext");
+  }
+
+  @Override
+  void parse(ByteBuffer chunk, CellConsumer consumer) throws IOException {
+    while (chunk.hasRemaining()) {
+      byte character = chunk.get();
+      if (character == '\n') {
+        endLine();
+        continue;
+      }
+      if (comment) {
+        continue;
+      }
+      if (lineStart && character == '!') {
+        comment = true;
+        continue;
+      }
+      lineStart = false;
+      switch (character) {
+        case 'O':
+        case 'X':
+        case '*':
+          consumer.accept(col, row);
+          col++;
+          break;
+        case '.':
+        case ' ':
+          col++;
+          break;
+        case '\r':
+          break;
+        default:
+          throw unexpected(character);
+      }
+    }
+  }
+
+  /**
+   * Completes the current line.
+   */
+  private void endLine() {
+    if (!comment) {
+      columns = Math.max(columns, col);
+      row++;
+    }
+    col = 0;
+    lineStart = true;
+    comment = false;
+    nextLine();
+  }
+
+  @Override
+  void finish(CellConsumer consumer) {
+    if (!lineStart) {
+      endLine();
+    }
+  }
+
+  @Override
+  long getMinColumn() {
+    return 0;
+  }
+
+  @Override
+  long getMinRow() {
+    return 0;
+  }
+
+  @Override
+  long getColumns() {
+    return columns;
+  }
+
+  @Override
+  long getRows() {
+    return row;
+  }
+}
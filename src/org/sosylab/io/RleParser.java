@@ -0,0 +1,247 @@
+package org.sosylab.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Parser of the run length encoded format. Lines starting with <code>#</code> are comments, the
+ * first other line is the header <code>x = columns, y = rows</code>, optionally followed by a rule.
+ * The body consists of runs of dead cells <code>b</code> and living cells <code>o</code>, ends of
+ * rows <code>$</code> and the end of the pattern <code>!</code>, each optionally preceded by a
+ * count. The bounding box is given by the header.
+ */
+final class RleParser extends PatternParser {
+
+  // Longest accepted header line
+  private static final int MAX_HEADER_LENGTH = 1024;
+
+  // Longest accepted run, no field has more columns or rows
+  private static final long MAX_RUN = Integer.MAX_VALUE;
+
+  private final boolean headerOnly;
+
+  private final StringBuilder header = new StringBuilder();
+  private boolean inHeader = true;
+  private boolean lineStart = true;
+  private boolean comment;
+  private boolean complete;
+
+  private long columns;
+  private long rows;
+
+  private long col;
+  private long row;
+  private long count;
+
+  /**
+   * Create a parser.
+   *
+   * @param headerOnly whether the parser is complete after the header, e.g. because only the
+   *                   bounding box is needed
+   */
+  RleParser(boolean headerOnly) {
+    super("RLE");
+    this.headerOnly = headerOnly;
+  }
+
+  @Override
+  void parse(ByteBuffer chunk, CellConsumer consumer) throws IOException {
+    while (chunk.hasRemaining() && !complete) {
+      byte character = chunk.get();
+      if (inHeader) {
+        parseHeader(character);
+      } else {
+        parseBody(character, consumer);
+      }
+    }
+  }
+
+  /**
+   * Parses a character before the end of the header.
+   *
+   * @param character the character
+   * @throws IOException if the header is not valid
+   */
+  private void parseHeader(byte character) throws IOException {
+    if (character == '\n') {
+      if (!comment && header.length() > 0) {
+        readHeader(header.toString());
+        inHeader = false;
+        complete = headerOnly;
+      }
+      lineStart = true;
+      comment = false;
+      nextLine();
+      return;
+    }
+    if (comment) {
+      return;
+    }
+    if (lineStart && character == '#') {
+      comment = true;
+      return;
+    }
+    lineStart = false;
+    if (header.length() == MAX_HEADER_LENGTH) {
+      throw error("header is too long");
+    }
+    header.append((char) (character & 0xFF));
+  }
+
+  /**
+   * Reads the dimensions from the header line.
+   *
+   * @param line the header line
+   * @throws IOException if the header does not contain the dimensions
+   */
+  private void readHeader(String line) throws IOException {
+    boolean hasColumns = false;
+    boolean hasRows = false;
+    for (String entry : line.split(",")) {
+      String[] keyValue = entry.split("=", 2);
+      if (keyValue.length != 2) {
+        throw error("invalid header entry \"" + entry.trim() + "\"");
+      }
+      String key = keyValue[0].trim();
+      if (key.equals("x")) {
+        columns = parseDimension(keyValue[1]);
+        hasColumns = true;
+      } else if (key.equals("y")) {
+        rows = parseDimension(keyValue[1]);
+        hasRows = true;
+      }
+    }
+    if (!hasColumns || !hasRows) {
+      throw error("header must contain x and y");
+    }
+  }
+
+  /**
+   * Parses a dimension of the header.
+   *
+   * @param value the value of the header entry
+   * @return the dimension
+   * @throws IOException if the value is not a number or negative
+   */
+  private long parseDimension(String value) throws IOException {
+    long dimension;
+    try {
+      dimension = Long.parseLong(value.trim());
+    } catch (NumberFormatException e) {
+      throw error("invalid dimension \"" + value.trim() + "\"");
+    }
+    if (dimension < 0) {
+      throw error("dimensions may not be negative");
+    }
+    return dimension;
+  }
+
+  /**
+   * Parses a character of the body.
+   *
+   * @param character the character
+   * @param consumer  the consumer receiving the living cells
+   * @throws IOException if the character is not valid
+   */
+  private void parseBody(byte character, CellConsumer consumer) throws IOException {
+    if (character >= '0' && character <= '9') {
+      count = count * 10 + (character - '0');
+      if (count > MAX_RUN) {
+        throw error("run count is too large");
+      }
+      return;
+    }
+    switch (character) {
+      case 'b':
+      case '.':
+        col = skip(col, run());
+        break;
+      case '$':
+        row = skip(row, run());
+        col = 0;
+        break;
+      case '!':
+        complete = true;
+        break;
+      case '\n':
+        nextLine();
+        break;
+      case ' ':
+      case '\t':
+      case '\r':
+        break;
+      default:
+        if (character >= 'A' && character <= 'Z' || character >= 'a' && character <= 'z') {
+          // all states other than the dead state count as alive
+          long run = run();
+          long end = skip(col, run);
+          consumer.acceptRun(col, row, run);
+          col = end;
+        } else {
+          throw unexpected(character);
+        }
+    }
+  }
+
+  /**
+   * Gets the count of the current run and resets it.
+   *
+   * @return the count, 1 if no count was given
+   */
+  private long run() {
+    long run = count == 0 ? 1 : count;
+    count = 0;
+    return run;
+  }
+
+  /**
+   * Moves a position forward by a run.
+   *
+   * @param position the column or row
+   * @param run      the length of the run
+   * @return the position after the run
+   * @throws IOException if the position overflows
+   */
+  private long skip(long position, long run) throws IOException {
+    if (position > Long.MAX_VALUE - run) {
+      throw error("pattern is too large");
+    }
+    return position + run;
+  }
+
+  @Override
+  void finish(CellConsumer consumer) throws IOException {
+    if (inHeader) {
+      if (header.length() == 0) {
+        throw error("missing header");
+      }
+      readHeader(header.toString());
+      inHeader = false;
+    }
+  }
+
+  @Override
+  boolean isComplete() {
+    return complete;
+  }
+
+  @Override
+  long getMinColumn() {
+    return 0;
+  }
+
+  @Override
+  long getMinRow() {
+    return 0;
+  }
+
+  @Override
+  long getColumns() {
+    return columns;
+  }
+
+  @Override
+  long getRows() {
+    return rows;
+  }
+}
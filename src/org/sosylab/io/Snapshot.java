@@ -0,0 +1,176 @@
+package org.sosylab.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import org.sosylab.jfr.PatternLoadEvent;
+import org.sosylab.model.Grid;
+
+/**
+ * Binary snapshots of games. A snapshot consists of a header and the bit-packed rows of the field,
+ * see {@link Grid#exportBits}. All numbers are stored in little-endian byte order:
+ *
+ * <pre>
+ *  0  magic          8 bytes "GOLSNAP1"
+ *  8  columns        int
+ * 12  rows           int
+ * 16  generation     long
+ * 24  checksum       int, CRC32 of the rows
+ * 28  reserved       int
+ * 32  rows           (columns + 63) / 64 longs per row
+ * </pre>
+ *
+ * <p>Snapshots are written and read through memory-mapped files, so the rows are copied in bulk
+ * between the engine and the page cache.
+ */
+public final class Snapshot {
+
+  private static final byte[] MAGIC = "GOLSNAP1".getBytes(StandardCharsets.US_ASCII);
+  private static final int HEADER_SIZE = 32;
+  private static final int COLUMNS_OFFSET = 8;
+  private static final int ROWS_OFFSET = 12;
+  private static final int GENERATION_OFFSET = 16;
+  private static final int CHECKSUM_OFFSET = 24;
+
+  /**
+   * Utility class.
+   */
+  private Snapshot() {
+  }
+
+  /**
+   * Get the size of the rows of a field in bytes.
+   *
+   * @param columns the number of columns
+   * @param rows    the number of rows
+   * @return the size
+   */
+  private static long dataSize(int columns, int rows) {
+    return (long) rows * ((columns + 63) / 64) * Long.BYTES;
+  }
+
+  /**
+   * Saves the state of a game into a file, which is overwritten if it exists.
+   *
+   * @param grid the game
+   * @param file the file
+   * @throws IOException thrown when the file cannot be written or the field is too large
+   */
+  public static void save(Grid grid, Path file) throws IOException {
+    long dataSize = dataSize(grid.getColumns(), grid.getRows());
+    if (HEADER_SIZE + dataSize > Integer.MAX_VALUE) {
+      throw new IOException("Field is too large for a snapshot");
+    }
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+        StandardOpenOption.WRITE)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+          HEADER_SIZE + dataSize);
+      buffer.order(ByteOrder.LITTLE_ENDIAN);
+      ByteBuffer data = buffer.slice(HEADER_SIZE, (int) dataSize).order(ByteOrder.LITTLE_ENDIAN);
+      grid.exportBits(data.asLongBuffer());
+
+      buffer.put(0, MAGIC);
+      buffer.putInt(COLUMNS_OFFSET, grid.getColumns());
+      buffer.putInt(ROWS_OFFSET, grid.getRows());
+      buffer.putLong(GENERATION_OFFSET, grid.getGenerations());
+      buffer.putInt(CHECKSUM_OFFSET, checksum(data));
+    }
+  }
+
+  /**
+   * Checks whether a file starts like a snapshot.
+   *
+   * @param file the file
+   * @return <code>true</code> if the file starts with the magic bytes of a snapshot
+   * @throws IOException thrown when the file cannot be read
+   */
+  public static boolean isSnapshot(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      ByteBuffer start = ByteBuffer.allocate(MAGIC.length);
+      int read;
+      do {
+        read = channel.read(start);
+      } while (read >= 0 && start.hasRemaining());
+      return Arrays.equals(start.array(), MAGIC);
+    }
+  }
+
+  /**
+   * Restores the state of a game from a file. The game is resized to the dimensions of the saved
+   * game, its engine is kept.
+   *
+   * @param file the file
+   * @param grid the game
+   * @throws IOException thrown when the file cannot be read or is not a valid snapshot
+   */
+  public static void load(Path file, Grid grid) throws IOException {
+    PatternLoadEvent event = new PatternLoadEvent();
+    event.begin();
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+        throw new IOException("Not a snapshot: " + file);
+      }
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      buffer.order(ByteOrder.LITTLE_ENDIAN);
+      byte[] magic = new byte[MAGIC.length];
+      buffer.get(0, magic);
+      if (!Arrays.equals(magic, MAGIC)) {
+        throw new IOException("Not a snapshot: " + file);
+      }
+
+      int columns = buffer.getInt(COLUMNS_OFFSET);
+      int rows = buffer.getInt(ROWS_OFFSET);
+      long generation = buffer.getLong(GENERATION_OFFSET);
+      if (columns <= 0 || rows <= 0 || generation < 0
+          || size != HEADER_SIZE + dataSize(columns, rows)) {
+        throw new IOException("Snapshot is corrupted: " + file);
+      }
+      ByteBuffer data = buffer.slice(HEADER_SIZE, (int) (size - HEADER_SIZE))
+          .order(ByteOrder.LITTLE_ENDIAN);
+      if (checksum(data) != buffer.getInt(CHECKSUM_OFFSET)) {
+        throw new IOException("Snapshot is corrupted: " + file);
+      }
+
+      grid.resize(columns, rows);
+      grid.importBits(data.asLongBuffer());
+      grid.setGenerations(generation);
+
+      event.end();
+      if (event.shouldCommit()) {
+        LongBuffer bits = data.asLongBuffer();
+        long cells = 0;
+        for (int i = 0; i < bits.limit(); i++) {
+          cells += Long.bitCount(bits.get(i));
+        }
+        event.setSource(file.toString());
+        event.setFormat("snapshot");
+        event.setColumns(columns);
+        event.setRows(rows);
+        event.setCells(cells);
+        event.commit();
+      }
+    }
+  }
+
+  /**
+   * Computes the checksum of the rows.
+   *
+   * @param data the rows
+   * @return the CRC32 of the rows
+   */
+  private static int checksum(ByteBuffer data) {
+    CRC32 crc = new CRC32();
+    crc.update(data.duplicate());
+    return (int) crc.getValue();
+  }
+}
@@ -0,0 +1,49 @@
+package org.sosylab.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Execution of a shell command. Emitted for every command entered on the shell, so that slow
+ * commands can be told apart.
+ *
+ * <p>The event is disabled by default, so it costs nothing unless it is enabled in a recording,
+ * e.g. with <code>-XX:StartFlightRecording:+org.sosylab.Command#enabled=true</code>.
+ */
+@Name("org.sosylab.Command")
+@Label("Command")
+@Category("Game of Life")
+@Description("Execution of a shell command.")
+@Enabled(false)
+@StackTrace(false)
+public final class CommandEvent extends Event {
+
+  @Label("Command")
+  private String command;
+
+  @Label("Arguments")
+  private String arguments;
+
+  /**
+   * Sets the name of the command.
+   *
+   * @param command the name of the command
+   */
+  public void setCommand(String command) {
+    this.command = command;
+  }
+
+  /**
+   * Sets the arguments of the command.
+   *
+   * @param arguments the arguments of the command
+   */
+  public void setArguments(String arguments) {
+    this.arguments = arguments;
+  }
+}
@@ -0,0 +1,97 @@
+package org.sosylab.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Computation of one or more generations by an engine. Emitted for every step of a game, i.e.
+ * every call of <code>next()</code> and every jump of the HashLife engine.
+ *
+ * <p>The event is disabled by default, so it costs nothing unless it is enabled in a recording,
+ * e.g. with <code>-XX:StartFlightRecording:+org.sosylab.Generation#enabled=true</code>.
+ */
+@Name("org.sosylab.Generation")
+@Label("Generation")
+@Category("Game of Life")
+@Description("Computation of one or more generations by an engine.")
+@Enabled(false)
+@StackTrace(false)
+public final class GenerationEvent extends Event {
+
+  @Label("Engine")
+  private String engine;
+
+  @Label("Generation")
+  private long generation;
+
+  @Label("Generations")
+  private long generations;
+
+  @Label("Columns")
+  private int columns;
+
+  @Label("Rows")
+  private int rows;
+
+  @Label("Population")
+  private long population;
+
+  /**
+   * Sets the name of the engine.
+   *
+   * @param engine the name of the engine
+   */
+  public void setEngine(String engine) {
+    this.engine = engine;
+  }
+
+  /**
+   * Sets the generation reached by the step.
+   *
+   * @param generation the generation reached by the step
+   */
+  public void setGeneration(long generation) {
+    this.generation = generation;
+  }
+
+  /**
+   * Sets the number of generations computed by the step.
+   *
+   * @param generations the number of generations computed by the step
+   */
+  public void setGenerations(long generations) {
+    this.generations = generations;
+  }
+
+  /**
+   * Sets the number of columns of the field.
+   *
+   * @param columns the number of columns of the field
+   */
+  public void setColumns(int columns) {
+    this.columns = columns;
+  }
+
+  /**
+   * Sets the number of rows of the field.
+   *
+   * @param rows the number of rows of the field
+   */
+  public void setRows(int rows) {
+    this.rows = rows;
+  }
+
+  /**
+   * Sets the number of living cells on the field after the step.
+   *
+   * @param population the number of living cells on the field after the step
+   */
+  public void setPopulation(long population) {
+    this.population = population;
+  }
+}
@@ -0,0 +1,85 @@
+package org.sosylab.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Import of a pattern or a snapshot into a field. Emitted when a pattern file is placed on a field
+ * or a snapshot is restored.
+ *
+ * <p>The event is disabled by default, so it costs nothing unless it is enabled in a recording,
+ * e.g. with <code>-XX:StartFlightRecording:+org.sosylab.PatternLoad#enabled=true</code>.
+ */
+@Name("org.sosylab.PatternLoad")
+@Label("Pattern Load")
+@Category("Game of Life")
+@Description("Import of a pattern or a snapshot into a field.")
+@Enabled(false)
+@StackTrace(false)
+public final class PatternLoadEvent extends Event {
+
+  @Label("Source")
+  private String source;
+
+  @Label("Format")
+  private String format;
+
+  @Label("Columns")
+  private int columns;
+
+  @Label("Rows")
+  private int rows;
+
+  @Label("Cells")
+  private long cells;
+
+  /**
+   * Sets the file or stream the pattern was read from.
+   *
+   * @param source the file or stream the pattern was read from
+   */
+  public void setSource(String source) {
+    this.source = source;
+  }
+
+  /**
+   * Sets the format of the pattern.
+   *
+   * @param format the format of the pattern
+   */
+  public void setFormat(String format) {
+    this.format = format;
+  }
+
+  /**
+   * Sets the number of columns of the field.
+   *
+   * @param columns the number of columns of the field
+   */
+  public void setColumns(int columns) {
+    this.columns = columns;
+  }
+
+  /**
+   * Sets the number of rows of the field.
+   *
+   * @param rows the number of rows of the field
+   */
+  public void setRows(int rows) {
+    this.rows = rows;
+  }
+
+  /**
+   * Sets the number of cells set alive.
+   *
+   * @param cells the number of cells set alive
+   */
+  public void setCells(long cells) {
+    this.cells = cells;
+  }
+}
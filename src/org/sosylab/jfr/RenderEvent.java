@@ -0,0 +1,97 @@
+package org.sosylab.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Rendering of a field as text. Emitted when a game writes its field to a stream, e.g. for the
+ * command <code>print</code>.
+ *
+ * <p>The event is disabled by default, so it costs nothing unless it is enabled in a recording,
+ * e.g. with <code>-XX:StartFlightRecording:+org.sosylab.Render#enabled=true</code>.
+ */
+@Name("org.sosylab.Render")
+@Label("Render")
+@Category("Game of Life")
+@Description("Rendering of a field as text.")
+@Enabled(false)
+@StackTrace(false)
+public final class RenderEvent extends Event {
+
+  @Label("Engine")
+  private String engine;
+
+  @Label("Generation")
+  private long generation;
+
+  @Label("Columns")
+  private int columns;
+
+  @Label("Rows")
+  private int rows;
+
+  @Label("Bytes")
+  private long bytes;
+
+  @Label("Cached")
+  private boolean cached;
+
+  /**
+   * Sets the name of the engine.
+   *
+   * @param engine the name of the engine
+   */
+  public void setEngine(String engine) {
+    this.engine = engine;
+  }
+
+  /**
+   * Sets the generation of the rendered field.
+   *
+   * @param generation the generation of the rendered field
+   */
+  public void setGeneration(long generation) {
+    this.generation = generation;
+  }
+
+  /**
+   * Sets the number of columns of the field.
+   *
+   * @param columns the number of columns of the field
+   */
+  public void setColumns(int columns) {
+    this.columns = columns;
+  }
+
+  /**
+   * Sets the number of rows of the field.
+   *
+   * @param rows the number of rows of the field
+   */
+  public void setRows(int rows) {
+    this.rows = rows;
+  }
+
+  /**
+   * Sets the number of written bytes.
+   *
+   * @param bytes the number of written bytes
+   */
+  public void setBytes(long bytes) {
+    this.bytes = bytes;
+  }
+
+  /**
+   * Sets whether the field was rendered before and the buffer was reused.
+   *
+   * @param cached whether the field was rendered before and the buffer was reused
+   */
+  public void setCached(boolean cached) {
+    this.cached = cached;
+  }
+}
@@ -0,0 +1,85 @@
+package org.sosylab.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Change of the dimensions of a field. Emitted when a game is resized, including the resizing done
+ * by restoring a snapshot.
+ *
+ * <p>The event is disabled by default, so it costs nothing unless it is enabled in a recording,
+ * e.g. with <code>-XX:StartFlightRecording:+org.sosylab.Resize#enabled=true</code>.
+ */
+@Name("org.sosylab.Resize")
+@Label("Resize")
+@Category("Game of Life")
+@Description("Change of the dimensions of a field.")
+@Enabled(false)
+@StackTrace(false)
+public final class ResizeEvent extends Event {
+
+  @Label("Engine")
+  private String engine;
+
+  @Label("Old Columns")
+  private int oldColumns;
+
+  @Label("Old Rows")
+  private int oldRows;
+
+  @Label("Columns")
+  private int columns;
+
+  @Label("Rows")
+  private int rows;
+
+  /**
+   * Sets the name of the engine.
+   *
+   * @param engine the name of the engine
+   */
+  public void setEngine(String engine) {
+    this.engine = engine;
+  }
+
+  /**
+   * Sets the number of columns before the change.
+   *
+   * @param oldColumns the number of columns before the change
+   */
+  public void setOldColumns(int oldColumns) {
+    this.oldColumns = oldColumns;
+  }
+
+  /**
+   * Sets the number of rows before the change.
+   *
+   * @param oldRows the number of rows before the change
+   */
+  public void setOldRows(int oldRows) {
+    this.oldRows = oldRows;
+  }
+
+  /**
+   * Sets the number of columns after the change.
+   *
+   * @param columns the number of columns after the change
+   */
+  public void setColumns(int columns) {
+    this.columns = columns;
+  }
+
+  /**
+   * Sets the number of rows after the change.
+   *
+   * @param rows the number of rows after the change
+   */
+  public void setRows(int rows) {
+    this.rows = rows;
+  }
+}
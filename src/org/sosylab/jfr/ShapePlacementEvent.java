@@ -0,0 +1,85 @@
+package org.sosylab.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Placement of a built-in shape on a field. Emitted when a shape is placed in the middle of a
+ * field.
+ *
+ * <p>The event is disabled by default, so it costs nothing unless it is enabled in a recording,
+ * e.g. with <code>-XX:StartFlightRecording:+org.sosylab.ShapePlacement#enabled=true</code>.
+ */
+@Name("org.sosylab.ShapePlacement")
+@Label("Shape Placement")
+@Category("Game of Life")
+@Description("Placement of a built-in shape on a field.")
+@Enabled(false)
+@StackTrace(false)
+public final class ShapePlacementEvent extends Event {
+
+  @Label("Engine")
+  private String engine;
+
+  @Label("Shape")
+  private String shape;
+
+  @Label("Columns")
+  private int columns;
+
+  @Label("Rows")
+  private int rows;
+
+  @Label("Cells")
+  private long cells;
+
+  /**
+   * Sets the name of the engine.
+   *
+   * @param engine the name of the engine
+   */
+  public void setEngine(String engine) {
+    this.engine = engine;
+  }
+
+  /**
+   * Sets the name of the shape.
+   *
+   * @param shape the name of the shape
+   */
+  public void setShape(String shape) {
+    this.shape = shape;
+  }
+
+  /**
+   * Sets the number of columns of the field.
+   *
+   * @param columns the number of columns of the field
+   */
+  public void setColumns(int columns) {
+    this.columns = columns;
+  }
+
+  /**
+   * Sets the number of rows of the field.
+   *
+   * @param rows the number of rows of the field
+   */
+  public void setRows(int rows) {
+    this.rows = rows;
+  }
+
+  /**
+   * Sets the number of cells set alive.
+   *
+   * @param cells the number of cells set alive
+   */
+  public void setCells(long cells) {
+    this.cells = cells;
+  }
+}
@@ -0,0 +1,634 @@
+package org.sosylab.model;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+import org.sosylab.jfr.GenerationEvent;
+import org.sosylab.jfr.RenderEvent;
+import org.sosylab.jfr.ResizeEvent;
+import org.sosylab.jfr.ShapePlacementEvent;
+
+/**
+ * Common base of all {@link Grid} engines. It owns the field dimensions and the generation counter
+ * and performs the argument validation every engine has to agree on, so that the engines only
+ * have to provide the storage of the cells and the computation of the next generation.
+ *
+ * <p>The fingerprints of the recent generations are recorded to detect when the game has become
+ * periodic. Once a period is known, {@link #next(long)} skips all whole periods at once.
+ *
+ * <p>The duration and the allocations of every step are recorded as {@link Metrics}, engines may
+ * add the details of their steps. Steps, resizing, rendering and the placement of shapes are also
+ * reported as JFR events, which are disabled by default.
+ *
+ * <p>The rendered field is kept in a byte buffer that is reused until the game changes, so printing
+ * an unchanged game repeatedly costs only the output itself. Areas and overviews of the field are
+ * rendered from the number of living cells per tile, which every engine provides from its own
+ * storage, see {@link #forEachTile}.
+ */
+abstract class AbstractGrid implements Grid {
+
+  // Number of generations remembered for the cycle detection, also the longest detectable period
+  private static final int CYCLE_HISTORY = 256;
+
+  private static final byte ALIVE = 'X';
+  private static final byte DEAD = '.';
+  private static final byte NEWLINE = '\n';
+
+  // Characters of the overview for increasing densities, from no living cell to only living cells
+  private static final byte[] SHADES = ".:-=+*#%X".getBytes(StandardCharsets.US_ASCII);
+
+  // Largest array length the virtual machine reliably supports
+  private static final int MAX_FRAME_LENGTH = Integer.MAX_VALUE - 8;
+
+  private int columns;
+  private int rows;
+  private long generation;
+  private Rule rule = Rule.CONWAY;
+
+  private final CycleDetector cycleDetector = new CycleDetector(CYCLE_HISTORY);
+  private final Metrics metrics = new Metrics();
+  private long modifications;
+  private long recordedModifications = -1;
+
+  private byte[] frame = new byte[0];
+  private int frameLength;
+  private long renderedModifications = -1;
+  private long renderedGeneration = -1;
+  private final CellVisitor frameWriter = (col, row) -> frame[row * (columns + 1) + col] = ALIVE;
+
+  /**
+   * Create a grid with the given dimensions.
+   *
+   * @param columns the number of columns in the new game field
+   * @param rows    the number of rows in the new game field
+   * @throws IllegalArgumentException if number of columns or rows is not positive.
+   */
+  AbstractGrid(int columns, int rows) {
+    checkDimensions(columns, rows);
+    this.columns = columns;
+    this.rows = rows;
+    this.generation = 0;
+  }
+
+  /**
+   * Checks that the given dimensions describe a non-empty field.
+   *
+   * @param columns the number of columns
+   * @param rows    the number of rows
+   * @throws IllegalArgumentException if number of columns or rows is not positive.
+   */
+  private static void checkDimensions(int columns, int rows) {
+    if (columns <= 0 || rows <= 0) {
+      throw new IllegalArgumentException("Number of columns and rows must be positive");
+    }
+  }
+
+  /**
+   * Checks that the given coordinates are located on the field.
+   *
+   * @param col x-position.
+   * @param row y-position.
+   * @throws IllegalArgumentException if the coordinates are negative or exceed the field size
+   */
+  protected final void checkBounds(int col, int row) {
+    if (col >= columns || row >= rows) {
+      throw new IllegalArgumentException(
+          "Parameters for column and row may not exceed the maximum number of columns and rows");
+    }
+    if (col < 0 || row < 0) {
+      throw new IllegalArgumentException("Number of column and row may not be negative");
+    }
+  }
+
+  /**
+   * Checks that the given area lies on the field.
+   *
+   * @param col    x-position of the top left corner of the area
+   * @param row    y-position of the top left corner of the area
+   * @param width  number of columns of the area
+   * @param height number of rows of the area
+   * @throws IllegalArgumentException if the area is empty or exceeds the field
+   */
+  private void checkArea(int col, int row, int width, int height) {
+    if (width <= 0 || height <= 0) {
+      throw new IllegalArgumentException("Width and height of the area must be positive");
+    }
+    checkBounds(col, row);
+    if ((long) col + width > columns || (long) row + height > rows) {
+      throw new IllegalArgumentException(
+          "Parameters for column and row may not exceed the maximum number of columns and rows");
+    }
+  }
+
+  /**
+   * Mixes the bits of a key, e.g. the packed coordinates of a cell, into a well distributed hash.
+   * Fingerprints of cell sets can be computed as the sum of the mixed keys.
+   *
+   * @param key the key
+   * @return the mixed key
+   */
+  protected static long mix(long key) {
+    long hash = (key ^ (key >>> 30)) * 0xBF58476D1CE4E5B9L;
+    hash = (hash ^ (hash >>> 27)) * 0x94D049BB133111EBL;
+    return hash ^ (hash >>> 31);
+  }
+
+  /**
+   * Turns an iterator over the keys of the living cells into a sequential stream reading the
+   * cells lazily.
+   *
+   * @param keys the iterator over the keys
+   * @return the stream of the keys
+   */
+  static LongStream keyStream(PrimitiveIterator.OfLong keys) {
+    return StreamSupport.longStream(
+        Spliterators.spliteratorUnknownSize(keys, Spliterator.DISTINCT | Spliterator.NONNULL),
+        false);
+  }
+
+  /**
+   * Records that the cells of the game were changed by other means than {@link #step()}. Every
+   * engine has to call this method when it edits cells.
+   */
+  protected final void modified() {
+    modifications++;
+  }
+
+  /**
+   * Computes a fingerprint of the current state. Equal states must have equal fingerprints, and
+   * different states should have different fingerprints with high probability.
+   *
+   * @return the fingerprint
+   */
+  protected abstract long fingerprint();
+
+  /**
+   * Changes the storage of the engine to the new dimensions. Living cells that are still on the
+   * field have to be kept, all others have to be removed unless the engine stores cells beyond the
+   * field, like {@link UnboundedGrid}. The dimensions reported by
+   * {@link #getColumns()} and {@link #getRows()} are already the new ones during this call.
+   *
+   * @param newCols new number of columns.
+   * @param newRows new number of rows.
+   */
+  protected abstract void resizeField(int newCols, int newRows);
+
+  /**
+   * Prepares the engine for a new rule, e.g. by discarding results computed with the old rule.
+   * The rule reported by {@link #getRule()} is already the new one during this call.
+   */
+  protected void ruleChanged() {
+  }
+
+  /**
+   * Kills all cells of the field.
+   */
+  protected abstract void clearField();
+
+  /**
+   * Replaces the current population by the population of the next generation.
+   */
+  protected abstract void step();
+
+  @Override
+  public final void resize(int newCols, int newRows) {
+    checkDimensions(newCols, newRows);
+    ResizeEvent event = new ResizeEvent();
+    event.begin();
+    int oldCols = columns;
+    int oldRows = rows;
+    this.columns = newCols;
+    this.rows = newRows;
+    resizeField(newCols, newRows);
+    modified();
+    event.end();
+    if (event.shouldCommit()) {
+      event.setEngine(getClass().getSimpleName());
+      event.setOldColumns(oldCols);
+      event.setOldRows(oldRows);
+      event.setColumns(newCols);
+      event.setRows(newRows);
+      event.commit();
+    }
+  }
+
+  @Override
+  public final void placeShape(Shape shape) {
+    ShapePlacementEvent event = new ShapePlacementEvent();
+    event.begin();
+    placeShapeCells(shape);
+    event.end();
+    if (event.shouldCommit()) {
+      event.setEngine(getClass().getSimpleName());
+      event.setShape(shape.getName());
+      event.setColumns(columns);
+      event.setRows(rows);
+      event.setCells(shape.getShapePopulation().size());
+      event.commit();
+    }
+  }
+
+  /**
+   * Places the given shape in the middle of the field like {@link Grid#placeShape(Shape)}. Engines
+   * may override this method to place the cells more efficiently.
+   *
+   * @param shape shape to be placed
+   */
+  protected void placeShapeCells(Shape shape) {
+    Grid.super.placeShape(shape);
+  }
+
+  @Override
+  public final void setRule(Rule rule) {
+    if (rule.equals(this.rule)) {
+      return;
+    }
+    this.rule = rule;
+    ruleChanged();
+    modified();
+  }
+
+  @Override
+  public final Rule getRule() {
+    return rule;
+  }
+
+  @Override
+  public final int getColumns() {
+    return columns;
+  }
+
+  @Override
+  public final int getRows() {
+    return rows;
+  }
+
+  @Override
+  public final void clear() {
+    clearField();
+    this.generation = 0;
+    modified();
+  }
+
+  @Override
+  public final void next() {
+    if (recordedModifications != modifications) {
+      cycleDetector.reset();
+      cycleDetector.record(generation, fingerprint());
+    }
+    GenerationEvent event = new GenerationEvent();
+    event.begin();
+    long allocated = Metrics.allocatedBytes();
+    long start = System.nanoTime();
+    step();
+    long nanos = System.nanoTime() - start;
+    metrics.recordStep(1, nanos, allocated < 0 ? -1 : Metrics.allocatedBytes() - allocated);
+    generation++;
+    commitGeneration(event, generation, 1);
+    cycleDetector.record(generation, fingerprint());
+    recordedModifications = modifications;
+  }
+
+  /**
+   * Ends a step and reports it, unless the event is disabled.
+   *
+   * @param event           the begun event of the step
+   * @param reached         the generation reached by the step
+   * @param stepGenerations the number of generations computed by the step
+   */
+  final void commitGeneration(GenerationEvent event, long reached, long stepGenerations) {
+    event.end();
+    if (event.shouldCommit()) {
+      event.setEngine(getClass().getSimpleName());
+      event.setGeneration(reached);
+      event.setGenerations(stepGenerations);
+      event.setColumns(columns);
+      event.setRows(rows);
+      event.setPopulation(getPopulationCount());
+      event.commit();
+    }
+  }
+
+  @Override
+  public void next(long steps) {
+    if (steps < 0) {
+      throw new IllegalArgumentException("Number of generations may not be negative");
+    }
+    long remaining = steps;
+    while (remaining > 0) {
+      long period = getPeriod();
+      if (period > 0) {
+        // whole periods lead back to the current state
+        generation += remaining - remaining % period;
+        remaining %= period;
+        if (remaining == 0) {
+          break;
+        }
+      }
+      next();
+      remaining--;
+    }
+  }
+
+  /**
+   * Get the recorder of the metrics, so that engines can report the details of a step and record
+   * generations that were computed without calling {@link #step()}.
+   *
+   * @return the recorder
+   */
+  final Metrics metrics() {
+    return metrics;
+  }
+
+  @Override
+  public final MetricsSnapshot getMetrics() {
+    return metrics.snapshot();
+  }
+
+  @Override
+  public final void resetMetrics() {
+    metrics.reset();
+  }
+
+  /**
+   * Adds generations that were computed without calling {@link #step()}.
+   *
+   * @param steps number of computed generations
+   */
+  protected final void addGenerations(long steps) {
+    generation += steps;
+    recordedModifications = -1;
+  }
+
+  @Override
+  public long getPeriod() {
+    return recordedModifications == modifications ? cycleDetector.getPeriod() : 0;
+  }
+
+  @Override
+  public long getPeriodStart() {
+    return recordedModifications == modifications ? cycleDetector.getPeriodStart() : -1;
+  }
+
+  @Override
+  public final long getGenerations() {
+    return generation;
+  }
+
+  @Override
+  public final void setGenerations(long generations) {
+    if (generations < 0) {
+      throw new IllegalArgumentException("Number of generations may not be negative");
+    }
+    generation = generations;
+    recordedModifications = -1;
+  }
+
+  /**
+   * Get the number of words needed to store a row of the field as bits.
+   *
+   * @return the number of words
+   */
+  private int wordsPerRow() {
+    return (columns + 63) / 64;
+  }
+
+  @Override
+  public void exportBits(LongBuffer target) {
+    int words = wordsPerRow();
+    for (int index = 0; index < rows * words; index++) {
+      target.put(index, 0L);
+    }
+    forEachAlive((col, row) -> {
+      int index = row * words + col / 64;
+      target.put(index, target.get(index) | 1L << col);
+    });
+  }
+
+  @Override
+  public void importBits(LongBuffer source) {
+    clearField();
+    modified();
+    int words = wordsPerRow();
+    for (int row = 0; row < rows; row++) {
+      for (int word = 0; word < words; word++) {
+        long bits = source.get(row * words + word);
+        while (bits != 0) {
+          int col = word * 64 + Long.numberOfTrailingZeros(bits);
+          if (col < columns) {
+            setCellAlive(col, row);
+          }
+          bits &= bits - 1;
+        }
+      }
+    }
+  }
+
+  /**
+   * Renders the field into the frame buffer unless the game has not changed since the last call.
+   * Every row is terminated by a line break.
+   *
+   * @throws IllegalStateException if the field is too large to be rendered.
+   */
+  private void renderFrame() {
+    if (renderedModifications == modifications && renderedGeneration == generation) {
+      return;
+    }
+    int stride = columns + 1;
+    long length = (long) stride * rows;
+    if (length > MAX_FRAME_LENGTH) {
+      throw new IllegalStateException("Field is too large to be rendered");
+    }
+    if (frame.length != length) {
+      frame = new byte[(int) length];
+    }
+    frameLength = (int) length;
+    for (int row = 0; row < rows; row++) {
+      int start = row * stride;
+      Arrays.fill(frame, start, start + columns, DEAD);
+      frame[start + columns] = NEWLINE;
+    }
+    forEachAlive(frameWriter);
+    renderedModifications = modifications;
+    renderedGeneration = generation;
+  }
+
+  @Override
+  public void render(OutputStream out) throws IOException {
+    RenderEvent event = new RenderEvent();
+    event.begin();
+    boolean cached = renderedModifications == modifications && renderedGeneration == generation;
+    renderFrame();
+    out.write(frame, 0, frameLength);
+    event.end();
+    if (event.shouldCommit()) {
+      event.setEngine(getClass().getSimpleName());
+      event.setGeneration(generation);
+      event.setColumns(columns);
+      event.setRows(rows);
+      event.setBytes(frameLength);
+      event.setCached(cached);
+      event.commit();
+    }
+  }
+
+  /**
+   * Passes every tile of {@link TileCounts#TILE_SIZE} x {@link TileCounts#TILE_SIZE} cells of an
+   * area that contains living cells to the given visitor, together with its number of living cells
+   * on the field. Engines either keep {@link TileCounts} up to date during steps and edits or count
+   * the tiles from their storage, so that the cost depends on the tiles of the area and not on the
+   * population of the field.
+   *
+   * @param col     x-position of the top left corner of the area
+   * @param row     y-position of the top left corner of the area
+   * @param width   width of the area
+   * @param height  height of the area
+   * @param visitor the visitor receiving the tiles
+   */
+  abstract void forEachTile(int col, int row, int width, int height,
+      TileCounts.TileVisitor visitor);
+
+  @Override
+  public long getPopulationCount(int col, int row, int width, int height) {
+    checkArea(col, row, width, height);
+    long[] count = new long[1];
+    forEachTile(col, row, width, height, (tileCol, tileRow, cells) -> {
+      int left = tileCol << TileCounts.TILE_SHIFT;
+      int top = tileRow << TileCounts.TILE_SHIFT;
+      int right = Math.min(left + TileCounts.TILE_SIZE, columns);
+      int bottom = Math.min(top + TileCounts.TILE_SIZE, rows);
+      if (left >= col && top >= row && right <= col + width && bottom <= row + height) {
+        count[0] += cells;
+        return;
+      }
+      // the tile is cut by the border of the area
+      for (int y = Math.max(top, row); y < Math.min(bottom, row + height); y++) {
+        for (int x = Math.max(left, col); x < Math.min(right, col + width); x++) {
+          if (isCellAlive(x, y)) {
+            count[0]++;
+          }
+        }
+      }
+    });
+    return count[0];
+  }
+
+  @Override
+  public void render(OutputStream out, int col, int row, int width, int height)
+      throws IOException {
+    checkArea(col, row, width, height);
+    int stride = width + 1;
+    long length = (long) stride * height;
+    if (length > MAX_FRAME_LENGTH) {
+      throw new IllegalStateException("Area is too large to be rendered");
+    }
+    RenderEvent event = new RenderEvent();
+    event.begin();
+    byte[] area = new byte[(int) length];
+    Arrays.fill(area, DEAD);
+    for (int y = 1; y <= height; y++) {
+      area[y * stride - 1] = NEWLINE;
+    }
+    // only the cells of non-empty tiles are looked at
+    forEachTile(col, row, width, height, (tileCol, tileRow, cells) -> {
+      int left = Math.max(tileCol << TileCounts.TILE_SHIFT, col);
+      int top = Math.max(tileRow << TileCounts.TILE_SHIFT, row);
+      int right = Math.min((tileCol + 1) << TileCounts.TILE_SHIFT, col + width);
+      int bottom = Math.min((tileRow + 1) << TileCounts.TILE_SHIFT, row + height);
+      for (int y = top; y < bottom; y++) {
+        for (int x = left; x < right; x++) {
+          if (isCellAlive(x, y)) {
+            area[(y - row) * stride + x - col] = ALIVE;
+          }
+        }
+      }
+    });
+    out.write(area);
+    event.end();
+    if (event.shouldCommit()) {
+      event.setEngine(getClass().getSimpleName());
+      event.setGeneration(generation);
+      event.setColumns(width);
+      event.setRows(height);
+      event.setBytes(length);
+      event.commit();
+    }
+  }
+
+  @Override
+  public void renderDensity(OutputStream out, int blockSize) throws IOException {
+    if (blockSize <= 0) {
+      throw new IllegalArgumentException("Block size must be positive");
+    }
+    int blockColumns = (columns - 1) / blockSize + 1;
+    int blockRows = (rows - 1) / blockSize + 1;
+    int stride = blockColumns + 1;
+    long length = (long) stride * blockRows;
+    if (length > MAX_FRAME_LENGTH) {
+      throw new IllegalStateException("Field is too large to be rendered");
+    }
+    RenderEvent event = new RenderEvent();
+    event.begin();
+    long[] counts = new long[blockColumns * blockRows];
+    if (blockSize % TileCounts.TILE_SIZE == 0) {
+      // blocks consist of whole tiles, so their cells need not be looked at
+      int tilesPerBlock = blockSize >> TileCounts.TILE_SHIFT;
+      forEachTile(0, 0, columns, rows, (tileCol, tileRow, cells) ->
+          counts[tileRow / tilesPerBlock * blockColumns + tileCol / tilesPerBlock] += cells);
+    } else {
+      forEachAlive((col, row) -> counts[row / blockSize * blockColumns + col / blockSize]++);
+    }
+
+    byte[] image = new byte[(int) length];
+    for (int blockRow = 0; blockRow < blockRows; blockRow++) {
+      long height = Math.min(blockSize, rows - (long) blockRow * blockSize);
+      for (int blockCol = 0; blockCol < blockColumns; blockCol++) {
+        long width = Math.min(blockSize, columns - (long) blockCol * blockSize);
+        image[blockRow * stride + blockCol] =
+            shade(counts[blockRow * blockColumns + blockCol], width * height);
+      }
+      image[blockRow * stride + blockColumns] = NEWLINE;
+    }
+    out.write(image);
+    event.end();
+    if (event.shouldCommit()) {
+      event.setEngine(getClass().getSimpleName());
+      event.setGeneration(generation);
+      event.setColumns(blockColumns);
+      event.setRows(blockRows);
+      event.setBytes(length);
+      event.commit();
+    }
+  }
+
+  /**
+   * Get the character showing the density of a block.
+   *
+   * @param alive number of living cells of the block
+   * @param cells number of cells of the block
+   * @return the character
+   */
+  private static byte shade(long alive, long cells) {
+    if (alive == 0) {
+      return SHADES[0];
+    }
+    if (alive == cells) {
+      return SHADES[SHADES.length - 1];
+    }
+    // partially filled blocks get the shades in between
+    return SHADES[1 + (int) ((double) alive / cells * (SHADES.length - 2))];
+  }
+
+  @Override
+  public String toString() {
+    renderFrame();
+    return new String(frame, 0, frameLength - 1, StandardCharsets.US_ASCII);
+  }
+}
@@ -0,0 +1,477 @@
+package org.sosylab.model;
+
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.LongStream;
+
+/**
+ * Dense implementation of a game. Every row of the field is stored as a bitset in a
+ * <code>long[]</code>, and the next generation is computed for 64 cells at once by adding up the
+ * shifted neighbor rows with bitwise adders. Conway's rule is evaluated by a hand-written circuit,
+ * other rules by the compiled circuit of a {@link RuleKernel}.
+ *
+ * <p>Each row carries an empty guard word on both ends and the field carries an empty guard row
+ * above and below, so that the neighbors of border cells can be read without any special cases.
+ *
+ * <p>The next generation is written into a second buffer, so the rows can also be computed in
+ * parallel bands on a {@link ForkJoinPool}, see {@link #setThreads(int)}. The result does not
+ * depend on the number of threads. The pool is shut down by {@link #close()}.
+ *
+ * <p>The fingerprint for the cycle detection is a sum over the words of the field. Every band adds
+ * up the words it has just computed and edits adjust the sum word by word, so the fingerprint never
+ * needs a pass over the field of its own.
+ *
+ * <p>A tile of {@link TileCounts#TILE_SIZE} columns covers exactly one word of its rows, so the
+ * living cells of a tile are counted with {@link Long#bitCount} without keeping any counters.
+ */
+public class BitGrid extends AbstractGrid {
+
+  private static final int WORD_SIZE = 64;
+
+  // Bands are not split below this number of words to keep the task overhead small
+  private static final int MIN_BAND_WORDS = 4096;
+
+  private long[][] cells;
+  private long[][] buffer;
+  private int words;
+  private long lastWordMask;
+  private ForkJoinPool pool;
+  private final RowKernel conwayKernel;
+  private RowKernel kernel;
+
+  // Sum of the fingerprints of all words, only recomputed after resizing and importing
+  private long fingerprint;
+  private boolean fingerprintValid = true;
+
+  /**
+   * Create a game of Game of Life.
+   *
+   * @param columns the number of columns in the new game field
+   * @param rows    the number of rows in the new game field
+   * @throws IllegalArgumentException if number of columns and rows is negative.
+   */
+  public BitGrid(int columns, int rows) {
+    this(columns, rows, BitGrid::stepRow);
+  }
+
+  /**
+   * Create a game of Game of Life that computes the rows with the given kernel as long as the rule
+   * is {@link Rule#CONWAY}. Other rules are computed by a {@link RuleKernel}.
+   *
+   * @param columns the number of columns in the new game field
+   * @param rows    the number of rows in the new game field
+   * @param kernel  the kernel computing the next state of a row with Conway's rule
+   * @throws IllegalArgumentException if number of columns and rows is negative.
+   */
+  BitGrid(int columns, int rows, RowKernel kernel) {
+    super(columns, rows);
+    this.conwayKernel = kernel;
+    this.kernel = kernel;
+    allocate(columns, rows);
+  }
+
+  /**
+   * Allocates empty storage for a field with the given dimensions.
+   *
+   * @param columns the number of columns
+   * @param rows    the number of rows
+   */
+  private void allocate(int columns, int rows) {
+    this.words = wordsFor(columns);
+    this.lastWordMask = maskFor(columns);
+    this.cells = new long[rows + 2][words + 2];
+    this.buffer = new long[rows + 2][words + 2];
+  }
+
+  /**
+   * Get the number of words needed to store a row.
+   *
+   * @param columns the number of columns of a row
+   * @return the number of words without the guard words
+   */
+  private static int wordsFor(int columns) {
+    return (columns + WORD_SIZE - 1) / WORD_SIZE;
+  }
+
+  /**
+   * Get the mask of the bits of the last word of a row that belong to the field.
+   *
+   * @param columns the number of columns of a row
+   * @return mask with one bit set for every valid column of the last word
+   */
+  private static long maskFor(int columns) {
+    int usedBits = columns % WORD_SIZE;
+    return usedBits == 0 ? -1L : (1L << usedBits) - 1;
+  }
+
+  /**
+   * Computes the next state of all words of one row with Conway's rule.
+   *
+   * @param above   the row above, including guard words
+   * @param current the row to compute, including guard words
+   * @param below   the row below, including guard words
+   * @param target  the row receiving the next state
+   * @param words   the number of words without guard words
+   */
+  static void stepRow(long[] above, long[] current, long[] below, long[] target, int words) {
+    stepWords(above, current, below, target, 1, words);
+  }
+
+  /**
+   * Computes the next state of a range of words of one row with Conway's rule.
+   *
+   * @param above     the row above, including guard words
+   * @param current   the row to compute, including guard words
+   * @param below     the row below, including guard words
+   * @param target    the row receiving the next state
+   * @param firstWord index of the first word to compute
+   * @param lastWord  index of the last word to compute
+   */
+  static void stepWords(long[] above, long[] current, long[] below, long[] target, int firstWord,
+      int lastWord) {
+    for (int i = firstWord; i <= lastWord; i++) {
+      long north = above[i];
+      long northWest = (north << 1) | (above[i - 1] >>> 63);
+      long northEast = (north >>> 1) | (above[i + 1] << 63);
+      long alive = current[i];
+      long west = (alive << 1) | (current[i - 1] >>> 63);
+      long east = (alive >>> 1) | (current[i + 1] << 63);
+      long south = below[i];
+      long southWest = (south << 1) | (below[i - 1] >>> 63);
+      long southEast = (south >>> 1) | (below[i + 1] << 63);
+
+      // full adders for the rows above and below, half adder for the current row
+      long aboveOnes = northWest ^ north ^ northEast;
+      long aboveTwos = (northWest & north) | (northEast & (northWest ^ north));
+      long belowOnes = southWest ^ south ^ southEast;
+      long belowTwos = (southWest & south) | (southEast & (southWest ^ south));
+      long middleOnes = west ^ east;
+      long middleTwos = west & east;
+
+      long ones = aboveOnes ^ belowOnes ^ middleOnes;
+      long onesTwos = (aboveOnes & belowOnes) | (middleOnes & (aboveOnes ^ belowOnes));
+
+      // exactly one of the four carries is set, i.e. the neighbor count is two or three
+      long pairAbove = aboveTwos ^ belowTwos;
+      long bothAbove = aboveTwos & belowTwos;
+      long pairMiddle = middleTwos ^ onesTwos;
+      long bothMiddle = middleTwos & onesTwos;
+      long twos = (pairAbove ^ pairMiddle) & ~(bothAbove | bothMiddle);
+
+      target[i] = twos & (ones | alive);
+    }
+  }
+
+  /**
+   * Computes the next state of a band of rows.
+   *
+   * @param firstRow the first row of the band, including the guard row offset
+   * @param lastRow  the last row of the band, including the guard row offset
+   * @return the sum of the fingerprints of the computed words
+   */
+  private long stepRows(int firstRow, int lastRow) {
+    long sum = 0;
+    for (int row = firstRow; row <= lastRow; row++) {
+      long[] target = buffer[row];
+      kernel.stepRow(cells[row - 1], cells[row], cells[row + 1], target, words);
+      target[words] &= lastWordMask;
+      for (int i = 1; i <= words; i++) {
+        sum += wordFingerprint(row, i, target[i]);
+      }
+    }
+    return sum;
+  }
+
+  /**
+   * Computes the fingerprint of a word of the field.
+   *
+   * @param row   the row of the word, including the guard row offset
+   * @param index the index of the word within the row, including the guard word offset
+   * @param word  the cells of the word
+   * @return the share of the word in the fingerprint of the field
+   */
+  private static long wordFingerprint(int row, int index, long word) {
+    return word == 0 ? 0 : mix(word + ((long) row << 32 | index) * 0x9E3779B97F4A7C15L);
+  }
+
+  /**
+   * Replaces a word of the field and adjusts the fingerprint.
+   *
+   * @param row   the row of the word, including the guard row offset
+   * @param index the index of the word within the row, including the guard word offset
+   * @param word  the new cells of the word
+   */
+  private void setWord(int row, int index, long word) {
+    long old = cells[row][index];
+    fingerprint += wordFingerprint(row, index, word) - wordFingerprint(row, index, old);
+    cells[row][index] = word;
+  }
+
+  @Override
+  protected void step() {
+    if (pool == null) {
+      fingerprint = stepRows(1, getRows());
+    } else {
+      int bandRows = Math.max(getRows() / (4 * pool.getParallelism()), 1);
+      bandRows = Math.max(bandRows, MIN_BAND_WORDS / words);
+      Band band = new Band(1, getRows(), bandRows);
+      pool.invoke(band);
+      fingerprint = band.fingerprint;
+    }
+    fingerprintValid = true;
+    long[][] swap = cells;
+    cells = buffer;
+    buffer = swap;
+  }
+
+  @Override
+  protected void ruleChanged() {
+    Rule rule = getRule();
+    kernel = rule.equals(Rule.CONWAY) ? conwayKernel : new RuleKernel(rule);
+  }
+
+  @Override
+  public void setThreads(int threads) {
+    if (threads <= 0) {
+      throw new IllegalArgumentException("Number of threads must be positive");
+    }
+    if (threads == getThreads()) {
+      return;
+    }
+    if (pool != null) {
+      pool.shutdown();
+    }
+    pool = threads == 1 ? null : new ForkJoinPool(threads);
+  }
+
+  @Override
+  public int getThreads() {
+    return pool == null ? 1 : pool.getParallelism();
+  }
+
+  @Override
+  public void close() {
+    if (pool != null) {
+      pool.shutdown();
+      pool = null;
+    }
+  }
+
+  @Override
+  public boolean isCellAlive(int col, int row) {
+    checkBounds(col, row);
+    return (cells[row + 1][col / WORD_SIZE + 1] & (1L << col)) != 0;
+  }
+
+  @Override
+  void forEachTile(int col, int row, int width, int height, TileCounts.TileVisitor visitor) {
+    int lastTileCol = (col + width - 1) >> TileCounts.TILE_SHIFT;
+    int lastTileRow = (row + height - 1) >> TileCounts.TILE_SHIFT;
+    for (int tileRow = row >> TileCounts.TILE_SHIFT; tileRow <= lastTileRow; tileRow++) {
+      int top = (tileRow << TileCounts.TILE_SHIFT) + 1;
+      int bottom = Math.min(top + TileCounts.TILE_SIZE, getRows() + 1);
+      for (int tileCol = col >> TileCounts.TILE_SHIFT; tileCol <= lastTileCol; tileCol++) {
+        int count = 0;
+        for (int y = top; y < bottom; y++) {
+          count += Long.bitCount(cells[y][tileCol + 1]);
+        }
+        if (count != 0) {
+          visitor.visit(tileCol, tileRow, count);
+        }
+      }
+    }
+  }
+
+  @Override
+  public void setCellAlive(int col, int row) {
+    checkBounds(col, row);
+    int index = col / WORD_SIZE + 1;
+    setWord(row + 1, index, cells[row + 1][index] | 1L << col);
+    modified();
+  }
+
+  @Override
+  public void setCellDead(int col, int row) {
+    checkBounds(col, row);
+    int index = col / WORD_SIZE + 1;
+    setWord(row + 1, index, cells[row + 1][index] & ~(1L << col));
+    modified();
+  }
+
+  @Override
+  protected void resizeField(int newCols, int newRows) {
+    long[][] oldCells = cells;
+    int oldWords = words;
+    allocate(newCols, newRows);
+
+    int keptRows = Math.min(oldCells.length, cells.length) - 2;
+    int keptWords = Math.min(oldWords, words);
+    for (int row = 1; row <= keptRows; row++) {
+      System.arraycopy(oldCells[row], 1, cells[row], 1, keptWords);
+      cells[row][words] &= lastWordMask;
+    }
+    fingerprintValid = false;
+  }
+
+  @Override
+  public Collection<Cell> getPopulation() {
+    Set<Cell> population = new HashSet<>();
+    forEachAlive((col, row) -> population.add(new Cell(col, row)));
+    return population;
+  }
+
+  @Override
+  public void forEachAlive(CellVisitor visitor) {
+    for (int row = 1; row <= getRows(); row++) {
+      for (int i = 1; i <= words; i++) {
+        long word = cells[row][i];
+        while (word != 0) {
+          int bit = Long.numberOfTrailingZeros(word);
+          visitor.visit((i - 1) * WORD_SIZE + bit, row - 1);
+          word &= word - 1;
+        }
+      }
+    }
+  }
+
+  @Override
+  public LongStream getPopulationKeys() {
+    return keyStream(new PopulationKeys());
+  }
+
+  @Override
+  public long getPopulationCount() {
+    long count = 0;
+    for (int row = 1; row <= getRows(); row++) {
+      for (int i = 1; i <= words; i++) {
+        count += Long.bitCount(cells[row][i]);
+      }
+    }
+    return count;
+  }
+
+  @Override
+  public void exportBits(LongBuffer target) {
+    for (int row = 0; row < getRows(); row++) {
+      target.put(row * words, cells[row + 1], 1, words);
+    }
+  }
+
+  @Override
+  public void importBits(LongBuffer source) {
+    for (int row = 0; row < getRows(); row++) {
+      source.get(row * words, cells[row + 1], 1, words);
+      cells[row + 1][words] &= lastWordMask;
+    }
+    fingerprintValid = false;
+    modified();
+  }
+
+  @Override
+  protected void clearField() {
+    for (long[] row : cells) {
+      Arrays.fill(row, 0L);
+    }
+    fingerprint = 0;
+    fingerprintValid = true;
+  }
+
+  @Override
+  protected long fingerprint() {
+    if (!fingerprintValid) {
+      fingerprint = 0;
+      for (int row = 1; row <= getRows(); row++) {
+        for (int i = 1; i <= words; i++) {
+          fingerprint += wordFingerprint(row, i, cells[row][i]);
+        }
+      }
+      fingerprintValid = true;
+    }
+    return fingerprint;
+  }
+
+  /**
+   * Computes the next state of one row from the row and its two neighbor rows. All rows include
+   * the guard words, bits of the target beyond the last column are cleared afterwards.
+   */
+  interface RowKernel {
+
+    void stepRow(long[] above, long[] current, long[] below, long[] target, int words);
+  }
+
+  /**
+   * Computes a band of rows, splitting it in halves until the bands are small enough. The
+   * fingerprints of the halves are added up.
+   */
+  private final class Band extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int firstRow;
+    private final int lastRow;
+    private final int bandRows;
+    private long fingerprint;
+
+    Band(int firstRow, int lastRow, int bandRows) {
+      this.firstRow = firstRow;
+      this.lastRow = lastRow;
+      this.bandRows = bandRows;
+    }
+
+    @Override
+    protected void compute() {
+      if (lastRow - firstRow < bandRows) {
+        fingerprint = stepRows(firstRow, lastRow);
+        return;
+      }
+      int middle = (firstRow + lastRow) >>> 1;
+      Band upper = new Band(firstRow, middle, bandRows);
+      Band lower = new Band(middle + 1, lastRow, bandRows);
+      invokeAll(upper, lower);
+      fingerprint = upper.fingerprint + lower.fingerprint;
+    }
+  }
+
+  /**
+   * Iterates over the keys of the living cells word by word, like {@link #forEachAlive}.
+   */
+  private final class PopulationKeys implements PrimitiveIterator.OfLong {
+
+    private int row = 1;
+    private int index;
+    private long word;
+
+    @Override
+    public boolean hasNext() {
+      while (word == 0) {
+        if (index == words) {
+          if (row == getRows()) {
+            return false;
+          }
+          row++;
+          index = 0;
+        }
+        index++;
+        word = cells[row][index];
+      }
+      return true;
+    }
+
+    @Override
+    public long nextLong() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      int bit = Long.numberOfTrailingZeros(word);
+      word &= word - 1;
+      return Cell.key((index - 1) * WORD_SIZE + bit, row - 1);
+    }
+  }
+}
@@ -0,0 +1,103 @@
+package org.sosylab.model;
+
+/**
+ * A rectangular area of an {@link UnboundedGrid}, given by its first and last column and row. Both
+ * bounds are inclusive, so an area always contains at least one cell.
+ */
+public final class BoundingBox {
+
+  private final long minColumn;
+  private final long minRow;
+  private final long maxColumn;
+  private final long maxRow;
+
+  /**
+   * Create an area.
+   *
+   * @param minColumn the first column
+   * @param minRow    the first row
+   * @param maxColumn the last column
+   * @param maxRow    the last row
+   * @throws IllegalArgumentException if a last column or row is before the first one
+   */
+  public BoundingBox(long minColumn, long minRow, long maxColumn, long maxRow) {
+    if (maxColumn < minColumn || maxRow < minRow) {
+      throw new IllegalArgumentException("Last column and row may not be before the first ones");
+    }
+    this.minColumn = minColumn;
+    this.minRow = minRow;
+    this.maxColumn = maxColumn;
+    this.maxRow = maxRow;
+  }
+
+  /**
+   * Get the first column of the area.
+   *
+   * @return x-position.
+   */
+  public long getMinColumn() {
+    return minColumn;
+  }
+
+  /**
+   * Get the first row of the area.
+   *
+   * @return y-position.
+   */
+  public long getMinRow() {
+    return minRow;
+  }
+
+  /**
+   * Get the last column of the area.
+   *
+   * @return x-position.
+   */
+  public long getMaxColumn() {
+    return maxColumn;
+  }
+
+  /**
+   * Get the last row of the area.
+   *
+   * @return y-position.
+   */
+  public long getMaxRow() {
+    return maxRow;
+  }
+
+  /**
+   * Checks whether a cell is located in the area.
+   *
+   * @param col x-position.
+   * @param row y-position.
+   * @return <code>true</code> if the cell is in the area
+   */
+  public boolean contains(long col, long row) {
+    return col >= minColumn && col <= maxColumn && row >= minRow && row <= maxRow;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (other == null || getClass() != other.getClass()) {
+      return false;
+    }
+    BoundingBox box = (BoundingBox) other;
+    return minColumn == box.minColumn && minRow == box.minRow
+        && maxColumn == box.maxColumn && maxRow == box.maxRow;
+  }
+
+  @Override
+  public int hashCode() {
+    return Long.hashCode(minColumn) + 31 * (Long.hashCode(minRow)
+        + 31 * (Long.hashCode(maxColumn) + 31 * Long.hashCode(maxRow)));
+  }
+
+  @Override
+  public String toString() {
+    return "Columns " + minColumn + " to " + maxColumn + ", rows " + minRow + " to " + maxRow;
+  }
+}
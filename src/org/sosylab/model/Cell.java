@@ -49,10 +49,54 @@ public class Cell {
     return row;
   }
 
+  /**
+   * Packs the coordinates of a cell into a key. Different cells have different keys, and keys are
+   * ordered by row and then by column.
+   *
+   * @param column The x-coordinate (column of cell).
+   * @param row    The y-coordinate (row of cell).
+   * @return The key of the cell.
+   */
+  public static long key(int column, int row) {
+    return ((long) row << 32) | (column & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Get the x-coordinate of a packed key.
+   *
+   * @param key The key of a cell.
+   * @return The x-coordinate.
+   */
+  public static int columnOf(long key) {
+    return (int) key;
+  }
+
+  /**
+   * Get the y-coordinate of a packed key.
+   *
+   * @param key The key of a cell.
+   * @return The y-coordinate.
+   */
+  public static int rowOf(long key) {
+    return (int) (key >> 32);
+  }
+
+  /**
+   * Get the packed key of a cell, see {@link #key(int, int)}.
+   *
+   * @return The key.
+   */
+  public long getKey() {
+    return key(column, row);
+  }
+
+  /**
+   * Computes the hash of the cell. The hashes of cells differ as long as both coordinates are
+   * below 65536.
+   */
   @Override
   public int hashCode() {
-    int hashfactor = 5000;
-    return hashfactor * row + column;
+    return (row << 16) ^ column;
   }
 
   @Override
@@ -0,0 +1,15 @@
+package org.sosylab.model;
+
+/**
+ * Receives the coordinates of living cells, see {@link Grid#forEachAlive(CellVisitor)}.
+ */
+public interface CellVisitor {
+
+  /**
+   * Visits a living cell.
+   *
+   * @param col x-position.
+   * @param row y-position.
+   */
+  void visit(int col, int row);
+}
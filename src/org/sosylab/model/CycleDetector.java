@@ -0,0 +1,109 @@
+package org.sosylab.model;
+
+/**
+ * Detects when the states of a game have become periodic. It keeps the fingerprints of the most
+ * recent generations in a ring and reports a period p once every state of a whole period has been
+ * seen exactly p generations before.
+ */
+final class CycleDetector {
+
+  private final long[] fingerprints;
+  private final long[] generations;
+  private int head;
+  private int count;
+
+  private long candidatePeriod;
+  private long candidateStart;
+  private long confirmations;
+
+  private long period;
+  private long periodStart;
+
+  /**
+   * Create a detector.
+   *
+   * @param capacity the number of generations to remember, also the longest detectable period
+   */
+  CycleDetector(int capacity) {
+    this.fingerprints = new long[capacity];
+    this.generations = new long[capacity];
+    reset();
+  }
+
+  /**
+   * Forgets all recorded generations, e.g. because the state was edited.
+   */
+  void reset() {
+    head = 0;
+    count = 0;
+    candidatePeriod = 0;
+    confirmations = 0;
+    period = 0;
+    periodStart = -1;
+  }
+
+  /**
+   * Records the state of a generation.
+   *
+   * @param generation  the generation of the state, one after the previously recorded generation
+   * @param fingerprint the fingerprint of the state
+   */
+  void record(long generation, long fingerprint) {
+    if (period > 0) {
+      return;
+    }
+    long earlier = find(fingerprint);
+    if (earlier < 0) {
+      candidatePeriod = 0;
+    } else if (generation - earlier == candidatePeriod) {
+      confirmations++;
+    } else {
+      candidatePeriod = generation - earlier;
+      candidateStart = earlier;
+      confirmations = 1;
+    }
+    if (candidatePeriod > 0 && confirmations >= candidatePeriod) {
+      period = candidatePeriod;
+      periodStart = candidateStart;
+    }
+
+    fingerprints[head] = fingerprint;
+    generations[head] = generation;
+    head = (head + 1) % fingerprints.length;
+    count = Math.min(count + 1, fingerprints.length);
+  }
+
+  /**
+   * Finds the most recent generation with the given fingerprint.
+   *
+   * @param fingerprint the fingerprint to look for
+   * @return the generation or -1 if the fingerprint has not been recorded
+   */
+  private long find(long fingerprint) {
+    for (int i = 1; i <= count; i++) {
+      int index = (head - i + fingerprints.length) % fingerprints.length;
+      if (fingerprints[index] == fingerprint) {
+        return generations[index];
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Get the detected period.
+   *
+   * @return the period or 0 if no period has been detected
+   */
+  long getPeriod() {
+    return period;
+  }
+
+  /**
+   * Get the first generation of the detected cycle.
+   *
+   * @return the generation or -1 if no period has been detected
+   */
+  long getPeriodStart() {
+    return periodStart;
+  }
+}
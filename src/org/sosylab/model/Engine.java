@@ -0,0 +1,83 @@
+package org.sosylab.model;
+
+/**
+ * The available implementations of the {@link Grid} interface.
+ */
+public enum Engine {
+  GAME("game", Game::new),
+  BIT("bit", BitGrid::new),
+  SPARSE("sparse", SparseGrid::new),
+  HASHLIFE("hashlife", HashLifeGrid::new),
+  VECTOR("vector", VectorGrid::new),
+  UNBOUNDED("unbounded", UnboundedGrid::new);
+
+  private static final String availableEngines = """
+      \tGame (default),
+      \tBit,
+      \tSparse,
+      \tHashLife,
+      \tVector,
+      \tUnbounded.
+      """;
+
+  private final String name;
+  private final Factory factory;
+
+  Engine(String name, Factory factory) {
+    this.name = name;
+    this.factory = factory;
+  }
+
+  /**
+   * Get the name of the engine.
+   *
+   * @return the name
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Create a new game using this engine.
+   *
+   * @param columns the number of columns in the new game field
+   * @param rows    the number of rows in the new game field
+   * @return the new game
+   * @throws IllegalArgumentException if number of columns and rows is not positive.
+   */
+  public Grid create(int columns, int rows) {
+    return factory.create(columns, rows);
+  }
+
+  /**
+   * Get an engine by its name.
+   *
+   * @param name the name of the engine
+   * @return selected engine or <code>null</code> if there is no engine with that name
+   */
+  public static Engine getEngineByName(String name) {
+    for (Engine engine : values()) {
+      if (engine.getName().equals(name)) {
+        return engine;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Get a list of available engines to be shown when an incorrect engine was requested.
+   *
+   * @return a string with a list of available engines
+   */
+  public static String getAvailableEngines() {
+    return availableEngines;
+  }
+
+  /**
+   * Creates the game of an engine.
+   */
+  private interface Factory {
+
+    Grid create(int columns, int rows);
+  }
+}
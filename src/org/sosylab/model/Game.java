@@ -1,324 +1,297 @@
-package org.sosylab.model;
-
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
-
-/**
- * Manages a game.
- */
-public class Game implements Grid {
-
-  // Staying alive in this range
-  private static final int STAY_ALIVE_MIN_NEIGHBORS = 2;
-  private static final int STAY_ALIVE_MAX_NEIGHBORS = 3;
-
-  // Condition for getting newly born
-  private static final int NEWBORN_NEIGHBORS = 3;
-
-  private int generation;
-  private Cell[][] field;
-  private final Map<Integer, List<Cell>> allNeighbors;
-  private final Set<Cell> population;
-
-
-  /**
-   * Create a game of Game of Life.
-   *
-   * @param columns the number of columns in the new game field
-   * @param rows    the number of rows in the new game field
-   * @throws IllegalArgumentException if number of columns and rows is negative.
-   */
-  public Game(int columns, int rows) {
-    if (columns <= 0 || rows <= 0) {
-      throw new IllegalArgumentException("Number of columns and rows must be positive");
-    }
-    this.generation = 0;
-    this.field = new Cell[rows][columns];
-    this.allNeighbors = new HashMap<>();
-    this.population = new HashSet<>();
-    initializeFields();
-  }
-
-  /**
-   * Create a game of Game of Life with the selected shape.
-   *
-   * @param columns the number of columns in the game field
-   * @param rows    the number of rows in the game field
-   * @param shape   the selected shpe
-   */
-  public Game(int columns, int rows, Shape shape) {
-    this(columns, rows);
-    placeShape(shape);
-  }
-
-  /**
-   * Fills the empty instance-fields with a default values.
-   */
-  private void initializeFields() {
-    for (int row = 0; row < field.length; row++) {
-      for (int col = 0; col < field[0].length; col++) {
-        field[row][col] = new Cell(col, row);
-        allNeighbors.put(field[row][col].hashCode(), getNeighbors(field[row][col]));
-        setCellDead(col, row);
-      }
-    }
-  }
-
-  /**
-   * Places selected shape in the middle of the field.
-   *
-   * @param shape shape to be placed
-   */
-  public void placeShape(Shape shape) {
-    int shapeColumns = shape.getColumns();
-    int shapeRows = shape.getRows();
-    int fieldColumns = this.getColumns();
-    int fieldRows = this.getRows();
-    int offsetRows = Math.floorDiv(fieldRows - shapeRows, 2);
-    int offsetColumns = Math.floorDiv(fieldColumns - shapeColumns, 2);
-
-    for (Cell cell : shape.getShapePopulation()) {
-      this.population.add(new Cell(cell.getColumn() + offsetColumns, cell.getRow() + offsetRows));
-    }
-  }
-
-  /**
-   * Sets the counter of genrations to zero.
-   */
-  private void setGenerationToZero() {
-    this.generation = 0;
-  }
-
-  /**
-   * Get the cells that may change in the next generation.
-   *
-   * @return cells to recalculate
-   */
-  private Set<Cell> getCellsToRecalculate() {
-    Set<Cell> cellsToRecalculate = new HashSet<>();
-    for (Cell cell : population) {
-      cellsToRecalculate.addAll(getNeighbors(cell));
-    }
-    cellsToRecalculate.addAll(population);
-    return cellsToRecalculate;
-  }
-
-  /**
-   * Calculates game state for the next generation.
-   *
-   * @param cellsToRecalculate cells that may change in the next generation
-   */
-  private void recalculateNext(Set<Cell> cellsToRecalculate) {
-    Map<Integer, Integer> allAliveNeighbors = new HashMap<>();
-    for (Cell cell : cellsToRecalculate) {
-      int aliveNeighbors = countAliveNeighbors(cell);
-      allAliveNeighbors.put(cell.hashCode(), aliveNeighbors);
-    }
-    for (Cell cell : cellsToRecalculate) {
-      int aliveNeighbors = allAliveNeighbors.get(cell.hashCode());
-      if (isCellAlive(cell.getColumn(), cell.getRow()) && (aliveNeighbors < STAY_ALIVE_MIN_NEIGHBORS
-          || aliveNeighbors > STAY_ALIVE_MAX_NEIGHBORS)) {
-        setCellDead(cell.getColumn(), cell.getRow());
-      }
-      if (!isCellAlive(cell.getColumn(), cell.getRow()) && aliveNeighbors == NEWBORN_NEIGHBORS) {
-        setCellAlive(cell.getColumn(), cell.getRow());
-      }
-    }
-  }
-
-  /**
-   * Count alive neighbors of the specified cell.
-   *
-   * @param cell the cell whose neighbors need to be counted
-   * @throws IllegalArgumentException if number of columns and rows is negative or greater than the
-   *                                  field size
-   */
-  private int countAliveNeighbors(Cell cell) throws IllegalArgumentException {
-    if (cell.getColumn() >= this.getColumns() || cell.getRow() >= this.getRows()) {
-      throw new IllegalArgumentException(
-          "Parameters for column and row may not exceed the maximum number of columns and rows");
-    }
-    if (cell.getColumn() < 0 || cell.getRow() < 0) {
-      throw new IllegalArgumentException("Number of column and row may not be negative");
-    }
-    List<Cell> neighbors = allNeighbors.get(cell.hashCode());
-    int aliveNeighborsCounter = 0;
-    if (neighbors == null) {
-      return aliveNeighborsCounter;
-    }
-    for (Cell neighbor : neighbors) {
-      if (isCellAlive(neighbor.getColumn(), neighbor.getRow())) {
-        aliveNeighborsCounter++;
-      }
-    }
-    return aliveNeighborsCounter;
-  }
-
-  /**
-   * Get neighbors of the specified cell.
-   *
-   * @param cell the cell whose neighbors need to be determined
-   * @return neighbors of the specified cell
-   * @throws IllegalArgumentException if number of columns and rows greater than the field size
-   */
-  private ArrayList<Cell> getNeighbors(Cell cell) throws IllegalArgumentException {
-    int row = cell.getRow();
-    int column = cell.getColumn();
-    if (column >= this.getColumns() || row >= this.getRows()) {
-      throw new IllegalArgumentException(
-          "Parameters for column and row may not exceed the maximum number of columns and rows");
-    }
-    ArrayList<Cell> neighbors = new ArrayList<>();
-    if (column != 0) {
-      neighbors.add(new Cell(column - 1, row));
-      if (row != 0) {
-        neighbors.add(new Cell(column - 1, row - 1));
-        //neighbors.add(new Cell(column, row - 1));
-      }
-      if (row != this.getRows() - 1) {
-        neighbors.add(new Cell(column - 1, row + 1));
-      }
-    }
-    if (column != this.getColumns() - 1) {
-      neighbors.add(new Cell(column + 1, row));
-      if (row != 0) {
-        neighbors.add(new Cell(column + 1, row - 1));
-      }
-      if (row != this.getRows() - 1) {
-        neighbors.add(new Cell(column + 1, row + 1));
-      }
-    }
-    if (row != 0) {
-      neighbors.add(new Cell(column, row - 1));
-    }
-    if (row != this.getRows() - 1) {
-      neighbors.add(new Cell(column, row + 1));
-    }
-    return neighbors;
-  }
-
-  @Override
-  public boolean isCellAlive(int col, int row) throws IllegalArgumentException {
-    if (col >= this.getColumns() || row >= this.getRows()) {
-      throw new IllegalArgumentException(
-          "Parameters for column and row may not exceed the maximum number of columns and rows");
-    }
-    if (col < 0 || row < 0) {
-      throw new IllegalArgumentException("Number of column and row may not be negative");
-    }
-    return population.contains(new Cell(col, row));
-  }
-
-  @Override
-  public void setCellAlive(int col, int row) throws IllegalArgumentException {
-    if (col >= this.getColumns() || row >= this.getRows()) {
-      throw new IllegalArgumentException(
-          "Parameters for column and row may not exceed the maximum number of columns and rows");
-    }
-    if (col < 0 || row < 0) {
-      throw new IllegalArgumentException("Number of column and row may not be negative");
-    }
-    population.add(new Cell(col, row));
-  }
-
-  @Override
-  public void setCellDead(int col, int row) throws IllegalArgumentException {
-    if (col >= this.getColumns() || row >= this.getRows()) {
-      throw new IllegalArgumentException(
-          "Parameters for column and row may not exceed the maximum number of columns and rows");
-    }
-    if (col < 0 || row < 0) {
-      throw new IllegalArgumentException("Number of column and row may not be negative");
-    }
-    population.remove(new Cell(col, row));
-  }
-
-  @Override
-  public void resize(int newCols, int newRows) {
-    int oldCols = getColumns();
-    int oldRows = getRows();
-
-    allNeighbors.clear();
-    if (newCols < getColumns()) {
-      for (int row = newRows; row < oldRows; row++) {
-        for (int col = 0; col < oldCols; col++) {
-          population.remove(field[row][col]);
-        }
-      }
-    }
-    if (newRows < field.length) {
-      for (int row = 0; row < oldRows; row++) {
-        for (int col = newCols; col < oldCols; col++) {
-          population.remove(field[row][col]);
-        }
-      }
-    }
-
-    field = new Cell[newRows][newCols];
-    for (int row = 0; row < newRows; row++) {
-      for (int col = 0; col < newCols; col++) {
-        field[row][col] = new Cell(col, row);
-        allNeighbors.put(field[row][col].hashCode(), getNeighbors(field[row][col]));
-      }
-    }
-  }
-
-  @Override
-  public int getRows() {
-    return field.length;
-  }
-
-  @Override
-  public int getColumns() {
-    return field[0].length;
-  }
-
-  @Override
-  public Collection<Cell> getPopulation() {
-    return new HashSet<>(population);
-  }
-
-  @Override
-  public void clear() {
-    for (int row = 0; row < getRows(); row++) {
-      for (int col = 0; col < getColumns(); col++) {
-        setCellDead(col, row);
-      }
-    }
-    this.setGenerationToZero();
-  }
-
-  @Override
-  public void next() {
-    Set<Cell> cellsToRecalculate = getCellsToRecalculate();
-    recalculateNext(cellsToRecalculate);
-    generation++;
-  }
-
-  @Override
-  public int getGenerations() {
-    return generation;
-  }
-
-  @Override
-  public String toString() {
-    StringBuilder stringBuilder = new StringBuilder();
-    for (int row = 0; row < getRows(); row++) {
-      for (int col = 0; col < getColumns(); col++) {
-        if (isCellAlive(col, row)) {
-          stringBuilder.append("X");
-        } else {
-          stringBuilder.append(".");
-        }
-      }
-      stringBuilder.append("\n");
-    }
-    stringBuilder.deleteCharAt(stringBuilder.length() - 1);
-    return stringBuilder.toString();
-  }
-}
\ No newline at end of file
+package org.sosylab.model;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+/**
+ * Manages a game.
+ *
+ * <p>Only cells next to a change can change in the next generation: a cell whose neighborhood is
+ * the same as one generation before keeps its state. The game therefore remembers the cells that
+ * were born, died or edited since the last generation and recalculates only their neighborhoods, so
+ * that stable regions cost nothing.
+ *
+ * <p>Cells are kept as {@link Cell#key(int, int) packed keys} in primitive hash sets, so looking up
+ * or changing a cell allocates nothing and cells of wide fields never collide. Creating, clearing
+ * and resizing a game only touch the living cells, so even giant empty fields cost nothing. The
+ * population of the tiles of the field is kept up to date with every birth and death, so that
+ * areas of a giant field can be counted and rendered without looking at their empty parts.
+ */
+public class Game extends AbstractGrid {
+
+  private final LongHashSet population;
+  private final LongHashSet changedCells;
+  private final LongHashSet cellsToRecalculate;
+  private final TileCounts tiles;
+  private long fingerprint;
+
+  // Cells changing their state in the current generation
+  private long[] flips = new long[16];
+  private int flipCount;
+
+  // Changes of the last generation
+  private int births;
+  private int deaths;
+
+  /**
+   * Create a game of Game of Life.
+   *
+   * @param columns the number of columns in the new game field
+   * @param rows    the number of rows in the new game field
+   * @throws IllegalArgumentException if number of columns and rows is negative.
+   */
+  public Game(int columns, int rows) {
+    super(columns, rows);
+    this.population = new LongHashSet();
+    this.changedCells = new LongHashSet();
+    this.cellsToRecalculate = new LongHashSet();
+    this.tiles = new TileCounts();
+  }
+
+  /**
+   * Create a game of Game of Life with the selected shape.
+   *
+   * @param columns the number of columns in the game field
+   * @param rows    the number of rows in the game field
+   * @param shape   the selected shpe
+   */
+  public Game(int columns, int rows, Shape shape) {
+    this(columns, rows);
+    placeShape(shape);
+  }
+
+  @Override
+  protected void placeShapeCells(Shape shape) {
+    int shapeColumns = shape.getColumns();
+    int shapeRows = shape.getRows();
+    int fieldColumns = this.getColumns();
+    int fieldRows = this.getRows();
+    int offsetRows = Math.floorDiv(fieldRows - shapeRows, 2);
+    int offsetColumns = Math.floorDiv(fieldColumns - shapeColumns, 2);
+
+    for (Cell cell : shape.getShapePopulation()) {
+      int col = cell.getColumn() + offsetColumns;
+      int row = cell.getRow() + offsetRows;
+      checkBounds(col, row);
+      long key = Cell.key(col, row);
+      if (population.add(key)) {
+        changedCells.add(key);
+        tiles.add(col, row);
+        fingerprint += mix(key);
+      }
+    }
+    modified();
+  }
+
+  /**
+   * Collects the cells that may change in the next generation. These are the changed cells and
+   * their neighbors.
+   */
+  private void collectCellsToRecalculate() {
+    cellsToRecalculate.clear();
+    changedCells.forEach(key -> {
+      int col = Cell.columnOf(key);
+      int row = Cell.rowOf(key);
+      int firstCol = Math.max(col - 1, 0);
+      int lastCol = Math.min(col + 1, getColumns() - 1);
+      int firstRow = Math.max(row - 1, 0);
+      int lastRow = Math.min(row + 1, getRows() - 1);
+      for (int neighborRow = firstRow; neighborRow <= lastRow; neighborRow++) {
+        for (int neighborCol = firstCol; neighborCol <= lastCol; neighborCol++) {
+          cellsToRecalculate.add(Cell.key(neighborCol, neighborRow));
+        }
+      }
+    });
+  }
+
+  /**
+   * Calculates game state for the next generation. Every cell that changes its state is recorded
+   * as changed cell for the following generation.
+   */
+  private void recalculateNext() {
+    Rule rule = getRule();
+    flipCount = 0;
+    cellsToRecalculate.forEach(key -> {
+      boolean isAlive = population.contains(key);
+      if (rule.isAliveNext(isAlive, countAliveNeighbors(key)) != isAlive) {
+        addFlip(key);
+      }
+    });
+
+    births = 0;
+    deaths = 0;
+    for (int i = 0; i < flipCount; i++) {
+      long key = flips[i];
+      if (population.remove(key)) {
+        tiles.remove(Cell.columnOf(key), Cell.rowOf(key));
+        fingerprint -= mix(key);
+        deaths++;
+      } else {
+        population.add(key);
+        tiles.add(Cell.columnOf(key), Cell.rowOf(key));
+        fingerprint += mix(key);
+        births++;
+      }
+      changedCells.add(key);
+    }
+  }
+
+  /**
+   * Records a cell that changes its state in the current generation.
+   *
+   * @param key the key of the cell
+   */
+  private void addFlip(long key) {
+    if (flipCount == flips.length) {
+      flips = Arrays.copyOf(flips, 2 * flipCount);
+    }
+    flips[flipCount++] = key;
+  }
+
+  /**
+   * Count alive neighbors of the specified cell.
+   *
+   * @param key the key of the cell whose neighbors need to be counted
+   * @return the number of living neighbors
+   */
+  private int countAliveNeighbors(long key) {
+    int col = Cell.columnOf(key);
+    int row = Cell.rowOf(key);
+    int firstCol = Math.max(col - 1, 0);
+    int lastCol = Math.min(col + 1, getColumns() - 1);
+    int firstRow = Math.max(row - 1, 0);
+    int lastRow = Math.min(row + 1, getRows() - 1);
+    int aliveNeighborsCounter = 0;
+    for (int neighborRow = firstRow; neighborRow <= lastRow; neighborRow++) {
+      for (int neighborCol = firstCol; neighborCol <= lastCol; neighborCol++) {
+        if ((neighborCol != col || neighborRow != row)
+            && population.contains(Cell.key(neighborCol, neighborRow))) {
+          aliveNeighborsCounter++;
+        }
+      }
+    }
+    return aliveNeighborsCounter;
+  }
+
+  @Override
+  public boolean isCellAlive(int col, int row) throws IllegalArgumentException {
+    checkBounds(col, row);
+    return population.contains(Cell.key(col, row));
+  }
+
+  @Override
+  public void setCellAlive(int col, int row) throws IllegalArgumentException {
+    checkBounds(col, row);
+    long key = Cell.key(col, row);
+    if (population.add(key)) {
+      changedCells.add(key);
+      tiles.add(col, row);
+      fingerprint += mix(key);
+    }
+    modified();
+  }
+
+  @Override
+  public void setCellDead(int col, int row) throws IllegalArgumentException {
+    checkBounds(col, row);
+    long key = Cell.key(col, row);
+    if (population.remove(key)) {
+      changedCells.add(key);
+      tiles.remove(col, row);
+      fingerprint -= mix(key);
+    }
+    modified();
+  }
+
+  /**
+   * Cells that are stable under the old rule may change under the new one, so all living cells
+   * and their neighbors are recalculated.
+   */
+  @Override
+  protected void ruleChanged() {
+    population.forEach(changedCells::add);
+  }
+
+  @Override
+  protected void resizeField(int newCols, int newRows) {
+    // the neighborhoods of removed cells are recalculated, the rest of the field is unchanged
+    flipCount = 0;
+    population.forEach(key -> {
+      if (Cell.columnOf(key) >= newCols || Cell.rowOf(key) >= newRows) {
+        addFlip(key);
+      }
+    });
+    for (int i = 0; i < flipCount; i++) {
+      long key = flips[i];
+      population.remove(key);
+      changedCells.add(key);
+      tiles.remove(Cell.columnOf(key), Cell.rowOf(key));
+      fingerprint -= mix(key);
+    }
+  }
+
+  @Override
+  protected long fingerprint() {
+    return fingerprint;
+  }
+
+  @Override
+  public Collection<Cell> getPopulation() {
+    Set<Cell> cells = new HashSet<>();
+    population.forEach(key -> cells.add(new Cell(Cell.columnOf(key), Cell.rowOf(key))));
+    return cells;
+  }
+
+  @Override
+  public void forEachAlive(CellVisitor visitor) {
+    population.forEach(key -> visitor.visit(Cell.columnOf(key), Cell.rowOf(key)));
+  }
+
+  @Override
+  public LongStream getPopulationKeys() {
+    return population.stream();
+  }
+
+  @Override
+  public long getPopulationCount() {
+    return population.size();
+  }
+
+  @Override
+  protected void clearField() {
+    population.clear();
+    changedCells.clear();
+    tiles.clear();
+    fingerprint = 0;
+  }
+
+  /**
+   * Get the number of slots of the sets of changed cells and cells to recalculate. Besides the
+   * changes themselves, it bounds the work of the next generation.
+   *
+   * @return the capacity of the frontier
+   */
+  int frontierCapacity() {
+    return changedCells.capacity() + cellsToRecalculate.capacity();
+  }
+
+  @Override
+  void forEachTile(int col, int row, int width, int height, TileCounts.TileVisitor visitor) {
+    tiles.forEachTile(col, row, width, height, visitor);
+  }
+
+  @Override
+  protected void step() {
+    long start = System.nanoTime();
+    collectCellsToRecalculate();
+    changedCells.clear();
+    long collected = System.nanoTime();
+    recalculateNext();
+    long evaluated = System.nanoTime();
+    metrics().recordDetails(collected - start, evaluated - collected, cellsToRecalculate.size(),
+        births, deaths, population.size());
+  }
+}
@@ -1,89 +1,357 @@
-package org.sosylab.model;
-
-import java.util.Collection;
-
-/**
- * Interface between GameBoard and Game. More accurately, for Game of Life this is an interface
- * between the grid of cells and the user interface.
- */
-public interface Grid {
-
-  /**
-   * Gets the status of a cell (alive or dead).
-   *
-   * @param col x-position.
-   * @param row y-position.
-   * @return <code>true</code> if the cell is alive, <code>false</code> otherwise.
-   */
-  boolean isCellAlive(int col, int row);
-
-  /**
-   * Sets a cell alive.
-   *
-   * @param col x-position.
-   * @param row y-position.
-   */
-  void setCellAlive(int col, int row);
-
-  /**
-   * Puts a cell into a dead state.
-   *
-   * @param col x-position.
-   * @param row y-position.
-   */
-  void setCellDead(int col, int row);
-
-  /**
-   * Resizes the cell grid in x and y direction.
-   *
-   * @param cols New number of columns.
-   * @param rows New number of rows.
-   */
-  void resize(int cols, int rows);
-
-  /**
-   * Gets the dimension of the cell grid in x direction.
-   *
-   * @return Number of columns.
-   */
-  int getColumns();
-
-  /**
-   * Gets the dimension of the cell grid in y direction.
-   *
-   * @return Number of rows.
-   */
-  int getRows();
-
-  /**
-   * Gets all living cells.
-   *
-   * @return Set of all cells which are alive.
-   */
-  Collection<Cell> getPopulation();
-
-  /**
-   * Clears the grid.
-   */
-  void clear();
-
-  /**
-   * Computes the next generation.
-   */
-  void next();
-
-  /**
-   * Gets the number of generations in this game.
-   *
-   * @return The current generation.
-   */
-  int getGenerations();
-
-  /**
-   * Gets the string representation of the current game state.
-   *
-   * @return The matrix as string.
-   */
-  String toString();
-
+package org.sosylab.model;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.stream.LongStream;
+
+/**
+ * Interface between GameBoard and Game. More accurately, for Game of Life this is an interface
+ * between the grid of cells and the user interface.
+ */
+public interface Grid extends AutoCloseable {
+
+  /**
+   * Gets the status of a cell (alive or dead).
+   *
+   * @param col x-position.
+   * @param row y-position.
+   * @return <code>true</code> if the cell is alive, <code>false</code> otherwise.
+   */
+  boolean isCellAlive(int col, int row);
+
+  /**
+   * Sets a cell alive.
+   *
+   * @param col x-position.
+   * @param row y-position.
+   */
+  void setCellAlive(int col, int row);
+
+  /**
+   * Puts a cell into a dead state.
+   *
+   * @param col x-position.
+   * @param row y-position.
+   */
+  void setCellDead(int col, int row);
+
+  /**
+   * Resizes the cell grid in x and y direction.
+   *
+   * @param cols New number of columns.
+   * @param rows New number of rows.
+   */
+  void resize(int cols, int rows);
+
+  /**
+   * Gets the dimension of the cell grid in x direction.
+   *
+   * @return Number of columns.
+   */
+  int getColumns();
+
+  /**
+   * Gets the dimension of the cell grid in y direction.
+   *
+   * @return Number of rows.
+   */
+  int getRows();
+
+  /**
+   * Gets all living cells. A new {@link Cell} is created for every living cell, use
+   * {@link #forEachAlive(CellVisitor)} or {@link #getPopulationKeys()} to read the population
+   * without allocating.
+   *
+   * @return Set of all cells which are alive.
+   */
+  Collection<Cell> getPopulation();
+
+  /**
+   * Passes every living cell to the given visitor without copying the population or creating a
+   * {@link Cell} per cell. The order of the cells is unspecified. The game must not be changed
+   * until all cells are visited.
+   *
+   * @param visitor the visitor receiving the cells
+   */
+  void forEachAlive(CellVisitor visitor);
+
+  /**
+   * Streams the living cells as {@link Cell#key(int, int) packed keys}. The order of the cells is
+   * unspecified. The engines read their cells lazily while the stream is consumed, so the game must
+   * not be changed until then.
+   *
+   * @return the keys of all cells which are alive
+   */
+  default LongStream getPopulationKeys() {
+    LongStream.Builder keys = LongStream.builder();
+    forEachAlive((col, row) -> keys.add(Cell.key(col, row)));
+    return keys.build();
+  }
+
+  /**
+   * Counts the living cells without copying the population.
+   *
+   * @return Number of cells which are alive.
+   */
+  default long getPopulationCount() {
+    long[] count = new long[1];
+    forEachAlive((col, row) -> count[0]++);
+    return count[0];
+  }
+
+  /**
+   * Counts the living cells of an area of the field.
+   *
+   * @param col    x-position of the top left corner of the area.
+   * @param row    y-position of the top left corner of the area.
+   * @param width  Number of columns of the area.
+   * @param height Number of rows of the area.
+   * @return Number of cells in the area which are alive.
+   */
+  default long getPopulationCount(int col, int row, int width, int height) {
+    long[] count = new long[1];
+    forEachAlive((x, y) -> {
+      if (x >= col && x - col < width && y >= row && y - row < height) {
+        count[0]++;
+      }
+    });
+    return count[0];
+  }
+
+  /**
+   * Places the given shape in the middle of the field. The cells of the shape are set alive, all
+   * other cells keep their state.
+   *
+   * @param shape shape to be placed
+   */
+  default void placeShape(Shape shape) {
+    int offsetRows = Math.floorDiv(getRows() - shape.getRows(), 2);
+    int offsetColumns = Math.floorDiv(getColumns() - shape.getColumns(), 2);
+
+    for (Cell cell : shape.getShapePopulation()) {
+      setCellAlive(cell.getColumn() + offsetColumns, cell.getRow() + offsetRows);
+    }
+  }
+
+  /**
+   * Clears the grid.
+   */
+  void clear();
+
+  /**
+   * Computes the next generation.
+   */
+  void next();
+
+  /**
+   * Computes the given number of generations at once. Engines that can skip generations override
+   * this method, the default implementation computes one generation after the other.
+   *
+   * @param steps number of generations to compute.
+   * @throws IllegalArgumentException if the number of generations is negative.
+   */
+  default void next(long steps) {
+    if (steps < 0) {
+      throw new IllegalArgumentException("Number of generations may not be negative");
+    }
+    for (long i = 0; i < steps; i++) {
+      next();
+    }
+  }
+
+  /**
+   * Gets the period of the game, i.e. the number of generations after which the states repeat.
+   * Once a period is known, computing many generations at once takes only the time for the
+   * remainder of the number of generations modulo the period.
+   *
+   * @return The period or 0 if no period has been detected.
+   */
+  default long getPeriod() {
+    return 0;
+  }
+
+  /**
+   * Gets the generation in which the periodic states started.
+   *
+   * @return The first generation of the cycle or -1 if no period has been detected.
+   */
+  default long getPeriodStart() {
+    return -1;
+  }
+
+  /**
+   * Sets the number of threads used to compute the next generation. Engines that can compute a
+   * generation in parallel override this method, the default implementation only supports a single
+   * thread.
+   *
+   * @param threads number of threads.
+   * @throws IllegalArgumentException      if the number of threads is not positive.
+   * @throws UnsupportedOperationException if the engine does not support this number of threads.
+   */
+  default void setThreads(int threads) {
+    if (threads <= 0) {
+      throw new IllegalArgumentException("Number of threads must be positive");
+    }
+    if (threads != 1) {
+      throw new UnsupportedOperationException("This engine supports only a single thread");
+    }
+  }
+
+  /**
+   * Gets the number of threads used to compute the next generation.
+   *
+   * @return The number of threads.
+   */
+  default int getThreads() {
+    return 1;
+  }
+
+  /**
+   * Releases the threads started by {@link #setThreads(int)}. The game can still be used
+   * afterwards, but computes the next generation on a single thread. The default implementation
+   * does nothing.
+   */
+  @Override
+  default void close() {
+  }
+
+  /**
+   * Sets the rule that computes the next generation. The living cells are kept.
+   *
+   * @param rule the new rule.
+   */
+  void setRule(Rule rule);
+
+  /**
+   * Gets the rule that computes the next generation, {@link Rule#CONWAY} unless it was changed.
+   *
+   * @return The current rule.
+   */
+  Rule getRule();
+
+  /**
+   * Takes a snapshot of the metrics of the generations computed so far, e.g. their durations.
+   *
+   * @return the metrics.
+   */
+  MetricsSnapshot getMetrics();
+
+  /**
+   * Forgets the metrics of the generations computed so far.
+   */
+  void resetMetrics();
+
+  /**
+   * Gets the number of generations in this game.
+   *
+   * @return The current generation.
+   */
+  long getGenerations();
+
+  /**
+   * Sets the number of generations in this game, e.g. when a saved game is restored.
+   *
+   * @param generations The current generation.
+   * @throws IllegalArgumentException if the number of generations is negative.
+   */
+  void setGenerations(long generations);
+
+  /**
+   * Writes the field as bit-packed rows into the given buffer. Every row occupies
+   * <code>(getColumns() + 63) / 64</code> words, the first row starts at index 0. Bit
+   * <code>col % 64</code> of word <code>col / 64</code> of a row is set if the cell is alive, all
+   * other bits are cleared.
+   *
+   * @param target The buffer receiving the rows.
+   */
+  default void exportBits(LongBuffer target) {
+    int words = (getColumns() + 63) / 64;
+    for (int row = 0; row < getRows(); row++) {
+      for (int word = 0; word < words; word++) {
+        long bits = 0;
+        for (int bit = 0; bit < 64 && word * 64 + bit < getColumns(); bit++) {
+          if (isCellAlive(word * 64 + bit, row)) {
+            bits |= 1L << bit;
+          }
+        }
+        target.put(row * words + word, bits);
+      }
+    }
+  }
+
+  /**
+   * Replaces the population by the bit-packed rows of the given buffer, see
+   * {@link #exportBits(LongBuffer)}. Bits beyond the last column are ignored.
+   *
+   * @param source The buffer containing the rows.
+   */
+  default void importBits(LongBuffer source) {
+    int words = (getColumns() + 63) / 64;
+    for (int row = 0; row < getRows(); row++) {
+      for (int col = 0; col < getColumns(); col++) {
+        if ((source.get(row * words + col / 64) & (1L << col)) != 0) {
+          setCellAlive(col, row);
+        } else {
+          setCellDead(col, row);
+        }
+      }
+    }
+  }
+
+  /**
+   * Gets the string representation of the current game state.
+   *
+   * @return The matrix as string.
+   */
+  String toString();
+
+  /**
+   * Writes the string representation of the current game state followed by a line break to the
+   * given stream. Engines override this method to write the rows without building a string.
+   *
+   * @param out The stream to write to.
+   * @throws IOException if writing to the stream fails.
+   */
+  default void render(OutputStream out) throws IOException {
+    out.write((toString() + "\n").getBytes(StandardCharsets.US_ASCII));
+  }
+
+  /**
+   * Writes an overview of the field with one character per block of blockSize x blockSize cells.
+   * The character shows how many cells of the block are alive: ‘.’ for none, ‘X’ for all and the
+   * shades ‘:’, ‘-’, ‘=’, ‘+’, ‘*’, ‘#’ and ‘%’ for increasing densities in between. Every row of
+   * blocks is followed by a line break.
+   *
+   * @param out       The stream to write to.
+   * @param blockSize Number of columns and rows of the field per character.
+   * @throws IOException if writing to the stream fails.
+   */
+  void renderDensity(OutputStream out, int blockSize) throws IOException;
+
+  /**
+   * Writes an area of the field in the same format as {@link #render(OutputStream)}, i.e. every
+   * row of the area followed by a line break.
+   *
+   * @param out    The stream to write to.
+   * @param col    x-position of the top left corner of the area.
+   * @param row    y-position of the top left corner of the area.
+   * @param width  Number of columns of the area.
+   * @param height Number of rows of the area.
+   * @throws IOException if writing to the stream fails.
+   */
+  default void render(OutputStream out, int col, int row, int width, int height)
+      throws IOException {
+    StringBuilder area = new StringBuilder((width + 1) * height);
+    for (int y = row; y < row + height; y++) {
+      for (int x = col; x < col + width; x++) {
+        area.append(isCellAlive(x, y) ? 'X' : '.');
+      }
+      area.append('\n');
+    }
+    out.write(area.toString().getBytes(StandardCharsets.US_ASCII));
+  }
+
 }
\ No newline at end of file
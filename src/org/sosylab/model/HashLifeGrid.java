@@ -0,0 +1,823 @@
+package org.sosylab.model;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.stream.LongStream;
+import org.sosylab.jfr.GenerationEvent;
+
+/**
+ * HashLife implementation of a game. The universe is stored as a quadtree whose nodes are
+ * canonicalized, so identical regions share a single node, and the future of every node is
+ * memoized. Repetitive patterns can therefore be advanced by 2^k generations at about the cost of a
+ * single generation.
+ *
+ * <p>The field is surrounded by wall cells, a third state besides dead and alive. Walls never come
+ * alive and count as dead neighbors, so cells at the border behave exactly as in the other engines.
+ * The rule stays local, so nodes containing walls are canonicalized and memoized like all others.
+ *
+ * <p>The node cache is bounded. Whenever it exceeds its limit between two computations, all nodes
+ * that are not reachable from the current universe are evicted together with all memoized results.
+ */
+public class HashLifeGrid extends AbstractGrid {
+
+  /**
+   * Default maximum number of cached nodes, roughly 64 MB of heap.
+   */
+  public static final int DEFAULT_MAX_NODES = 1 << 20;
+
+  // Levels beyond this would overflow the coordinate arithmetic
+  private static final int MAX_LEVEL = 60;
+
+  // Larger jumps would need a root above MAX_LEVEL, they are split into jumps of this size
+  private static final int MAX_STEP_LOG = MAX_LEVEL - 3;
+
+  private static final int MIN_LEVEL = 3;
+
+  private final Node dead = new Node(0, null, null, null, null, 0, false, 0);
+  private final Node alive = new Node(0, null, null, null, null, 1, false, 1);
+  private final Node wall = new Node(0, null, null, null, null, 0, true, 2);
+
+  private final int maxNodes;
+  private final Node[] emptyNodes = new Node[MAX_LEVEL + 1];
+  private final Node[] wallNodes = new Node[MAX_LEVEL + 1];
+
+  private Node[] table;
+  private int tableSize;
+  private int markEpoch;
+
+  private Node root;
+  private int stepLog;
+
+  /**
+   * Create a game of Game of Life.
+   *
+   * @param columns the number of columns in the new game field
+   * @param rows    the number of rows in the new game field
+   * @throws IllegalArgumentException if number of columns and rows is negative.
+   */
+  public HashLifeGrid(int columns, int rows) {
+    this(columns, rows, DEFAULT_MAX_NODES);
+  }
+
+  /**
+   * Create a game of Game of Life with a custom limit for the node cache.
+   *
+   * @param columns  the number of columns in the new game field
+   * @param rows     the number of rows in the new game field
+   * @param maxNodes the number of cached nodes that triggers an eviction
+   * @throws IllegalArgumentException if number of columns and rows or the limit is not positive.
+   */
+  public HashLifeGrid(int columns, int rows, int maxNodes) {
+    super(columns, rows);
+    if (maxNodes <= 0) {
+      throw new IllegalArgumentException("Maximum number of nodes must be positive");
+    }
+    this.maxNodes = maxNodes;
+    this.table = new Node[1024];
+    this.emptyNodes[0] = dead;
+    this.wallNodes[0] = wall;
+    this.root = fieldRoot();
+  }
+
+  /**
+   * Get the canonical node of the given children.
+   *
+   * @param nw north-west quadrant
+   * @param ne north-east quadrant
+   * @param sw south-west quadrant
+   * @param se south-east quadrant
+   * @return the unique node with these quadrants
+   */
+  private Node join(Node nw, Node ne, Node sw, Node se) {
+    long hash = hash(nw, ne, sw, se);
+    int index = (int) hash & (table.length - 1);
+    for (Node node = table[index]; node != null; node = node.chain) {
+      if (node.nw == nw && node.ne == ne && node.sw == sw && node.se == se) {
+        return node;
+      }
+    }
+    long population = nw.population + ne.population + sw.population + se.population;
+    boolean walled = nw.walled || ne.walled || sw.walled || se.walled;
+    Node node = new Node(nw.level + 1, nw, ne, sw, se, population, walled, hash);
+    node.chain = table[index];
+    table[index] = node;
+    tableSize++;
+    if (tableSize > table.length - (table.length >>> 2)) {
+      rehash(table.length * 2);
+    }
+    return node;
+  }
+
+  /**
+   * Computes the structural hash of a node from the hashes of its quadrants.
+   *
+   * @param nw north-west quadrant
+   * @param ne north-east quadrant
+   * @param sw south-west quadrant
+   * @param se south-east quadrant
+   * @return the hash of the node
+   */
+  private static long hash(Node nw, Node ne, Node sw, Node se) {
+    long hash = nw.hash;
+    hash = hash * 0x9E3779B97F4A7C15L + ne.hash;
+    hash = hash * 0x9E3779B97F4A7C15L + sw.hash;
+    hash = hash * 0x9E3779B97F4A7C15L + se.hash;
+    return mix(hash);
+  }
+
+  /**
+   * Moves all cached nodes into a table of the given capacity.
+   *
+   * @param capacity the new capacity, a power of two
+   */
+  private void rehash(int capacity) {
+    Node[] oldTable = table;
+    table = new Node[capacity];
+    for (Node head : oldTable) {
+      Node node = head;
+      while (node != null) {
+        Node following = node.chain;
+        int index = (int) node.hash & (capacity - 1);
+        node.chain = table[index];
+        table[index] = node;
+        node = following;
+      }
+    }
+  }
+
+  /**
+   * Get the canonical empty node of a level.
+   *
+   * @param level the level of the node
+   * @return node without living cells
+   */
+  private Node empty(int level) {
+    if (emptyNodes[level] == null) {
+      Node child = empty(level - 1);
+      emptyNodes[level] = join(child, child, child, child);
+    }
+    return emptyNodes[level];
+  }
+
+  /**
+   * Get the canonical node of a level that consists of walls only.
+   *
+   * @param level the level of the node
+   * @return node without dead or living cells
+   */
+  private Node wall(int level) {
+    if (wallNodes[level] == null) {
+      Node child = wall(level - 1);
+      wallNodes[level] = join(child, child, child, child);
+    }
+    return wallNodes[level];
+  }
+
+  /**
+   * Get the smallest level of a root whose south-east quadrant contains the field. The root is
+   * centered on the top left corner of the field, so this is the level of the root between two
+   * computations.
+   *
+   * @return the level of the root
+   */
+  private int fieldLevel() {
+    long size = Math.max(getColumns(), getRows());
+    int level = MIN_LEVEL;
+    while (1L << (level - 1) < size) {
+      level++;
+    }
+    return level;
+  }
+
+  /**
+   * Get the root of an empty field, surrounded by walls.
+   *
+   * @return the root of the smallest level that contains the field
+   */
+  private Node fieldRoot() {
+    int level = fieldLevel();
+    long half = 1L << (level - 1);
+    return fieldNode(level, -half, -half);
+  }
+
+  /**
+   * Get a node of an empty field: cells on the field are dead, all others are walls.
+   *
+   * @param level the level of the node
+   * @param left  x-position of the top left corner of the node on the plane
+   * @param top   y-position of the top left corner of the node on the plane
+   * @return the node
+   */
+  private Node fieldNode(int level, long left, long top) {
+    long size = 1L << level;
+    if (left >= getColumns() || top >= getRows() || left + size <= 0 || top + size <= 0) {
+      return wall(level);
+    }
+    if (left >= 0 && top >= 0 && left + size <= getColumns() && top + size <= getRows()) {
+      return empty(level);
+    }
+    long half = size >>> 1;
+    return join(fieldNode(level - 1, left, top), fieldNode(level - 1, left + half, top),
+        fieldNode(level - 1, left, top + half), fieldNode(level - 1, left + half, top + half));
+  }
+
+  /**
+   * Evicts every node that is not part of the current universe and forgets all memoized results.
+   */
+  private void collectGarbage() {
+    markEpoch++;
+    mark(root);
+    for (Node node : emptyNodes) {
+      if (node != null) {
+        mark(node);
+      }
+    }
+    for (Node node : wallNodes) {
+      if (node != null) {
+        mark(node);
+      }
+    }
+    tableSize = 0;
+    for (int i = 0; i < table.length; i++) {
+      Node kept = null;
+      for (Node node = table[i]; node != null; node = node.chain) {
+        if (node.mark == markEpoch) {
+          node.result = null;
+          node.stepResult = null;
+          node.chain = kept;
+          kept = node;
+          tableSize++;
+        }
+      }
+      table[i] = kept;
+    }
+  }
+
+  /**
+   * Marks a node and all nodes below it as reachable.
+   *
+   * @param node the reachable node
+   */
+  private void mark(Node node) {
+    if (node.level == 0 || node.mark == markEpoch) {
+      return;
+    }
+    node.mark = markEpoch;
+    mark(node.nw);
+    mark(node.ne);
+    mark(node.sw);
+    mark(node.se);
+  }
+
+  /**
+   * Get the node of the next lower level that is centered within the given node.
+   *
+   * @param node a node with a level of at least 2
+   * @return the center of the node
+   */
+  private Node center(Node node) {
+    return join(node.nw.se, node.ne.sw, node.sw.ne, node.se.nw);
+  }
+
+  /**
+   * Get the node of the next higher level that contains the given root in its center. The root
+   * contains the field, so the new border consists of walls.
+   *
+   * @param node the root to enlarge
+   * @return the enlarged root
+   */
+  private Node expand(Node node) {
+    Node border = wall(node.level - 1);
+    return join(join(border, border, border, node.nw), join(border, border, node.ne, border),
+        join(border, node.sw, border, border), join(node.se, border, border, border));
+  }
+
+  /**
+   * Computes the future of the center of a node. The center is advanced by 2^j generations, where
+   * j is the current step exponent but at most the level of the node minus two, the largest step
+   * that can be computed from the node alone.
+   *
+   * @param node a node with a level of at least 2
+   * @return the center of the node after the step
+   */
+  private Node advance(Node node) {
+    if (node.population == 0) {
+      // without living cells nothing changes, walls stay where they are
+      return node.walled ? center(node) : empty(node.level - 1);
+    }
+    if (node.level == 2) {
+      if (node.result == null) {
+        node.result = advanceBase(node);
+      }
+      return node.result;
+    }
+    boolean fullStep = stepLog >= node.level - 2;
+    if (fullStep && node.result != null) {
+      return node.result;
+    }
+    if (!fullStep && node.stepResult != null && node.stepLog == stepLog) {
+      return node.stepResult;
+    }
+
+    Node n00 = node.nw;
+    Node n01 = join(node.nw.ne, node.ne.nw, node.nw.se, node.ne.sw);
+    Node n02 = node.ne;
+    Node n10 = join(node.nw.sw, node.nw.se, node.sw.nw, node.sw.ne);
+    Node n11 = center(node);
+    Node n12 = join(node.ne.sw, node.ne.se, node.se.nw, node.se.ne);
+    Node n20 = node.sw;
+    Node n21 = join(node.sw.ne, node.se.nw, node.sw.se, node.se.sw);
+    Node n22 = node.se;
+
+    Node result;
+    if (fullStep) {
+      // two half steps: first the nine overlapping subnodes, then the four combined quadrants
+      Node r00 = advance(n00);
+      Node r01 = advance(n01);
+      Node r02 = advance(n02);
+      Node r10 = advance(n10);
+      Node r11 = advance(n11);
+      Node r12 = advance(n12);
+      Node r20 = advance(n20);
+      Node r21 = advance(n21);
+      Node r22 = advance(n22);
+      result = join(advance(join(r00, r01, r10, r11)), advance(join(r01, r02, r11, r12)),
+          advance(join(r10, r11, r20, r21)), advance(join(r11, r12, r21, r22)));
+      node.result = result;
+    } else {
+      // a smaller step: only the combined quadrants are advanced
+      Node c00 = center(n00);
+      Node c01 = center(n01);
+      Node c02 = center(n02);
+      Node c10 = center(n10);
+      Node c11 = center(n11);
+      Node c12 = center(n12);
+      Node c20 = center(n20);
+      Node c21 = center(n21);
+      Node c22 = center(n22);
+      result = join(advance(join(c00, c01, c10, c11)), advance(join(c01, c02, c11, c12)),
+          advance(join(c10, c11, c20, c21)), advance(join(c11, c12, c21, c22)));
+      node.stepResult = result;
+      node.stepLog = stepLog;
+    }
+    return result;
+  }
+
+  /**
+   * Computes the next generation of the 2x2 center of a 4x4 node.
+   *
+   * @param node a node of level 2
+   * @return the center of the node after one generation
+   */
+  private Node advanceBase(Node node) {
+    int bits = 0;
+    for (int y = 0; y < 4; y++) {
+      for (int x = 0; x < 4; x++) {
+        if (getCell(node, x, y)) {
+          bits |= 1 << (y * 4 + x);
+        }
+      }
+    }
+    return join(nextCell(node.nw.se, bits, 1, 1), nextCell(node.ne.sw, bits, 2, 1),
+        nextCell(node.sw.ne, bits, 1, 2), nextCell(node.se.nw, bits, 2, 2));
+  }
+
+  /**
+   * Applies the rules of the game to one cell of a 4x4 block.
+   *
+   * @param cell the leaf of the cell
+   * @param bits the living cells of the block, one bit per cell in row-major order
+   * @param x    x-position of the cell within the block, not on the border
+   * @param y    y-position of the cell within the block, not on the border
+   * @return the leaf describing the next state of the cell
+   */
+  private Node nextCell(Node cell, int bits, int x, int y) {
+    if (cell == wall) {
+      return wall;
+    }
+    int aliveNeighbors = 0;
+    for (int dy = -1; dy <= 1; dy++) {
+      for (int dx = -1; dx <= 1; dx++) {
+        if ((dx != 0 || dy != 0) && (bits & (1 << ((y + dy) * 4 + x + dx))) != 0) {
+          aliveNeighbors++;
+        }
+      }
+    }
+    boolean isAlive = (bits & (1 << (y * 4 + x))) != 0;
+    return getRule().isAliveNext(isAlive, aliveNeighbors) ? alive : dead;
+  }
+
+  /**
+   * Gets the state of a cell within a node.
+   *
+   * @param node the node
+   * @param x    x-position relative to the top left corner of the node
+   * @param y    y-position relative to the top left corner of the node
+   * @return <code>true</code> if the cell is alive
+   */
+  private static boolean getCell(Node node, long x, long y) {
+    while (node.level > 0) {
+      if (node.population == 0) {
+        return false;
+      }
+      long half = 1L << (node.level - 1);
+      if (y < half) {
+        node = x < half ? node.nw : node.ne;
+      } else {
+        node = x < half ? node.sw : node.se;
+        y -= half;
+      }
+      if (x >= half) {
+        x -= half;
+      }
+    }
+    return node.population != 0;
+  }
+
+  /**
+   * Get a copy of a node with the state of one cell changed.
+   *
+   * @param node    the node
+   * @param x       x-position relative to the top left corner of the node
+   * @param y       y-position relative to the top left corner of the node
+   * @param isAlive the new state of the cell
+   * @return the changed node
+   */
+  private Node setCell(Node node, long x, long y, boolean isAlive) {
+    if (node.level == 0) {
+      return isAlive ? alive : dead;
+    }
+    long half = 1L << (node.level - 1);
+    if (y < half) {
+      if (x < half) {
+        return join(setCell(node.nw, x, y, isAlive), node.ne, node.sw, node.se);
+      }
+      return join(node.nw, setCell(node.ne, x - half, y, isAlive), node.sw, node.se);
+    }
+    if (x < half) {
+      return join(node.nw, node.ne, setCell(node.sw, x, y - half, isAlive), node.se);
+    }
+    return join(node.nw, node.ne, node.sw, setCell(node.se, x - half, y - half, isAlive));
+  }
+
+  /**
+   * Changes the state of a cell on the field.
+   *
+   * @param col     column of the cell
+   * @param row     row of the cell
+   * @param isAlive the new state of the cell
+   */
+  private void setFieldCell(int col, int row, boolean isAlive) {
+    long half = 1L << (root.level - 1);
+    root = setCell(root, col + half, row + half, isAlive);
+  }
+
+  /**
+   * Advances the field by 2^j generations. The root is enlarged until its center contains the
+   * field and can be advanced by 2^j generations, afterwards the walls around the field are cut
+   * off again.
+   *
+   * @param j the step exponent, at most {@link #MAX_STEP_LOG}
+   */
+  private void advanceRoot(int j) {
+    int level = fieldLevel();
+    while (root.level < Math.max(j + 2, level + 1)) {
+      root = expand(root);
+    }
+    stepLog = j;
+    root = advance(root);
+    while (root.level > level) {
+      root = center(root);
+    }
+    if (tableSize > maxNodes) {
+      collectGarbage();
+    }
+  }
+
+  @Override
+  public void next(long steps) {
+    if (steps < 0) {
+      throw new IllegalArgumentException("Number of generations may not be negative");
+    }
+    long reached = getGenerations();
+    for (int j = 0; j < Long.SIZE - 1; j++) {
+      if ((steps & (1L << j)) == 0) {
+        continue;
+      }
+      int log = Math.min(j, MAX_STEP_LOG);
+      for (long jump = 0; jump < 1L << (j - log); jump++) {
+        GenerationEvent event = new GenerationEvent();
+        event.begin();
+        long allocated = Metrics.allocatedBytes();
+        long start = System.nanoTime();
+        advanceRoot(log);
+        long nanos = System.nanoTime() - start;
+        metrics().recordStep(1L << log, nanos,
+            allocated < 0 ? -1 : Metrics.allocatedBytes() - allocated);
+        reached += 1L << log;
+        commitGeneration(event, reached, 1L << log);
+      }
+    }
+    addGenerations(steps);
+  }
+
+  @Override
+  protected void step() {
+    advanceRoot(0);
+  }
+
+  @Override
+  public boolean isCellAlive(int col, int row) {
+    checkBounds(col, row);
+    long half = 1L << (root.level - 1);
+    return getCell(root, col + half, row + half);
+  }
+
+  @Override
+  public void setCellAlive(int col, int row) {
+    checkBounds(col, row);
+    setFieldCell(col, row, true);
+    modified();
+  }
+
+  @Override
+  public void setCellDead(int col, int row) {
+    checkBounds(col, row);
+    setFieldCell(col, row, false);
+    modified();
+  }
+
+  /**
+   * Passes every living cell of a node that is located on the field to the given visitor.
+   *
+   * @param node    the node
+   * @param left    x-position of the top left corner of the node on the plane
+   * @param top     y-position of the top left corner of the node on the plane
+   * @param visitor the visitor receiving the cells
+   */
+  private void visitField(Node node, long left, long top, CellVisitor visitor) {
+    long size = 1L << node.level;
+    if (node.population == 0 || left >= getColumns() || top >= getRows() || left + size <= 0
+        || top + size <= 0) {
+      return;
+    }
+    if (node.level == 0) {
+      visitor.visit((int) left, (int) top);
+      return;
+    }
+    long half = size >>> 1;
+    visitField(node.nw, left, top, visitor);
+    visitField(node.ne, left + half, top, visitor);
+    visitField(node.sw, left, top + half, visitor);
+    visitField(node.se, left + half, top + half, visitor);
+  }
+
+  @Override
+  public void forEachAlive(CellVisitor visitor) {
+    long half = 1L << (root.level - 1);
+    visitField(root, -half, -half, visitor);
+  }
+
+  @Override
+  public LongStream getPopulationKeys() {
+    long half = 1L << (root.level - 1);
+    return keyStream(new FieldKeys(root, -half, -half));
+  }
+
+  /**
+   * Counts the living cells of a node that are located on the field. Nodes lying completely on the
+   * field are not descended into, their population is known.
+   *
+   * @param node the node
+   * @param left x-position of the top left corner of the node on the plane
+   * @param top  y-position of the top left corner of the node on the plane
+   * @return the number of living cells on the field
+   */
+  private long countField(Node node, long left, long top) {
+    long size = 1L << node.level;
+    if (node.population == 0 || left >= getColumns() || top >= getRows() || left + size <= 0
+        || top + size <= 0) {
+      return 0;
+    }
+    if (left >= 0 && top >= 0 && left + size <= getColumns() && top + size <= getRows()) {
+      return node.population;
+    }
+    long half = size >>> 1;
+    return countField(node.nw, left, top) + countField(node.ne, left + half, top)
+        + countField(node.sw, left, top + half) + countField(node.se, left + half, top + half);
+  }
+
+  @Override
+  public long getPopulationCount() {
+    long half = 1L << (root.level - 1);
+    return countField(root, -half, -half);
+  }
+
+  /**
+   * The root is centered on the top left corner of the field, so the nodes of the tile level are
+   * aligned with the tiles and their population is the count of the tile. Walls are never alive.
+   */
+  @Override
+  void forEachTile(int col, int row, int width, int height, TileCounts.TileVisitor visitor) {
+    long half = 1L << (root.level - 1);
+    if (root.level <= TileCounts.TILE_SHIFT) {
+      // the whole field lies in the first tile
+      long count = countField(root, -half, -half);
+      if (count != 0) {
+        visitor.visit(0, 0, (int) count);
+      }
+      return;
+    }
+    visitTiles(root, -half, -half, col, row, width, height, visitor);
+  }
+
+  /**
+   * Passes the non-empty tiles of a node that intersect an area to the given visitor.
+   *
+   * @param node    the node, at least of the tile level
+   * @param left    x-position of the top left corner of the node on the plane
+   * @param top     y-position of the top left corner of the node on the plane
+   * @param col     x-position of the top left corner of the area
+   * @param row     y-position of the top left corner of the area
+   * @param width   width of the area
+   * @param height  height of the area
+   * @param visitor the visitor receiving the tiles
+   */
+  private void visitTiles(Node node, long left, long top, int col, int row, int width, int height,
+      TileCounts.TileVisitor visitor) {
+    long size = 1L << node.level;
+    if (node.population == 0 || left >= (long) col + width || top >= (long) row + height
+        || left + size <= col || top + size <= row) {
+      return;
+    }
+    if (node.level == TileCounts.TILE_SHIFT) {
+      visitor.visit((int) (left >> TileCounts.TILE_SHIFT), (int) (top >> TileCounts.TILE_SHIFT),
+          (int) node.population);
+      return;
+    }
+    long half = size >>> 1;
+    visitTiles(node.nw, left, top, col, row, width, height, visitor);
+    visitTiles(node.ne, left + half, top, col, row, width, height, visitor);
+    visitTiles(node.sw, left, top + half, col, row, width, height, visitor);
+    visitTiles(node.se, left + half, top + half, col, row, width, height, visitor);
+  }
+
+  @Override
+  protected void resizeField(int newCols, int newRows) {
+    Node oldRoot = root;
+    long half = 1L << (oldRoot.level - 1);
+    root = fieldRoot();
+    visitField(oldRoot, -half, -half, (col, row) -> setFieldCell(col, row, true));
+    if (tableSize > maxNodes) {
+      collectGarbage();
+    }
+  }
+
+  @Override
+  public Collection<Cell> getPopulation() {
+    Set<Cell> cells = new HashSet<>();
+    forEachAlive((col, row) -> cells.add(new Cell(col, row)));
+    return cells;
+  }
+
+  @Override
+  protected void clearField() {
+    root = fieldRoot();
+    collectGarbage();
+  }
+
+  /**
+   * The memoized results were computed with the old rule, so all of them are discarded.
+   */
+  @Override
+  protected void ruleChanged() {
+    collectGarbage();
+  }
+
+  /**
+   * The fingerprint of the field is the hash of the root node. Since nodes are canonical and the
+   * level of the root only depends on the size of the field, equal fields have equal roots.
+   */
+  @Override
+  protected long fingerprint() {
+    return root.hash;
+  }
+
+  /**
+   * Iterates over the keys of the living cells on the field, in the order of
+   * {@link #visitField}. The nodes still to be visited are kept on an explicit stack.
+   */
+  private final class FieldKeys implements PrimitiveIterator.OfLong {
+
+    // every level pushes at most three siblings besides the node descended into
+    private static final int STACK_SIZE = 4 * Long.SIZE;
+
+    private final Node[] nodes = new Node[STACK_SIZE];
+    private final long[] lefts = new long[STACK_SIZE];
+    private final long[] tops = new long[STACK_SIZE];
+    private int size;
+
+    /**
+     * Create an iterator over the cells of a node.
+     *
+     * @param node the node
+     * @param left x-position of the top left corner of the node on the plane
+     * @param top  y-position of the top left corner of the node on the plane
+     */
+    FieldKeys(Node node, long left, long top) {
+      push(node, left, top);
+      descend();
+    }
+
+    /**
+     * Pushes a node onto the stack, unless it has no living cells on the field.
+     *
+     * @param node the node
+     * @param left x-position of the top left corner of the node on the plane
+     * @param top  y-position of the top left corner of the node on the plane
+     */
+    private void push(Node node, long left, long top) {
+      long extent = 1L << node.level;
+      if (node.population != 0 && left < getColumns() && top < getRows() && left + extent > 0
+          && top + extent > 0) {
+        nodes[size] = node;
+        lefts[size] = left;
+        tops[size] = top;
+        size++;
+      }
+    }
+
+    /**
+     * Replaces the topmost node by its quadrants until a living cell is on top of the stack.
+     */
+    private void descend() {
+      while (size > 0 && nodes[size - 1].level > 0) {
+        size--;
+        Node node = nodes[size];
+        long left = lefts[size];
+        long top = tops[size];
+        long half = 1L << (node.level - 1);
+        push(node.se, left + half, top + half);
+        push(node.sw, left, top + half);
+        push(node.ne, left + half, top);
+        push(node.nw, left, top);
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return size > 0;
+    }
+
+    @Override
+    public long nextLong() {
+      if (size == 0) {
+        throw new NoSuchElementException();
+      }
+      size--;
+      long key = Cell.key((int) lefts[size], (int) tops[size]);
+      descend();
+      return key;
+    }
+  }
+
+  /**
+   * A canonical square of 2^level x 2^level cells. Leaves have level 0.
+   */
+  private static final class Node {
+
+    private final int level;
+    private final Node nw;
+    private final Node ne;
+    private final Node sw;
+    private final Node se;
+    private final long population;
+    private final boolean walled;
+    private final long hash;
+
+    private Node chain;
+    private int mark;
+
+    // memoized center after 2^(level - 2) generations
+    private Node result;
+
+    // memoized center after 2^stepLog generations for smaller steps
+    private Node stepResult;
+    private int stepLog;
+
+    Node(int level, Node nw, Node ne, Node sw, Node se, long population, boolean walled,
+        long hash) {
+      this.level = level;
+      this.nw = nw;
+      this.ne = ne;
+      this.sw = sw;
+      this.se = se;
+      this.population = population;
+      this.walled = walled;
+      this.hash = hash;
+    }
+  }
+}
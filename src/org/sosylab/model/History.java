@@ -0,0 +1,329 @@
+package org.sosylab.model;
+
+import java.util.Arrays;
+
+/**
+ * Bounded history of the generations of a game. Every recorded generation is stored as a delta to
+ * the previously recorded one, i.e. the cells born and the cells died as sorted packed
+ * coordinates. Every few generations a keyframe additionally stores the whole population. A
+ * generation is rebuilt from the nearest keyframe by applying the deltas forwards or undoing them
+ * backwards, so the memory of the history grows with the activity of the game and not with the
+ * size of the field.
+ *
+ * <p>When the history is full, the oldest keyframe is dropped together with its deltas.
+ */
+public final class History {
+
+  // Largest number of deltas between two keyframes
+  private static final int MAX_KEYFRAME_INTERVAL = 64;
+
+  private static final long[] NO_CELLS = new long[0];
+
+  private final Frame[] frames;
+  private final int keyframeInterval;
+  private int head;
+  private int size;
+  private int sinceKeyframe;
+
+  // Population of the newest frame
+  private long[] current = NO_CELLS;
+  private long[] scratch = new long[16];
+  private int scratchSize;
+
+  /**
+   * Create an empty history.
+   *
+   * @param capacity the number of generations to retain
+   * @throws IllegalArgumentException if the capacity is not positive
+   */
+  public History(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Capacity of the history must be positive");
+    }
+    this.frames = new Frame[capacity];
+    // at least three quarters of the capacity stay available after dropping a keyframe
+    this.keyframeInterval = Math.max(1, Math.min(MAX_KEYFRAME_INTERVAL, capacity / 4));
+  }
+
+  /**
+   * Gets the frame at the given position, counted from the oldest frame.
+   *
+   * @param index the position
+   * @return the frame
+   */
+  private Frame frame(int index) {
+    return frames[(head + index) % frames.length];
+  }
+
+  /**
+   * Records the current state of a game as the state of its generation. Recorded states of the
+   * same or of later generations are discarded, e.g. because the game was edited or restored.
+   *
+   * @param grid the game
+   */
+  public void record(Grid grid) {
+    long generation = grid.getGenerations();
+    while (size > 0 && frame(size - 1).generation >= generation) {
+      Frame newest = frame(size - 1);
+      current = apply(current, newest.births, newest.deaths);
+      frames[(head + size - 1) % frames.length] = null;
+      size--;
+    }
+    sinceKeyframe = 0;
+    while (sinceKeyframe < size && frame(size - 1 - sinceKeyframe).keyframe == null) {
+      sinceKeyframe++;
+    }
+    if (size == frames.length) {
+      dropOldestKeyframe();
+    }
+
+    long[] population = collect(grid);
+    boolean keyframe = size == 0 || sinceKeyframe >= keyframeInterval - 1;
+    frames[(head + size) % frames.length] = new Frame(generation, grid.getColumns(),
+        grid.getRows(), difference(population, current), difference(current, population),
+        keyframe ? population : null);
+    size++;
+    current = population;
+    sinceKeyframe = keyframe ? 0 : sinceKeyframe + 1;
+  }
+
+  /**
+   * Removes the oldest keyframe together with its deltas.
+   */
+  private void dropOldestKeyframe() {
+    do {
+      frames[head] = null;
+      head = (head + 1) % frames.length;
+      size--;
+    } while (size > 0 && frame(0).keyframe == null);
+  }
+
+  /**
+   * Collects the living cells of a game as sorted keys.
+   *
+   * @param grid the game
+   * @return the keys
+   */
+  private long[] collect(Grid grid) {
+    scratchSize = 0;
+    grid.forEachAlive((col, row) -> addScratch(Cell.key(col, row)));
+    Arrays.sort(scratch, 0, scratchSize);
+    return Arrays.copyOf(scratch, scratchSize);
+  }
+
+  /**
+   * Appends a key to the scratch buffer.
+   *
+   * @param key the key
+   */
+  private void addScratch(long key) {
+    if (scratchSize == scratch.length) {
+      scratch = Arrays.copyOf(scratch, 2 * scratchSize);
+    }
+    scratch[scratchSize++] = key;
+  }
+
+  /**
+   * Computes the keys contained in the first but not in the second set.
+   *
+   * @param keys    sorted keys
+   * @param removed sorted keys to be removed
+   * @return the sorted difference
+   */
+  private static long[] difference(long[] keys, long[] removed) {
+    long[] result = new long[keys.length];
+    int count = 0;
+    int j = 0;
+    for (long key : keys) {
+      while (j < removed.length && removed[j] < key) {
+        j++;
+      }
+      if (j == removed.length || removed[j] != key) {
+        result[count++] = key;
+      }
+    }
+    return count == 0 ? NO_CELLS : Arrays.copyOf(result, count);
+  }
+
+  /**
+   * Applies a delta to a population.
+   *
+   * @param keys    sorted keys of the population
+   * @param removed sorted keys of the died cells, all contained in the population
+   * @param added   sorted keys of the born cells, none contained in the population
+   * @return the sorted keys of the new population
+   */
+  private static long[] apply(long[] keys, long[] removed, long[] added) {
+    long[] remaining = difference(keys, removed);
+    long[] result = new long[remaining.length + added.length];
+    int i = 0;
+    int j = 0;
+    int count = 0;
+    while (i < remaining.length || j < added.length) {
+      if (j == added.length || i < remaining.length && remaining[i] < added[j]) {
+        result[count++] = remaining[i++];
+      } else {
+        result[count++] = added[j++];
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Finds the frame of a generation.
+   *
+   * @param generation the generation
+   * @return the position of the frame or -1 if the generation is not retained
+   */
+  private int find(long generation) {
+    int low = 0;
+    int high = size - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      long found = frame(middle).generation;
+      if (found < generation) {
+        low = middle + 1;
+      } else if (found > generation) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Checks whether the state of a generation is retained.
+   *
+   * @param generation the generation
+   * @return <code>true</code> if the state can be restored
+   */
+  public boolean contains(long generation) {
+    return find(generation) >= 0;
+  }
+
+  /**
+   * Get the oldest retained generation.
+   *
+   * @return the generation or -1 if the history is empty
+   */
+  public long getOldestGeneration() {
+    return size == 0 ? -1 : frame(0).generation;
+  }
+
+  /**
+   * Get the newest retained generation.
+   *
+   * @return the generation or -1 if the history is empty
+   */
+  public long getNewestGeneration() {
+    return size == 0 ? -1 : frame(size - 1).generation;
+  }
+
+  /**
+   * Get the number of retained generations.
+   *
+   * @return the number of generations
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Restores the state of a retained generation, including the dimensions of the field at that
+   * time. The newer generations stay retained until the next state is recorded.
+   *
+   * @param generation the generation
+   * @param grid       the game
+   * @throws IllegalArgumentException if the generation is not retained
+   */
+  public void restore(long generation, Grid grid) {
+    int index = find(generation);
+    if (index < 0) {
+      throw new IllegalArgumentException("Generation " + generation + " is not in the history");
+    }
+    long[] population = rebuild(index);
+    Frame frame = frame(index);
+
+    grid.resize(frame.columns, frame.rows);
+    grid.clear();
+    for (long key : population) {
+      grid.setCellAlive(Cell.columnOf(key), Cell.rowOf(key));
+    }
+    grid.setGenerations(generation);
+  }
+
+  /**
+   * Rebuilds the population of a frame from the nearest keyframe or from the newest frame.
+   *
+   * @param index the position of the frame
+   * @return the sorted keys of the population
+   */
+  private long[] rebuild(int index) {
+    int before = index;
+    while (frame(before).keyframe == null) {
+      before--;
+    }
+    int after = index;
+    while (after < size - 1 && frame(after).keyframe == null) {
+      after++;
+    }
+
+    if (index - before <= after - index) {
+      long[] population = frame(before).keyframe;
+      for (int i = before + 1; i <= index; i++) {
+        population = apply(population, frame(i).deaths, frame(i).births);
+      }
+      return population;
+    }
+    long[] population = frame(after).keyframe != null ? frame(after).keyframe : current;
+    for (int i = after; i > index; i--) {
+      population = apply(population, frame(i).births, frame(i).deaths);
+    }
+    return population;
+  }
+
+  /**
+   * Discards all retained generations.
+   */
+  public void clear() {
+    Arrays.fill(frames, null);
+    head = 0;
+    size = 0;
+    sinceKeyframe = 0;
+    current = NO_CELLS;
+  }
+
+  /**
+   * The recorded state of a generation.
+   */
+  private static final class Frame {
+
+    private final long generation;
+    private final int columns;
+    private final int rows;
+    private final long[] births;
+    private final long[] deaths;
+    private final long[] keyframe;
+
+    /**
+     * Create a frame.
+     *
+     * @param generation the generation
+     * @param columns    the number of columns of the field
+     * @param rows       the number of rows of the field
+     * @param births     the cells alive in this but not in the previous frame
+     * @param deaths     the cells alive in the previous but not in this frame
+     * @param keyframe   the whole population or <code>null</code> if this is no keyframe
+     */
+    Frame(long generation, int columns, int rows, long[] births, long[] deaths,
+        long[] keyframe) {
+      this.generation = generation;
+      this.columns = columns;
+      this.rows = rows;
+      this.births = births;
+      this.deaths = deaths;
+      this.keyframe = keyframe;
+    }
+  }
+}
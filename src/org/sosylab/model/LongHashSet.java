@@ -0,0 +1,243 @@
+package org.sosylab.model;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+
+/**
+ * A set of primitive <code>long</code> values using open addressing with linear probing. In
+ * contrast to a <code>Set&lt;Long&gt;</code> it neither boxes its elements nor allocates an entry
+ * object per element.
+ *
+ * <p>Clearing and iterating cost time proportional to the capacity of the table. So that a set
+ * refilled over and over does not keep paying for the largest size it ever had, {@link #clear()}
+ * replaces a table that is much larger than the cleared contents by a smaller one.
+ */
+final class LongHashSet {
+
+  private static final int MIN_CAPACITY = 16;
+
+  // A table is replaced on clear when it has this many times the capacity its contents need
+  private static final int SHRINK_FACTOR = 8;
+
+  // Marks an empty slot, the key itself is tracked separately by containsEmptyKey
+  private static final long EMPTY = Long.MIN_VALUE;
+
+  private long[] keys;
+  private int mask;
+  private int shift;
+  private int size;
+  private boolean containsEmptyKey;
+
+  /**
+   * Create an empty set.
+   */
+  LongHashSet() {
+    allocate(MIN_CAPACITY);
+  }
+
+  /**
+   * Replaces the table by an empty table of the given capacity.
+   *
+   * @param capacity the new capacity, a power of two
+   */
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    Arrays.fill(keys, EMPTY);
+    mask = capacity - 1;
+    shift = Long.numberOfLeadingZeros(capacity - 1L);
+  }
+
+  /**
+   * Get the preferred slot of a key.
+   *
+   * @param key the key
+   * @return index of the slot to start probing at
+   */
+  private int slot(long key) {
+    return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+  }
+
+  /**
+   * Adds a value to the set.
+   *
+   * @param key the value to add
+   * @return <code>true</code> if the value was not contained before
+   */
+  boolean add(long key) {
+    if (key == EMPTY) {
+      if (containsEmptyKey) {
+        return false;
+      }
+      containsEmptyKey = true;
+      size++;
+      return true;
+    }
+    int index = slot(key);
+    while (keys[index] != EMPTY) {
+      if (keys[index] == key) {
+        return false;
+      }
+      index = (index + 1) & mask;
+    }
+    keys[index] = key;
+    size++;
+    if (2 * size > keys.length) {
+      rehash(2 * keys.length);
+    }
+    return true;
+  }
+
+  /**
+   * Checks whether a value is contained in the set.
+   *
+   * @param key the value to look up
+   * @return <code>true</code> if the value is contained
+   */
+  boolean contains(long key) {
+    if (key == EMPTY) {
+      return containsEmptyKey;
+    }
+    int index = slot(key);
+    while (keys[index] != EMPTY) {
+      if (keys[index] == key) {
+        return true;
+      }
+      index = (index + 1) & mask;
+    }
+    return false;
+  }
+
+  /**
+   * Removes a value from the set.
+   *
+   * @param key the value to remove
+   * @return <code>true</code> if the value was contained before
+   */
+  boolean remove(long key) {
+    if (key == EMPTY) {
+      if (!containsEmptyKey) {
+        return false;
+      }
+      containsEmptyKey = false;
+      size--;
+      return true;
+    }
+    int index = slot(key);
+    while (keys[index] != key) {
+      if (keys[index] == EMPTY) {
+        return false;
+      }
+      index = (index + 1) & mask;
+    }
+    closeGap(index);
+    size--;
+    return true;
+  }
+
+  /**
+   * Empties a slot and moves following keys of the same probe sequence back into the gap, so
+   * that no lookup has to skip over deleted slots.
+   *
+   * @param gap index of the slot to empty
+   */
+  private void closeGap(int gap) {
+    int index = gap;
+    while (true) {
+      index = (index + 1) & mask;
+      long key = keys[index];
+      if (key == EMPTY) {
+        break;
+      }
+      int preferred = slot(key);
+      // the key may move into the gap if its preferred slot is not between gap and index
+      if (((index - preferred) & mask) >= ((index - gap) & mask)) {
+        keys[gap] = key;
+        gap = index;
+      }
+    }
+    keys[gap] = EMPTY;
+  }
+
+  /**
+   * Moves all keys into a table of the given capacity.
+   *
+   * @param capacity the new capacity, a power of two
+   */
+  private void rehash(int capacity) {
+    long[] oldKeys = keys;
+    allocate(capacity);
+    for (long key : oldKeys) {
+      if (key != EMPTY) {
+        int index = slot(key);
+        while (keys[index] != EMPTY) {
+          index = (index + 1) & mask;
+        }
+        keys[index] = key;
+      }
+    }
+  }
+
+  /**
+   * Get the number of slots of the table, which bounds the cost of clearing and iterating.
+   *
+   * @return the capacity
+   */
+  int capacity() {
+    return keys.length;
+  }
+
+  /**
+   * Get the number of values in the set.
+   *
+   * @return the size of the set
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Removes all values. The allocated table is kept for reuse, unless it is much larger than the
+   * removed values need, in which case a table fitting them is allocated.
+   */
+  void clear() {
+    int needed = Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(size, 1)) * 4);
+    if (keys.length >= SHRINK_FACTOR * needed) {
+      allocate(needed);
+    } else if (size > 0) {
+      Arrays.fill(keys, EMPTY);
+    }
+    containsEmptyKey = false;
+    size = 0;
+  }
+
+  /**
+   * Passes every value of the set to the given action. The set must not be modified meanwhile.
+   *
+   * @param action the action to perform for each value
+   */
+  void forEach(LongConsumer action) {
+    if (size == 0) {
+      return;
+    }
+    if (containsEmptyKey) {
+      action.accept(EMPTY);
+    }
+    for (long key : keys) {
+      if (key != EMPTY) {
+        action.accept(key);
+      }
+    }
+  }
+
+  /**
+   * Streams the values of the set straight from the table. The set must not be modified until the
+   * stream is consumed.
+   *
+   * @return the values
+   */
+  LongStream stream() {
+    LongStream stored = Arrays.stream(keys).filter(key -> key != EMPTY);
+    return containsEmptyKey ? LongStream.concat(LongStream.of(EMPTY), stored) : stored;
+  }
+}
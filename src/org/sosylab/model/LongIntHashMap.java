@@ -0,0 +1,222 @@
+package org.sosylab.model;
+
+import java.util.Arrays;
+
+/**
+ * A map from primitive <code>long</code> keys to <code>int</code> counters using open addressing
+ * with linear probing. It is meant for counting, so every key that was never incremented maps to
+ * zero, and neither keys nor values get boxed.
+ */
+final class LongIntHashMap {
+
+  private static final int MIN_CAPACITY = 16;
+
+  // Marks an empty slot, the key itself is tracked separately by emptyKeyValue
+  private static final long EMPTY = Long.MIN_VALUE;
+
+  private long[] keys;
+  private int[] values;
+  private int mask;
+  private int shift;
+  private int size;
+  private boolean containsEmptyKey;
+  private int emptyKeyValue;
+
+  /**
+   * Create an empty map.
+   */
+  LongIntHashMap() {
+    allocate(MIN_CAPACITY);
+  }
+
+  /**
+   * Replaces the table by an empty table of the given capacity.
+   *
+   * @param capacity the new capacity, a power of two
+   */
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    values = new int[capacity];
+    Arrays.fill(keys, EMPTY);
+    mask = capacity - 1;
+    shift = Long.numberOfLeadingZeros(capacity - 1L);
+  }
+
+  /**
+   * Get the preferred slot of a key.
+   *
+   * @param key the key
+   * @return index of the slot to start probing at
+   */
+  private int slot(long key) {
+    return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+  }
+
+  /**
+   * Increments the counter of a key by one.
+   *
+   * @param key the key whose counter is incremented
+   */
+  void increment(long key) {
+    if (key == EMPTY) {
+      if (!containsEmptyKey) {
+        containsEmptyKey = true;
+        size++;
+      }
+      emptyKeyValue++;
+      return;
+    }
+    int index = slot(key);
+    while (keys[index] != EMPTY) {
+      if (keys[index] == key) {
+        values[index]++;
+        return;
+      }
+      index = (index + 1) & mask;
+    }
+    keys[index] = key;
+    values[index] = 1;
+    size++;
+    if (2 * size > keys.length) {
+      rehash(2 * keys.length);
+    }
+  }
+
+  /**
+   * Decrements the counter of a key by one. A key whose counter drops to zero is removed, so that
+   * the map only holds the keys that are counted at the moment.
+   *
+   * @param key the key whose counter is decremented, it must have a positive counter
+   */
+  void decrement(long key) {
+    if (key == EMPTY) {
+      if (--emptyKeyValue == 0) {
+        containsEmptyKey = false;
+        size--;
+      }
+      return;
+    }
+    int index = slot(key);
+    while (keys[index] != key) {
+      index = (index + 1) & mask;
+    }
+    if (--values[index] == 0) {
+      closeGap(index);
+      size--;
+    }
+  }
+
+  /**
+   * Empties a slot and moves following entries of the same probe sequence back, so that no
+   * tombstones are needed.
+   *
+   * @param gap index of the slot to be emptied
+   */
+  private void closeGap(int gap) {
+    int index = (gap + 1) & mask;
+    while (keys[index] != EMPTY) {
+      int preferred = slot(keys[index]);
+      // the entry may fill the gap unless its preferred slot lies cyclically in (gap, index]
+      if (((index - preferred) & mask) >= ((index - gap) & mask)) {
+        keys[gap] = keys[index];
+        values[gap] = values[index];
+        gap = index;
+      }
+      index = (index + 1) & mask;
+    }
+    keys[gap] = EMPTY;
+  }
+
+  /**
+   * Get the counter of a key.
+   *
+   * @param key the key to look up
+   * @return the counter, zero if the key was never incremented
+   */
+  int get(long key) {
+    if (key == EMPTY) {
+      return emptyKeyValue;
+    }
+    int index = slot(key);
+    while (keys[index] != EMPTY) {
+      if (keys[index] == key) {
+        return values[index];
+      }
+      index = (index + 1) & mask;
+    }
+    return 0;
+  }
+
+  /**
+   * Moves all entries into a table of the given capacity.
+   *
+   * @param capacity the new capacity, a power of two
+   */
+  private void rehash(int capacity) {
+    long[] oldKeys = keys;
+    int[] oldValues = values;
+    allocate(capacity);
+    for (int i = 0; i < oldKeys.length; i++) {
+      long key = oldKeys[i];
+      if (key != EMPTY) {
+        int index = slot(key);
+        while (keys[index] != EMPTY) {
+          index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = oldValues[i];
+      }
+    }
+  }
+
+  /**
+   * Get the number of keys with a counter.
+   *
+   * @return the size of the map
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Removes all entries but keeps the allocated table for reuse.
+   */
+  void clear() {
+    if (size > 0) {
+      Arrays.fill(keys, EMPTY);
+      containsEmptyKey = false;
+      emptyKeyValue = 0;
+      size = 0;
+    }
+  }
+
+  /**
+   * Passes every entry of the map to the given visitor. The map must not be modified meanwhile.
+   *
+   * @param visitor the visitor to call for each entry
+   */
+  void forEach(EntryVisitor visitor) {
+    if (containsEmptyKey) {
+      visitor.visit(EMPTY, emptyKeyValue);
+    }
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] != EMPTY) {
+        visitor.visit(keys[i], values[i]);
+      }
+    }
+  }
+
+  /**
+   * Receives the entries of a {@link LongIntHashMap}.
+   */
+  interface EntryVisitor {
+
+    /**
+     * Visits one entry.
+     *
+     * @param key   the key of the entry
+     * @param value the counter of the entry
+     */
+    void visit(long key, int value);
+  }
+}
@@ -0,0 +1,252 @@
+package org.sosylab.model;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * A map from pairs of primitive <code>long</code> keys to <code>int</code> values using open
+ * addressing with linear probing. Every pair of <code>long</code> values is a valid key, so the
+ * coordinates of cells in an unbounded universe can be stored without packing. A value of zero is
+ * never stored, it marks an empty slot, so every key without an entry maps to zero.
+ */
+final class LongPairIntHashMap {
+
+  private static final int MIN_CAPACITY = 16;
+
+  private long[] firstKeys;
+  private long[] secondKeys;
+  private int[] values;
+  private int mask;
+  private int shift;
+  private int size;
+
+  /**
+   * Create an empty map.
+   */
+  LongPairIntHashMap() {
+    allocate(MIN_CAPACITY);
+  }
+
+  /**
+   * Replaces the table by an empty table of the given capacity.
+   *
+   * @param capacity the new capacity, a power of two
+   */
+  private void allocate(int capacity) {
+    firstKeys = new long[capacity];
+    secondKeys = new long[capacity];
+    values = new int[capacity];
+    mask = capacity - 1;
+    shift = Long.numberOfLeadingZeros(capacity - 1L);
+  }
+
+  /**
+   * Get the preferred slot of a key.
+   *
+   * @param first  the first part of the key
+   * @param second the second part of the key
+   * @return index of the slot to start probing at
+   */
+  private int slot(long first, long second) {
+    long hash = (first * 0x9E3779B97F4A7C15L + second) * 0xC2B2AE3D27D4EB4FL;
+    return (int) ((hash ^ (hash >>> 29)) * 0x9E3779B97F4A7C15L >>> shift);
+  }
+
+  /**
+   * Finds the slot holding a key or the empty slot where it would be inserted.
+   *
+   * @param first  the first part of the key
+   * @param second the second part of the key
+   * @return index of the slot
+   */
+  private int find(long first, long second) {
+    int index = slot(first, second);
+    while (values[index] != 0
+        && (firstKeys[index] != first || secondKeys[index] != second)) {
+      index = (index + 1) & mask;
+    }
+    return index;
+  }
+
+  /**
+   * Get the value of a key.
+   *
+   * @param first  the first part of the key
+   * @param second the second part of the key
+   * @return the value, zero if the key has no entry
+   */
+  int get(long first, long second) {
+    return values[find(first, second)];
+  }
+
+  /**
+   * Sets the value of a key. Setting zero removes the entry.
+   *
+   * @param first  the first part of the key
+   * @param second the second part of the key
+   * @param value  the new value
+   * @return the previous value, zero if the key had no entry
+   */
+  int put(long first, long second, int value) {
+    int index = find(first, second);
+    int previous = values[index];
+    if (value == 0) {
+      if (previous != 0) {
+        closeGap(index);
+        size--;
+      }
+      return previous;
+    }
+    values[index] = value;
+    if (previous == 0) {
+      firstKeys[index] = first;
+      secondKeys[index] = second;
+      size++;
+      if (2 * size > values.length) {
+        rehash(2 * values.length);
+      }
+    }
+    return previous;
+  }
+
+  /**
+   * Increments the value of a key by one.
+   *
+   * @param first  the first part of the key
+   * @param second the second part of the key
+   */
+  void increment(long first, long second) {
+    int index = find(first, second);
+    if (values[index] != 0) {
+      values[index]++;
+      return;
+    }
+    firstKeys[index] = first;
+    secondKeys[index] = second;
+    values[index] = 1;
+    size++;
+    if (2 * size > values.length) {
+      rehash(2 * values.length);
+    }
+  }
+
+  /**
+   * Empties a slot and moves following entries of the same probe sequence back, so that no
+   * tombstones are needed.
+   *
+   * @param gap index of the slot to be emptied
+   */
+  private void closeGap(int gap) {
+    int index = (gap + 1) & mask;
+    while (values[index] != 0) {
+      int preferred = slot(firstKeys[index], secondKeys[index]);
+      // the entry may fill the gap unless its preferred slot lies cyclically in (gap, index]
+      if (((index - preferred) & mask) >= ((index - gap) & mask)) {
+        firstKeys[gap] = firstKeys[index];
+        secondKeys[gap] = secondKeys[index];
+        values[gap] = values[index];
+        gap = index;
+      }
+      index = (index + 1) & mask;
+    }
+    values[gap] = 0;
+  }
+
+  /**
+   * Moves all entries into a table of the given capacity.
+   *
+   * @param capacity the new capacity, a power of two
+   */
+  private void rehash(int capacity) {
+    long[] oldFirstKeys = firstKeys;
+    long[] oldSecondKeys = secondKeys;
+    int[] oldValues = values;
+    allocate(capacity);
+    for (int i = 0; i < oldValues.length; i++) {
+      if (oldValues[i] != 0) {
+        int index = find(oldFirstKeys[i], oldSecondKeys[i]);
+        firstKeys[index] = oldFirstKeys[i];
+        secondKeys[index] = oldSecondKeys[i];
+        values[index] = oldValues[i];
+      }
+    }
+  }
+
+  /**
+   * Get the number of keys with an entry.
+   *
+   * @return the size of the map
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Removes all entries but keeps the allocated table for reuse.
+   */
+  void clear() {
+    if (size > 0) {
+      Arrays.fill(values, 0);
+      size = 0;
+    }
+  }
+
+  /**
+   * Passes every entry of the map to the given visitor. The map must not be modified meanwhile.
+   *
+   * @param visitor the visitor to call for each entry
+   */
+  void forEach(EntryVisitor visitor) {
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] != 0) {
+        visitor.visit(firstKeys[i], secondKeys[i], values[i]);
+      }
+    }
+  }
+
+  /**
+   * Streams the slots holding an entry straight from the table, see {@link #firstKey(int)} and
+   * {@link #secondKey(int)}. The map must not be modified until the stream is consumed.
+   *
+   * @return the indices of the slots
+   */
+  IntStream slots() {
+    int[] table = values;
+    return IntStream.range(0, table.length).filter(slot -> table[slot] != 0);
+  }
+
+  /**
+   * Get the first part of the key stored in a slot.
+   *
+   * @param slot the index of a slot holding an entry
+   * @return the first part of the key
+   */
+  long firstKey(int slot) {
+    return firstKeys[slot];
+  }
+
+  /**
+   * Get the second part of the key stored in a slot.
+   *
+   * @param slot the index of a slot holding an entry
+   * @return the second part of the key
+   */
+  long secondKey(int slot) {
+    return secondKeys[slot];
+  }
+
+  /**
+   * Receives the entries of a {@link LongPairIntHashMap}.
+   */
+  interface EntryVisitor {
+
+    /**
+     * Visits one entry.
+     *
+     * @param first  the first part of the key
+     * @param second the second part of the key
+     * @param value  the value of the entry
+     */
+    void visit(long first, long second, int value);
+  }
+}
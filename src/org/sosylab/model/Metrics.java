@@ -0,0 +1,233 @@
+package org.sosylab.model;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records the cost of the generations computed by an engine in primitive accumulators. The
+ * durations of the most recent steps are kept in a ring buffer from which the percentiles are
+ * computed when a {@link MetricsSnapshot} is taken, so recording a step costs a few additions.
+ *
+ * <p>Steps are recorded and the metrics are reset only by the thread computing the generations,
+ * snapshots may be taken by any thread. Recording takes no lock: the writer makes a version odd
+ * while it updates the accumulators and even again afterwards, and a snapshot reads the
+ * accumulators until it has seen the same even version before and after. The durations of the
+ * window are copied without this check, so the percentiles may include steps recorded while the
+ * snapshot is taken. Engines that know more about a step, e.g. the number of births, report it with
+ * {@link #recordDetails} before the step is recorded.
+ */
+final class Metrics {
+
+  // Number of recent steps whose durations are kept for the percentiles
+  private static final int WINDOW = 1024;
+
+  private static final com.sun.management.ThreadMXBean THREADS = allocationBean();
+
+  private static final VarHandle VERSION;
+
+  static {
+    try {
+      VERSION = MethodHandles.lookup().findVarHandle(Metrics.class, "version", long.class);
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  // Odd while the writer updates the accumulators
+  @SuppressWarnings("unused")
+  private long version;
+
+  private final AtomicLongArray durations = new AtomicLongArray(WINDOW);
+  private long steps;
+  private long generations;
+  private long totalNanos;
+  private long allocatedBytes;
+
+  private long detailedSteps;
+  private long neighborhoodNanos;
+  private long evaluationNanos;
+  private long evaluatedCells;
+  private long births;
+  private long deaths;
+  private long population = -1;
+
+  // Details of the current step, only accessed by the computing thread
+  private boolean pendingDetails;
+  private long pendingNeighborhoodNanos;
+  private long pendingEvaluationNanos;
+  private long pendingEvaluatedCells;
+  private long pendingBirths;
+  private long pendingDeaths;
+  private long pendingPopulation;
+
+  /**
+   * Get the bean measuring the allocations of threads, if the virtual machine supports it.
+   *
+   * @return the bean or <code>null</code>
+   */
+  private static com.sun.management.ThreadMXBean allocationBean() {
+    try {
+      java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+      if (bean instanceof com.sun.management.ThreadMXBean) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        if (threads.isThreadAllocatedMemorySupported()
+            && threads.isThreadAllocatedMemoryEnabled()) {
+          return threads;
+        }
+      }
+    } catch (LinkageError | UnsupportedOperationException e) {
+      // the module jdk.management is not available
+    }
+    return null;
+  }
+
+  /**
+   * Get the number of bytes allocated by the current thread so far.
+   *
+   * @return the number of bytes or -1 if the virtual machine does not measure allocations
+   */
+  static long allocatedBytes() {
+    return THREADS != null ? THREADS.getCurrentThreadAllocatedBytes() : -1;
+  }
+
+  /**
+   * Reports the details of the step being computed.
+   *
+   * @param neighborhoodNanos time spent finding the cells to evaluate
+   * @param evaluationNanos   time spent evaluating the cells
+   * @param evaluatedCells    number of evaluated cells
+   * @param births            number of born cells
+   * @param deaths            number of died cells
+   * @param population        number of living cells after the step
+   */
+  void recordDetails(long neighborhoodNanos, long evaluationNanos, long evaluatedCells,
+      long births, long deaths, long population) {
+    pendingDetails = true;
+    pendingNeighborhoodNanos = neighborhoodNanos;
+    pendingEvaluationNanos = evaluationNanos;
+    pendingEvaluatedCells = evaluatedCells;
+    pendingBirths = births;
+    pendingDeaths = deaths;
+    pendingPopulation = population;
+  }
+
+  /**
+   * Records a computed step together with the details reported for it.
+   *
+   * @param stepGenerations number of generations computed by the step
+   * @param nanos           duration of the step
+   * @param allocated       bytes allocated by the step, negative if unknown
+   */
+  void recordStep(long stepGenerations, long nanos, long allocated) {
+    beginWrite();
+    durations.setOpaque((int) (steps % WINDOW), nanos);
+    steps++;
+    generations += stepGenerations;
+    totalNanos += nanos;
+    if (allocated > 0) {
+      allocatedBytes += allocated;
+    }
+    if (pendingDetails) {
+      pendingDetails = false;
+      detailedSteps++;
+      neighborhoodNanos += pendingNeighborhoodNanos;
+      evaluationNanos += pendingEvaluationNanos;
+      evaluatedCells += pendingEvaluatedCells;
+      births += pendingBirths;
+      deaths += pendingDeaths;
+      population = pendingPopulation;
+    }
+    endWrite();
+  }
+
+  /**
+   * Marks the accumulators as being updated, so that snapshots taken meanwhile are retried.
+   */
+  private void beginWrite() {
+    VERSION.setOpaque(this, (long) VERSION.getOpaque(this) + 1);
+    VarHandle.storeStoreFence();
+  }
+
+  /**
+   * Publishes the updated accumulators.
+   */
+  private void endWrite() {
+    VERSION.setRelease(this, (long) VERSION.getOpaque(this) + 1);
+  }
+
+  /**
+   * Forgets all recorded steps.
+   */
+  void reset() {
+    beginWrite();
+    steps = 0;
+    generations = 0;
+    totalNanos = 0;
+    allocatedBytes = 0;
+    detailedSteps = 0;
+    neighborhoodNanos = 0;
+    evaluationNanos = 0;
+    evaluatedCells = 0;
+    births = 0;
+    deaths = 0;
+    population = -1;
+    endWrite();
+  }
+
+  /**
+   * Takes a snapshot of the recorded steps without blocking the writer. The accumulators are
+   * consistent with each other.
+   *
+   * @return the snapshot
+   */
+  MetricsSnapshot snapshot() {
+    while (true) {
+      long before = (long) VERSION.getAcquire(this);
+      long steps = this.steps;
+      long generations = this.generations;
+      long totalNanos = this.totalNanos;
+      long allocatedBytes = this.allocatedBytes;
+      long detailedSteps = this.detailedSteps;
+      long neighborhoodNanos = this.neighborhoodNanos;
+      long evaluationNanos = this.evaluationNanos;
+      long evaluatedCells = this.evaluatedCells;
+      long births = this.births;
+      long deaths = this.deaths;
+      long population = this.population;
+      VarHandle.loadLoadFence();
+      if ((before & 1) != 0 || (long) VERSION.getOpaque(this) != before) {
+        Thread.onSpinWait();
+        continue;
+      }
+
+      int window = (int) Math.min(steps, WINDOW);
+      long[] sorted = new long[window];
+      for (int i = 0; i < window; i++) {
+        sorted[i] = durations.getOpaque(i);
+      }
+      Arrays.sort(sorted);
+      return new MetricsSnapshot(steps, generations, totalNanos, percentile(sorted, 50),
+          percentile(sorted, 90), percentile(sorted, 99), window == 0 ? 0 : sorted[window - 1],
+          THREADS != null ? allocatedBytes : -1, detailedSteps, neighborhoodNanos,
+          evaluationNanos, evaluatedCells, births, deaths, population);
+    }
+  }
+
+  /**
+   * Gets a percentile of sorted durations by the nearest-rank method.
+   *
+   * @param sorted  the sorted durations
+   * @param percent the percentile
+   * @return the duration or 0 if there are no durations
+   */
+  private static long percentile(long[] sorted, int percent) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+    return sorted[Math.max(rank, 1) - 1];
+  }
+}
@@ -0,0 +1,204 @@
+package org.sosylab.model;
+
+/**
+ * The metrics of the generations computed by a game, see {@link Grid#getMetrics()}. A snapshot
+ * does not change when the game goes on, so it can be handed to a monitoring system as it is.
+ *
+ * <p>Every call of {@link Grid#next()} is one step. Engines that compute several generations at
+ * once record a single step for them. The percentiles cover only the most recent steps. The
+ * details, i.e. the phase durations, evaluated cells, births, deaths and the population, are only
+ * recorded by engines that track them, see {@link #getDetailedSteps()}.
+ */
+public final class MetricsSnapshot {
+
+  private final long steps;
+  private final long generations;
+  private final long totalNanos;
+  private final long medianNanos;
+  private final long percentile90Nanos;
+  private final long percentile99Nanos;
+  private final long maxNanos;
+  private final long allocatedBytes;
+  private final long detailedSteps;
+  private final long neighborhoodNanos;
+  private final long evaluationNanos;
+  private final long evaluatedCells;
+  private final long births;
+  private final long deaths;
+  private final long population;
+
+  /**
+   * Create a snapshot.
+   *
+   * @param steps             number of recorded steps
+   * @param generations       number of generations computed by the steps
+   * @param totalNanos        total duration of the steps
+   * @param medianNanos       median duration of the recent steps
+   * @param percentile90Nanos 90th percentile of the durations of the recent steps
+   * @param percentile99Nanos 99th percentile of the durations of the recent steps
+   * @param maxNanos          longest duration of the recent steps
+   * @param allocatedBytes    bytes allocated by the steps, -1 if unknown
+   * @param detailedSteps     number of steps with details
+   * @param neighborhoodNanos time spent finding the cells to evaluate
+   * @param evaluationNanos   time spent evaluating the cells
+   * @param evaluatedCells    number of evaluated cells
+   * @param births            number of born cells
+   * @param deaths            number of died cells
+   * @param population        number of living cells after the last detailed step, -1 if unknown
+   */
+  MetricsSnapshot(long steps, long generations, long totalNanos, long medianNanos,
+      long percentile90Nanos, long percentile99Nanos, long maxNanos, long allocatedBytes,
+      long detailedSteps, long neighborhoodNanos, long evaluationNanos, long evaluatedCells,
+      long births, long deaths, long population) {
+    this.steps = steps;
+    this.generations = generations;
+    this.totalNanos = totalNanos;
+    this.medianNanos = medianNanos;
+    this.percentile90Nanos = percentile90Nanos;
+    this.percentile99Nanos = percentile99Nanos;
+    this.maxNanos = maxNanos;
+    this.allocatedBytes = allocatedBytes;
+    this.detailedSteps = detailedSteps;
+    this.neighborhoodNanos = neighborhoodNanos;
+    this.evaluationNanos = evaluationNanos;
+    this.evaluatedCells = evaluatedCells;
+    this.births = births;
+    this.deaths = deaths;
+    this.population = population;
+  }
+
+  /**
+   * Get the number of recorded steps.
+   *
+   * @return the number of steps
+   */
+  public long getSteps() {
+    return steps;
+  }
+
+  /**
+   * Get the number of generations computed by the recorded steps.
+   *
+   * @return the number of generations
+   */
+  public long getGenerations() {
+    return generations;
+  }
+
+  /**
+   * Get the total duration of the recorded steps.
+   *
+   * @return the duration in nanoseconds
+   */
+  public long getTotalNanos() {
+    return totalNanos;
+  }
+
+  /**
+   * Get the median duration of the recent steps.
+   *
+   * @return the duration in nanoseconds, 0 if no step was recorded
+   */
+  public long getMedianNanos() {
+    return medianNanos;
+  }
+
+  /**
+   * Get the 90th percentile of the durations of the recent steps.
+   *
+   * @return the duration in nanoseconds, 0 if no step was recorded
+   */
+  public long getPercentile90Nanos() {
+    return percentile90Nanos;
+  }
+
+  /**
+   * Get the 99th percentile of the durations of the recent steps.
+   *
+   * @return the duration in nanoseconds, 0 if no step was recorded
+   */
+  public long getPercentile99Nanos() {
+    return percentile99Nanos;
+  }
+
+  /**
+   * Get the longest duration of the recent steps.
+   *
+   * @return the duration in nanoseconds, 0 if no step was recorded
+   */
+  public long getMaxNanos() {
+    return maxNanos;
+  }
+
+  /**
+   * Get the number of bytes allocated on the computing thread by the recorded steps.
+   *
+   * @return the number of bytes or -1 if the virtual machine does not measure allocations
+   */
+  public long getAllocatedBytes() {
+    return allocatedBytes;
+  }
+
+  /**
+   * Get the number of recorded steps with details.
+   *
+   * @return the number of steps, 0 if the engine does not record details
+   */
+  public long getDetailedSteps() {
+    return detailedSteps;
+  }
+
+  /**
+   * Get the time spent finding the cells to evaluate in the detailed steps.
+   *
+   * @return the duration in nanoseconds
+   */
+  public long getNeighborhoodNanos() {
+    return neighborhoodNanos;
+  }
+
+  /**
+   * Get the time spent evaluating the cells in the detailed steps.
+   *
+   * @return the duration in nanoseconds
+   */
+  public long getEvaluationNanos() {
+    return evaluationNanos;
+  }
+
+  /**
+   * Get the number of cells evaluated in the detailed steps.
+   *
+   * @return the number of cells
+   */
+  public long getEvaluatedCells() {
+    return evaluatedCells;
+  }
+
+  /**
+   * Get the number of cells born in the detailed steps.
+   *
+   * @return the number of cells
+   */
+  public long getBirths() {
+    return births;
+  }
+
+  /**
+   * Get the number of cells died in the detailed steps.
+   *
+   * @return the number of cells
+   */
+  public long getDeaths() {
+    return deaths;
+  }
+
+  /**
+   * Get the number of living cells after the last detailed step.
+   *
+   * @return the number of cells or -1 if no detailed step was recorded
+   */
+  public long getPopulation() {
+    return population;
+  }
+}
@@ -0,0 +1,177 @@
+package org.sosylab.model;
+
+import java.util.Locale;
+
+/**
+ * An outer-totalistic rule of a Life-like cellular automaton in B/S notation, e.g.
+ * <code>B3/S23</code> for Conway's Game of Life or <code>B36/S23</code> for HighLife. The digits
+ * after B are the numbers of living neighbors that let a dead cell be born, the digits after S are
+ * the numbers of living neighbors that let a living cell survive.
+ *
+ * <p>The rule is compiled into a transition table with one bit for every combination of state and
+ * number of living neighbors, so applying it costs a shift instead of a chain of comparisons.
+ *
+ * <p>Rules in which dead cells without living neighbors are born (B0) are not supported, since the
+ * infinite dead surroundings of every field would come alive.
+ */
+public final class Rule {
+
+  /**
+   * Conway's Game of Life, B3/S23.
+   */
+  public static final Rule CONWAY = new Rule(1 << 3, 1 << 2 | 1 << 3);
+
+  // Largest number of living neighbors
+  private static final int MAX_NEIGHBORS = 8;
+
+  // Offset of the transitions of living cells in the table
+  private static final int SURVIVAL_OFFSET = 16;
+
+  private final int births;
+  private final int survivals;
+  private final int transitions;
+
+  /**
+   * Create a rule.
+   *
+   * @param births    one bit for every number of living neighbors that lets a dead cell be born
+   * @param survivals one bit for every number of living neighbors that lets a living cell survive
+   */
+  private Rule(int births, int survivals) {
+    this.births = births;
+    this.survivals = survivals;
+    this.transitions = births | survivals << SURVIVAL_OFFSET;
+  }
+
+  /**
+   * Parses a rule in B/S notation like <code>B3/S23</code>. The parts may be given in any order
+   * and in lower case, and the traditional notation <code>23/3</code> with the survivals first is
+   * accepted as well.
+   *
+   * @param notation the rule
+   * @return the parsed rule
+   * @throws IllegalArgumentException if the notation is not valid or describes a B0 rule
+   */
+  public static Rule parse(String notation) {
+    String[] parts = notation.trim().toUpperCase(Locale.ROOT).split("/", -1);
+    if (parts.length != 2) {
+      throw invalid(notation);
+    }
+    int births;
+    int survivals;
+    if (parts[0].startsWith("B") && parts[1].startsWith("S")) {
+      births = parseNeighbors(parts[0].substring(1), notation);
+      survivals = parseNeighbors(parts[1].substring(1), notation);
+    } else if (parts[0].startsWith("S") && parts[1].startsWith("B")) {
+      survivals = parseNeighbors(parts[0].substring(1), notation);
+      births = parseNeighbors(parts[1].substring(1), notation);
+    } else {
+      survivals = parseNeighbors(parts[0], notation);
+      births = parseNeighbors(parts[1], notation);
+    }
+    if ((births & 1) != 0) {
+      throw new IllegalArgumentException("Rules with B0 are not supported");
+    }
+    return new Rule(births, survivals);
+  }
+
+  /**
+   * Parses the digits of one part of a rule.
+   *
+   * @param digits   the digits, each a number of living neighbors
+   * @param notation the whole rule for error messages
+   * @return one bit for every number given
+   * @throws IllegalArgumentException if a character is not a number of neighbors
+   */
+  private static int parseNeighbors(String digits, String notation) {
+    int neighbors = 0;
+    for (int i = 0; i < digits.length(); i++) {
+      int count = digits.charAt(i) - '0';
+      if (count < 0 || count > MAX_NEIGHBORS) {
+        throw invalid(notation);
+      }
+      neighbors |= 1 << count;
+    }
+    return neighbors;
+  }
+
+  /**
+   * Creates the exception for a rule that cannot be parsed.
+   *
+   * @param notation the rule
+   * @return the exception
+   */
+  private static IllegalArgumentException invalid(String notation) {
+    return new IllegalArgumentException(
+        "Invalid rule: " + notation + ", rules are given like B3/S23");
+  }
+
+  /**
+   * Decides the next state of a cell.
+   *
+   * @param alive          the current state of the cell
+   * @param aliveNeighbors the number of living neighbors of the cell
+   * @return <code>true</code> if the cell is alive in the next generation
+   */
+  public boolean isAliveNext(boolean alive, int aliveNeighbors) {
+    return (transitions >>> (aliveNeighbors | (alive ? SURVIVAL_OFFSET : 0)) & 1) != 0;
+  }
+
+  /**
+   * Checks whether a dead cell with the given number of living neighbors is born.
+   *
+   * @param aliveNeighbors the number of living neighbors
+   * @return <code>true</code> if the cell is born
+   */
+  public boolean isBorn(int aliveNeighbors) {
+    return (births >>> aliveNeighbors & 1) != 0;
+  }
+
+  /**
+   * Checks whether a living cell with the given number of living neighbors survives.
+   *
+   * @param aliveNeighbors the number of living neighbors
+   * @return <code>true</code> if the cell survives
+   */
+  public boolean survives(int aliveNeighbors) {
+    return (survivals >>> aliveNeighbors & 1) != 0;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (other == null || getClass() != other.getClass()) {
+      return false;
+    }
+    return transitions == ((Rule) other).transitions;
+  }
+
+  @Override
+  public int hashCode() {
+    return transitions;
+  }
+
+  /**
+   * Get the rule in B/S notation.
+   *
+   * @return the rule, e.g. <code>B3/S23</code>
+   */
+  @Override
+  public String toString() {
+    StringBuilder notation = new StringBuilder("B");
+    for (int count = 0; count <= MAX_NEIGHBORS; count++) {
+      if (isBorn(count)) {
+        notation.append(count);
+      }
+    }
+    notation.append("/S");
+    for (int count = 0; count <= MAX_NEIGHBORS; count++) {
+      if (survives(count)) {
+        notation.append(count);
+      }
+    }
+    return notation.toString();
+  }
+}
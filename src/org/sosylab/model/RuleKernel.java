@@ -0,0 +1,100 @@
+package org.sosylab.model;
+
+/**
+ * Row kernel of a {@link BitGrid} for any {@link Rule}. The neighbor counts of 64 cells are summed
+ * up bit-sliced, i.e. the four bits of the counts are kept in four words, and the rule is compiled
+ * into a multiplexer tree over these bits whose leaves are constant words. Every word is therefore
+ * computed by the same sequence of bitwise operations, whatever the rule is.
+ */
+final class RuleKernel implements BitGrid.RowKernel {
+
+  // Number of neighbor counts below eight, selected by the three lowest bits of a count
+  private static final int LOW_COUNTS = 8;
+
+  private final long[] births = new long[LOW_COUNTS];
+  private final long[] survivals = new long[LOW_COUNTS];
+  private final long birthWithAll;
+  private final long survivalWithAll;
+
+  /**
+   * Compiles a rule into a kernel.
+   *
+   * @param rule the rule
+   */
+  RuleKernel(Rule rule) {
+    for (int count = 0; count < LOW_COUNTS; count++) {
+      births[count] = rule.isBorn(count) ? -1L : 0L;
+      survivals[count] = rule.survives(count) ? -1L : 0L;
+    }
+    birthWithAll = rule.isBorn(LOW_COUNTS) ? -1L : 0L;
+    survivalWithAll = rule.survives(LOW_COUNTS) ? -1L : 0L;
+  }
+
+  /**
+   * Selects bitwise between two words.
+   *
+   * @param bits the selecting bits
+   * @param one  the word whose bits are taken where the selecting bits are set
+   * @param zero the word whose bits are taken where the selecting bits are cleared
+   * @return the selected bits
+   */
+  private static long select(long bits, long one, long zero) {
+    return zero ^ (bits & (one ^ zero));
+  }
+
+  /**
+   * Looks up the constant leaves of one state for the three lowest bits of the neighbor counts.
+   *
+   * @param leaves the leaves for the counts zero to seven
+   * @param bit0   the lowest bits of the counts
+   * @param bit1   the second bits of the counts
+   * @param bit2   the third bits of the counts
+   * @return the selected leaves
+   */
+  private static long lookup(long[] leaves, long bit0, long bit1, long bit2) {
+    long low = select(bit1, select(bit0, leaves[3], leaves[2]),
+        select(bit0, leaves[1], leaves[0]));
+    long high = select(bit1, select(bit0, leaves[7], leaves[6]),
+        select(bit0, leaves[5], leaves[4]));
+    return select(bit2, high, low);
+  }
+
+  @Override
+  public void stepRow(long[] above, long[] current, long[] below, long[] target, int words) {
+    for (int i = 1; i <= words; i++) {
+      long north = above[i];
+      long northWest = (north << 1) | (above[i - 1] >>> 63);
+      long northEast = (north >>> 1) | (above[i + 1] << 63);
+      long alive = current[i];
+      long west = (alive << 1) | (current[i - 1] >>> 63);
+      long east = (alive >>> 1) | (current[i + 1] << 63);
+      long south = below[i];
+      long southWest = (south << 1) | (below[i - 1] >>> 63);
+      long southEast = (south >>> 1) | (below[i + 1] << 63);
+
+      // the adders of BitGrid.stepWords, carried on to the full count of zero to eight
+      long aboveOnes = northWest ^ north ^ northEast;
+      long aboveTwos = (northWest & north) | (northEast & (northWest ^ north));
+      long belowOnes = southWest ^ south ^ southEast;
+      long belowTwos = (southWest & south) | (southEast & (southWest ^ south));
+      long middleOnes = west ^ east;
+      long middleTwos = west & east;
+
+      long bit0 = aboveOnes ^ belowOnes ^ middleOnes;
+      long onesTwos = (aboveOnes & belowOnes) | (middleOnes & (aboveOnes ^ belowOnes));
+
+      long pairAbove = aboveTwos ^ belowTwos;
+      long bothAbove = aboveTwos & belowTwos;
+      long pairMiddle = middleTwos ^ onesTwos;
+      long bothMiddle = middleTwos & onesTwos;
+      long bit1 = pairAbove ^ pairMiddle;
+      long bit2 = bothAbove ^ bothMiddle ^ (pairAbove & pairMiddle);
+      // set only for eight living neighbors, all lower bits are cleared then
+      long bit3 = bothAbove & bothMiddle;
+
+      long next = select(alive, lookup(survivals, bit0, bit1, bit2),
+          lookup(births, bit0, bit1, bit2));
+      target[i] = select(bit3, select(alive, survivalWithAll, birthWithAll), next);
+    }
+  }
+}
@@ -0,0 +1,206 @@
+package org.sosylab.model;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+/**
+ * Sparse implementation of a game for huge fields with few living cells. The living cells are kept
+ * as packed (column, row) keys in a primitive hash set, so the memory grows with the population and
+ * not with the size of the field. The next generation is computed by counting the living neighbors
+ * of every cell adjacent to a living cell in a primitive counter map. The living cells of the tiles
+ * of the field are counted along with the next population, so that areas are counted without
+ * looking at the whole population.
+ */
+public class SparseGrid extends AbstractGrid {
+
+  private LongHashSet population;
+  private LongHashSet nextPopulation;
+  private final LongIntHashMap neighborCounts;
+  private TileCounts tiles;
+  private TileCounts nextTiles;
+  private long fingerprint;
+  private Rule rule;
+
+  /**
+   * Create a game of Game of Life.
+   *
+   * @param columns the number of columns in the new game field
+   * @param rows    the number of rows in the new game field
+   * @throws IllegalArgumentException if number of columns and rows is negative.
+   */
+  public SparseGrid(int columns, int rows) {
+    super(columns, rows);
+    this.population = new LongHashSet();
+    this.nextPopulation = new LongHashSet();
+    this.neighborCounts = new LongIntHashMap();
+    this.tiles = new TileCounts();
+    this.nextTiles = new TileCounts();
+  }
+
+  /**
+   * Adds a cell to the next population.
+   *
+   * @param key the key of the cell
+   */
+  private void keep(long key) {
+    nextPopulation.add(key);
+    nextTiles.add(Cell.columnOf(key), Cell.rowOf(key));
+    fingerprint += mix(key);
+  }
+
+  /**
+   * Increments the neighbor counters of all cells around the given living cell that are located
+   * on the field.
+   *
+   * @param key the key of the living cell
+   */
+  private void countNeighbors(long key) {
+    int col = Cell.columnOf(key);
+    int row = Cell.rowOf(key);
+    int firstCol = Math.max(col - 1, 0);
+    int lastCol = Math.min(col + 1, getColumns() - 1);
+    int firstRow = Math.max(row - 1, 0);
+    int lastRow = Math.min(row + 1, getRows() - 1);
+    for (int neighborRow = firstRow; neighborRow <= lastRow; neighborRow++) {
+      for (int neighborCol = firstCol; neighborCol <= lastCol; neighborCol++) {
+        if (neighborCol != col || neighborRow != row) {
+          neighborCounts.increment(Cell.key(neighborCol, neighborRow));
+        }
+      }
+    }
+  }
+
+  /**
+   * Decides whether the given cell is alive in the next generation and adds it to the next
+   * population if so.
+   *
+   * @param key            the key of the cell
+   * @param aliveNeighbors the number of living neighbors of the cell
+   */
+  private void recalculate(long key, int aliveNeighbors) {
+    if (rule.isAliveNext(population.contains(key), aliveNeighbors)) {
+      keep(key);
+    }
+  }
+
+  /**
+   * Keeps a living cell without living neighbors alive. Such cells have no neighbor counter, so
+   * they are only visited for rules that let them survive.
+   *
+   * @param key the key of the living cell
+   */
+  private void keepIsolated(long key) {
+    if (neighborCounts.get(key) == 0) {
+      keep(key);
+    }
+  }
+
+  @Override
+  protected void step() {
+    rule = getRule();
+    neighborCounts.clear();
+    population.forEach(this::countNeighbors);
+    nextPopulation.clear();
+    nextTiles.clear();
+    fingerprint = 0;
+    neighborCounts.forEach(this::recalculate);
+    if (rule.survives(0)) {
+      population.forEach(this::keepIsolated);
+    }
+    swap();
+  }
+
+  /**
+   * Makes the next population the current one.
+   */
+  private void swap() {
+    LongHashSet swapPopulation = population;
+    population = nextPopulation;
+    nextPopulation = swapPopulation;
+    TileCounts swapTiles = tiles;
+    tiles = nextTiles;
+    nextTiles = swapTiles;
+  }
+
+  @Override
+  public boolean isCellAlive(int col, int row) {
+    checkBounds(col, row);
+    return population.contains(Cell.key(col, row));
+  }
+
+  @Override
+  public void setCellAlive(int col, int row) {
+    checkBounds(col, row);
+    long key = Cell.key(col, row);
+    if (population.add(key)) {
+      tiles.add(col, row);
+      fingerprint += mix(key);
+    }
+    modified();
+  }
+
+  @Override
+  public void setCellDead(int col, int row) {
+    checkBounds(col, row);
+    long key = Cell.key(col, row);
+    if (population.remove(key)) {
+      tiles.remove(col, row);
+      fingerprint -= mix(key);
+    }
+    modified();
+  }
+
+  @Override
+  protected void resizeField(int newCols, int newRows) {
+    nextPopulation.clear();
+    nextTiles.clear();
+    fingerprint = 0;
+    population.forEach(key -> {
+      if (Cell.columnOf(key) < newCols && Cell.rowOf(key) < newRows) {
+        keep(key);
+      }
+    });
+    swap();
+  }
+
+  @Override
+  public Collection<Cell> getPopulation() {
+    Set<Cell> cells = new HashSet<>();
+    forEachAlive((col, row) -> cells.add(new Cell(col, row)));
+    return cells;
+  }
+
+  @Override
+  public void forEachAlive(CellVisitor visitor) {
+    population.forEach(key -> visitor.visit(Cell.columnOf(key), Cell.rowOf(key)));
+  }
+
+  @Override
+  public LongStream getPopulationKeys() {
+    return population.stream();
+  }
+
+  @Override
+  public long getPopulationCount() {
+    return population.size();
+  }
+
+  @Override
+  protected void clearField() {
+    population.clear();
+    tiles.clear();
+    fingerprint = 0;
+  }
+
+  @Override
+  void forEachTile(int col, int row, int width, int height, TileCounts.TileVisitor visitor) {
+    tiles.forEachTile(col, row, width, height, visitor);
+  }
+
+  @Override
+  protected long fingerprint() {
+    return fingerprint;
+  }
+}
@@ -0,0 +1,117 @@
+package org.sosylab.model;
+
+/**
+ * Counts the living cells of the tiles of 64 x 64 cells a field is divided into. Only tiles with
+ * living cells have a counter, so the counters of a giant sparse field take little memory. Areas
+ * are looked at tile by tile: empty tiles are skipped, and tiles lying completely in an area are
+ * counted without looking at their cells.
+ */
+final class TileCounts {
+
+  static final int TILE_SHIFT = 6;
+  static final int TILE_SIZE = 1 << TILE_SHIFT;
+
+  private final LongIntHashMap counts = new LongIntHashMap();
+
+  /**
+   * Get the key of the tile containing a cell.
+   *
+   * @param col x-position of the cell
+   * @param row y-position of the cell
+   * @return the packed coordinates of the tile
+   */
+  private static long tileOf(int col, int row) {
+    return Cell.key(col >> TILE_SHIFT, row >> TILE_SHIFT);
+  }
+
+  /**
+   * Counts a cell that was born.
+   *
+   * @param col x-position of the cell
+   * @param row y-position of the cell
+   */
+  void add(int col, int row) {
+    counts.increment(tileOf(col, row));
+  }
+
+  /**
+   * Stops counting a cell that died.
+   *
+   * @param col x-position of the cell
+   * @param row y-position of the cell
+   */
+  void remove(int col, int row) {
+    counts.decrement(tileOf(col, row));
+  }
+
+  /**
+   * Forgets all cells.
+   */
+  void clear() {
+    counts.clear();
+  }
+
+  /**
+   * Get the number of living cells of a tile.
+   *
+   * @param tileCol x-position of the tile, i.e. the columns of its cells divided by the tile size
+   * @param tileRow y-position of the tile, i.e. the rows of its cells divided by the tile size
+   * @return the number of living cells
+   */
+  int get(int tileCol, int tileRow) {
+    return counts.get(Cell.key(tileCol, tileRow));
+  }
+
+  /**
+   * Passes every tile of an area that contains living cells to the given visitor. Depending on
+   * the size of the area, either the tiles of the area are looked up or all non-empty tiles are
+   * filtered, whichever are fewer.
+   *
+   * @param col     x-position of the top left corner of the area
+   * @param row     y-position of the top left corner of the area
+   * @param columns width of the area
+   * @param rows    height of the area
+   * @param visitor the visitor receiving the tiles
+   */
+  void forEachTile(int col, int row, int columns, int rows, TileVisitor visitor) {
+    int firstTileCol = col >> TILE_SHIFT;
+    int lastTileCol = (col + columns - 1) >> TILE_SHIFT;
+    int firstTileRow = row >> TILE_SHIFT;
+    int lastTileRow = (row + rows - 1) >> TILE_SHIFT;
+    long coveredTiles = (long) (lastTileCol - firstTileCol + 1) * (lastTileRow - firstTileRow + 1);
+    if (coveredTiles <= counts.size()) {
+      for (int tileRow = firstTileRow; tileRow <= lastTileRow; tileRow++) {
+        for (int tileCol = firstTileCol; tileCol <= lastTileCol; tileCol++) {
+          int count = get(tileCol, tileRow);
+          if (count != 0) {
+            visitor.visit(tileCol, tileRow, count);
+          }
+        }
+      }
+    } else {
+      counts.forEach((key, count) -> {
+        int tileCol = Cell.columnOf(key);
+        int tileRow = Cell.rowOf(key);
+        if (tileCol >= firstTileCol && tileCol <= lastTileCol && tileRow >= firstTileRow
+            && tileRow <= lastTileRow) {
+          visitor.visit(tileCol, tileRow, count);
+        }
+      });
+    }
+  }
+
+  /**
+   * Receives the non-empty tiles of an area.
+   */
+  interface TileVisitor {
+
+    /**
+     * Visits one tile.
+     *
+     * @param tileCol x-position of the tile
+     * @param tileRow y-position of the tile
+     * @param count   the number of living cells of the tile
+     */
+    void visit(int tileCol, int tileRow, int count);
+  }
+}
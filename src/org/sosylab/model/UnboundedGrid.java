@@ -0,0 +1,353 @@
+package org.sosylab.model;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.LongStream;
+import org.sosylab.jfr.RenderEvent;
+
+/**
+ * Implementation of a game in an unbounded universe. Cells may be located at any 64-bit column and
+ * row, including negative ones, and the memory grows only with the population. The living cells
+ * are kept as coordinate pairs in a primitive hash map, and the next generation is computed by
+ * counting the living neighbors of every cell adjacent to a living cell.
+ *
+ * <p>The methods of the {@link Grid} interface address the window of the universe starting at
+ * column and row zero with the dimensions of the field. Resizing changes only the window, cells
+ * outside of it keep living. Operations on the whole field, e.g. {@link #getPopulation()} or
+ * rendering, see only the cells in the window, while {@link #isAlive(long, long)},
+ * {@link #getBoundingBox()} and {@link #render(OutputStream, BoundingBox)} reach the whole
+ * universe. The coordinates wrap around at the limits of <code>long</code>.
+ *
+ * <p>The living cells of the tiles of the window are counted along with the next population and
+ * recounted when the window is resized.
+ */
+public class UnboundedGrid extends AbstractGrid {
+
+  private static final byte ALIVE = 'X';
+  private static final byte DEAD = '.';
+  private static final byte NEWLINE = '\n';
+
+  // Largest array length the virtual machine reliably supports
+  private static final long MAX_AREA_LENGTH = Integer.MAX_VALUE - 8;
+
+  private LongPairIntHashMap population;
+  private LongPairIntHashMap nextPopulation;
+  private final LongPairIntHashMap neighborCounts;
+  private TileCounts tiles;
+  private TileCounts nextTiles;
+  private long fingerprint;
+  private Rule rule;
+
+  /**
+   * Create a game of Game of Life.
+   *
+   * @param columns the number of columns of the window
+   * @param rows    the number of rows of the window
+   * @throws IllegalArgumentException if number of columns and rows is not positive.
+   */
+  public UnboundedGrid(int columns, int rows) {
+    super(columns, rows);
+    this.population = new LongPairIntHashMap();
+    this.nextPopulation = new LongPairIntHashMap();
+    this.neighborCounts = new LongPairIntHashMap();
+    this.tiles = new TileCounts();
+    this.nextTiles = new TileCounts();
+  }
+
+  /**
+   * Checks whether a cell is located in the window.
+   *
+   * @param col x-position.
+   * @param row y-position.
+   * @return <code>true</code> if the cell is part of the field
+   */
+  private boolean inWindow(long col, long row) {
+    return col >= 0 && col < getColumns() && row >= 0 && row < getRows();
+  }
+
+  /**
+   * Adds a cell to the next population.
+   *
+   * @param col x-position.
+   * @param row y-position.
+   */
+  private void keep(long col, long row) {
+    nextPopulation.put(col, row, 1);
+    if (inWindow(col, row)) {
+      nextTiles.add((int) col, (int) row);
+    }
+    fingerprint += mix(col, row);
+  }
+
+  /**
+   * Mixes the coordinates of a cell into its share of the fingerprint.
+   *
+   * @param col x-position.
+   * @param row y-position.
+   * @return the mixed coordinates
+   */
+  private static long mix(long col, long row) {
+    return mix(mix(col) + row);
+  }
+
+  /**
+   * Increments the neighbor counters of all cells around the given living cell.
+   *
+   * @param col   x-position.
+   * @param row   y-position.
+   * @param alive the entry of the cell, always one
+   */
+  private void countNeighbors(long col, long row, int alive) {
+    for (long neighborRow = row - 1; neighborRow != row + 2; neighborRow++) {
+      neighborCounts.increment(col - 1, neighborRow);
+      if (neighborRow != row) {
+        neighborCounts.increment(col, neighborRow);
+      }
+      neighborCounts.increment(col + 1, neighborRow);
+    }
+  }
+
+  /**
+   * Decides whether the given cell is alive in the next generation and adds it to the next
+   * population if so.
+   *
+   * @param col            x-position.
+   * @param row            y-position.
+   * @param aliveNeighbors the number of living neighbors of the cell
+   */
+  private void recalculate(long col, long row, int aliveNeighbors) {
+    if (rule.isAliveNext(population.get(col, row) != 0, aliveNeighbors)) {
+      keep(col, row);
+    }
+  }
+
+  /**
+   * Keeps a living cell without living neighbors alive. Such cells have no neighbor counter, so
+   * they are only visited for rules that let them survive.
+   *
+   * @param col   x-position.
+   * @param row   y-position.
+   * @param alive the entry of the cell, always one
+   */
+  private void keepIsolated(long col, long row, int alive) {
+    if (neighborCounts.get(col, row) == 0) {
+      keep(col, row);
+    }
+  }
+
+  @Override
+  protected void step() {
+    rule = getRule();
+    neighborCounts.clear();
+    population.forEach(this::countNeighbors);
+    nextPopulation.clear();
+    nextTiles.clear();
+    fingerprint = 0;
+    neighborCounts.forEach(this::recalculate);
+    if (rule.survives(0)) {
+      population.forEach(this::keepIsolated);
+    }
+
+    LongPairIntHashMap swapPopulation = population;
+    population = nextPopulation;
+    nextPopulation = swapPopulation;
+    TileCounts swapTiles = tiles;
+    tiles = nextTiles;
+    nextTiles = swapTiles;
+  }
+
+  @Override
+  public boolean isCellAlive(int col, int row) {
+    checkBounds(col, row);
+    return isAlive(col, row);
+  }
+
+  @Override
+  public void setCellAlive(int col, int row) {
+    checkBounds(col, row);
+    setAlive(col, row);
+  }
+
+  @Override
+  public void setCellDead(int col, int row) {
+    checkBounds(col, row);
+    setDead(col, row);
+  }
+
+  /**
+   * Checks whether a cell anywhere in the universe is alive.
+   *
+   * @param col x-position.
+   * @param row y-position.
+   * @return <code>true</code> if the cell is alive
+   */
+  public boolean isAlive(long col, long row) {
+    return population.get(col, row) != 0;
+  }
+
+  /**
+   * Sets a cell anywhere in the universe alive.
+   *
+   * @param col x-position.
+   * @param row y-position.
+   */
+  public void setAlive(long col, long row) {
+    if (population.put(col, row, 1) == 0) {
+      if (inWindow(col, row)) {
+        tiles.add((int) col, (int) row);
+      }
+      fingerprint += mix(col, row);
+    }
+    modified();
+  }
+
+  /**
+   * Sets a cell anywhere in the universe dead.
+   *
+   * @param col x-position.
+   * @param row y-position.
+   */
+  public void setDead(long col, long row) {
+    if (population.put(col, row, 0) != 0) {
+      if (inWindow(col, row)) {
+        tiles.remove((int) col, (int) row);
+      }
+      fingerprint -= mix(col, row);
+    }
+    modified();
+  }
+
+  /**
+   * Get the number of living cells in the whole universe.
+   *
+   * @return the number of living cells
+   */
+  public long getUniversePopulation() {
+    return population.size();
+  }
+
+  /**
+   * Computes the smallest area containing all living cells of the universe.
+   *
+   * @return the area or <code>null</code> if no cell is alive
+   */
+  public BoundingBox getBoundingBox() {
+    if (population.size() == 0) {
+      return null;
+    }
+    long[] bounds = {Long.MAX_VALUE, Long.MAX_VALUE, Long.MIN_VALUE, Long.MIN_VALUE};
+    population.forEach((col, row, alive) -> {
+      bounds[0] = Math.min(bounds[0], col);
+      bounds[1] = Math.min(bounds[1], row);
+      bounds[2] = Math.max(bounds[2], col);
+      bounds[3] = Math.max(bounds[3], row);
+    });
+    return new BoundingBox(bounds[0], bounds[1], bounds[2], bounds[3]);
+  }
+
+  /**
+   * Writes an area of the universe in the same format as {@link #render(OutputStream)}.
+   *
+   * @param out  the stream to write to
+   * @param area the area of the universe
+   * @throws IOException           thrown when writing to the stream fails
+   * @throws IllegalStateException if the area is too large to be rendered.
+   */
+  public void render(OutputStream out, BoundingBox area) throws IOException {
+    long columns = area.getMaxColumn() - area.getMinColumn() + 1;
+    long rows = area.getMaxRow() - area.getMinRow() + 1;
+    // the differences overflow for areas spanning more than half of the universe
+    if (columns <= 0 || rows <= 0 || columns >= MAX_AREA_LENGTH || rows > MAX_AREA_LENGTH
+        || (columns + 1) * rows > MAX_AREA_LENGTH) {
+      throw new IllegalStateException("Area is too large to be rendered");
+    }
+    RenderEvent event = new RenderEvent();
+    event.begin();
+    int stride = (int) columns + 1;
+    byte[] frame = new byte[stride * (int) rows];
+    Arrays.fill(frame, DEAD);
+    for (int row = 1; row <= rows; row++) {
+      frame[row * stride - 1] = NEWLINE;
+    }
+    population.forEach((col, row, alive) -> {
+      if (area.contains(col, row)) {
+        frame[(int) (row - area.getMinRow()) * stride + (int) (col - area.getMinColumn())] =
+            ALIVE;
+      }
+    });
+    out.write(frame);
+    event.end();
+    if (event.shouldCommit()) {
+      event.setEngine(getClass().getSimpleName());
+      event.setGeneration(getGenerations());
+      event.setColumns((int) columns);
+      event.setRows((int) rows);
+      event.setBytes(frame.length);
+      event.commit();
+    }
+  }
+
+  @Override
+  protected void resizeField(int newCols, int newRows) {
+    // the universe keeps all cells, only the window and thus the counted cells change
+    tiles.clear();
+    population.forEach((col, row, alive) -> {
+      if (col >= 0 && col < newCols && row >= 0 && row < newRows) {
+        tiles.add((int) col, (int) row);
+      }
+    });
+  }
+
+  @Override
+  public Collection<Cell> getPopulation() {
+    Set<Cell> cells = new HashSet<>();
+    forEachAlive((col, row) -> cells.add(new Cell(col, row)));
+    return cells;
+  }
+
+  @Override
+  public void forEachAlive(CellVisitor visitor) {
+    int columns = getColumns();
+    int rows = getRows();
+    population.forEach((col, row, alive) -> {
+      if (col >= 0 && col < columns && row >= 0 && row < rows) {
+        visitor.visit((int) col, (int) row);
+      }
+    });
+  }
+
+  @Override
+  public LongStream getPopulationKeys() {
+    LongPairIntHashMap cells = population;
+    int columns = getColumns();
+    int rows = getRows();
+    return cells.slots()
+        .filter(slot -> {
+          long col = cells.firstKey(slot);
+          long row = cells.secondKey(slot);
+          return col >= 0 && col < columns && row >= 0 && row < rows;
+        })
+        .mapToLong(slot -> Cell.key((int) cells.firstKey(slot), (int) cells.secondKey(slot)));
+  }
+
+  @Override
+  protected void clearField() {
+    population.clear();
+    tiles.clear();
+    fingerprint = 0;
+  }
+
+  @Override
+  void forEachTile(int col, int row, int width, int height, TileCounts.TileVisitor visitor) {
+    tiles.forEachTile(col, row, width, height, visitor);
+  }
+
+  @Override
+  protected long fingerprint() {
+    return fingerprint;
+  }
+}
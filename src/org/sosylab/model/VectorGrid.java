@@ -0,0 +1,75 @@
+package org.sosylab.model;
+
+/**
+ * Dense implementation of a game that computes the rows of a {@link BitGrid} with the vector API
+ * of the JDK, so that several words are processed by a single SIMD instruction on CPUs with AVX2 or
+ * AVX-512. Rules other than Conway's are computed by the scalar kernel of {@link RuleKernel}.
+ *
+ * <p>The vector API is an incubator module that has to be enabled with
+ * <code>--add-modules jdk.incubator.vector</code>. Without it the engine falls back to the scalar
+ * kernel of {@link BitGrid}.
+ */
+public class VectorGrid extends BitGrid {
+
+  private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+  private final boolean vectorized;
+
+  /**
+   * Create a game of Game of Life.
+   *
+   * @param columns the number of columns in the new game field
+   * @param rows    the number of rows in the new game field
+   * @throws IllegalArgumentException if number of columns and rows is negative.
+   */
+  public VectorGrid(int columns, int rows) {
+    this(columns, rows, createKernel());
+  }
+
+  /**
+   * Create a game of Game of Life that computes the rows with the given kernel.
+   *
+   * @param columns the number of columns in the new game field
+   * @param rows    the number of rows in the new game field
+   * @param kernel  the vector kernel or <code>null</code> to use the scalar kernel
+   */
+  private VectorGrid(int columns, int rows, RowKernel kernel) {
+    super(columns, rows, kernel != null ? kernel : BitGrid::stepRow);
+    this.vectorized = kernel != null;
+  }
+
+  /**
+   * Creates the vector kernel if the vector API is available.
+   *
+   * @return the kernel or <code>null</code> if the vector API is not available
+   */
+  private static RowKernel createKernel() {
+    if (!isVectorApiAvailable()) {
+      return null;
+    }
+    try {
+      return new VectorKernel();
+    } catch (LinkageError e) {
+      return null;
+    }
+  }
+
+  /**
+   * Checks whether the vector API module has been added to the running JVM.
+   *
+   * @return <code>true</code> if the vector kernel can be used
+   */
+  public static boolean isVectorApiAvailable() {
+    return ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent();
+  }
+
+  /**
+   * Checks whether this game computes generations with the vector kernel.
+   *
+   * @return <code>true</code> if the vector kernel is used, <code>false</code> if the engine fell
+   *         back to the scalar kernel
+   */
+  public boolean isVectorized() {
+    return vectorized;
+  }
+}
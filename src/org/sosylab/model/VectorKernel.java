@@ -0,0 +1,90 @@
+package org.sosylab.model;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Row kernel of a {@link BitGrid} that evaluates the bitwise adders of several words at once with
+ * the vector API. Words that do not fill a whole vector are computed by the scalar kernel.
+ *
+ * <p>This class must only be loaded if the module <code>jdk.incubator.vector</code> is present, see
+ * {@link VectorGrid}.
+ */
+final class VectorKernel implements BitGrid.RowKernel {
+
+  private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+  /**
+   * Loads the given row shifted by one column to the west, i.e. every bit holds the state of the
+   * cell left of it.
+   *
+   * @param row   the row including guard words
+   * @param index index of the first word
+   * @param cells the unshifted words
+   * @return the shifted words
+   */
+  private static LongVector west(long[] row, int index, LongVector cells) {
+    LongVector previous = LongVector.fromArray(SPECIES, row, index - 1);
+    return cells.lanewise(VectorOperators.LSHL, 1)
+        .or(previous.lanewise(VectorOperators.LSHR, 63));
+  }
+
+  /**
+   * Loads the given row shifted by one column to the east, i.e. every bit holds the state of the
+   * cell right of it.
+   *
+   * @param row   the row including guard words
+   * @param index index of the first word
+   * @param cells the unshifted words
+   * @return the shifted words
+   */
+  private static LongVector east(long[] row, int index, LongVector cells) {
+    LongVector following = LongVector.fromArray(SPECIES, row, index + 1);
+    return cells.lanewise(VectorOperators.LSHR, 1)
+        .or(following.lanewise(VectorOperators.LSHL, 63));
+  }
+
+  @Override
+  public void stepRow(long[] above, long[] current, long[] below, long[] target, int words) {
+    int lanes = SPECIES.length();
+    int i = 1;
+    for (; i + lanes - 1 <= words; i += lanes) {
+      LongVector north = LongVector.fromArray(SPECIES, above, i);
+      LongVector northWest = west(above, i, north);
+      LongVector northEast = east(above, i, north);
+      LongVector alive = LongVector.fromArray(SPECIES, current, i);
+      LongVector west = west(current, i, alive);
+      LongVector east = east(current, i, alive);
+      LongVector south = LongVector.fromArray(SPECIES, below, i);
+      LongVector southWest = west(below, i, south);
+      LongVector southEast = east(below, i, south);
+
+      // the same adder network as BitGrid.stepWords, one word per lane
+      LongVector aboveOnes = northWest.lanewise(VectorOperators.XOR, north)
+          .lanewise(VectorOperators.XOR, northEast);
+      LongVector aboveTwos = northWest.and(north)
+          .or(northEast.and(northWest.lanewise(VectorOperators.XOR, north)));
+      LongVector belowOnes = southWest.lanewise(VectorOperators.XOR, south)
+          .lanewise(VectorOperators.XOR, southEast);
+      LongVector belowTwos = southWest.and(south)
+          .or(southEast.and(southWest.lanewise(VectorOperators.XOR, south)));
+      LongVector middleOnes = west.lanewise(VectorOperators.XOR, east);
+      LongVector middleTwos = west.and(east);
+
+      LongVector aboveBelow = aboveOnes.lanewise(VectorOperators.XOR, belowOnes);
+      LongVector ones = aboveBelow.lanewise(VectorOperators.XOR, middleOnes);
+      LongVector onesTwos = aboveOnes.and(belowOnes).or(middleOnes.and(aboveBelow));
+
+      LongVector pairAbove = aboveTwos.lanewise(VectorOperators.XOR, belowTwos);
+      LongVector bothAbove = aboveTwos.and(belowTwos);
+      LongVector pairMiddle = middleTwos.lanewise(VectorOperators.XOR, onesTwos);
+      LongVector bothMiddle = middleTwos.and(onesTwos);
+      LongVector twos = pairAbove.lanewise(VectorOperators.XOR, pairMiddle)
+          .lanewise(VectorOperators.AND_NOT, bothAbove.or(bothMiddle));
+
+      twos.and(ones.or(alive)).intoArray(target, i);
+    }
+    BitGrid.stepWords(above, current, below, target, i, words);
+  }
+}
@@ -0,0 +1,114 @@
+package org.sosylab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+import org.sosylab.model.Game;
+import org.sosylab.model.Grid;
+
+/**
+ * Tests for the {@link Animation} on an ANSI terminal. The escape sequences are written into a
+ * byte array, the escape character is shown as <code>^</code>.
+ */
+public class AnimationTest {
+
+  private static final int FRAMES_PER_SECOND = 1000;
+
+  private static String terminal(ByteArrayOutputStream out) {
+    return out.toString(StandardCharsets.US_ASCII).replace('\033', '^');
+  }
+
+  @Test
+  public void new_game_drawsWholeFieldAndStatus() throws Exception {
+    Grid game = new Game(3, 2);
+    game.setCellAlive(1, 0);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    Animation animation = new Animation(game, out, FRAMES_PER_SECOND);
+
+    assertEquals("^[?25l^[2J^[H.X.\n...\n^[3;1HGeneration: 0^[K", terminal(out));
+    animation.finish(game);
+  }
+
+  @Test
+  public void finish_blinker_redrawsOnlyChangedCells() throws Exception {
+    Grid game = new Game(3, 3);
+    game.setCellAlive(0, 1);
+    game.setCellAlive(1, 1);
+    game.setCellAlive(2, 1);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Animation animation = new Animation(game, out, FRAMES_PER_SECOND);
+    out.reset();
+
+    game.next();
+    assertEquals(1, animation.finish(game));
+
+    assertEquals("^[1;2HX^[2;1H.^[2;3H.^[3;2HX^[4;1HGeneration: 1^[K^[5;1H^[?25h",
+        terminal(out));
+  }
+
+  @Test
+  public void finish_rowOfChangedCells_movesCursorOnce() throws Exception {
+    Grid game = new Game(70, 1);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Animation animation = new Animation(game, out, FRAMES_PER_SECOND);
+    out.reset();
+
+    // the row crosses the boundary between the first two words of the row
+    for (int col = 62; col < 66; col++) {
+      game.setCellAlive(col, 0);
+    }
+    animation.finish(game);
+
+    assertEquals("^[1;63HXXXX^[2;1HGeneration: 0^[K^[3;1H^[?25h", terminal(out));
+  }
+
+  @Test
+  public void finish_unchangedGame_writesOnlyStatus() throws Exception {
+    Grid game = new Game(2, 2);
+    game.setCellAlive(0, 0);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Animation animation = new Animation(game, out, FRAMES_PER_SECOND);
+    out.reset();
+
+    assertEquals(1, animation.finish(game));
+
+    assertEquals("^[3;1HGeneration: 0^[K^[4;1H^[?25h", terminal(out));
+  }
+
+  @Test
+  public void new_frameRateNotPositive_throwsException() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new Animation(new Game(2, 2), new ByteArrayOutputStream(), 0));
+  }
+
+  @Test
+  public void finish_failingTerminal_throwsError() throws Exception {
+    Grid game = new Game(2, 2);
+    FailingTerminal out = new FailingTerminal();
+    Animation animation = new Animation(game, out, FRAMES_PER_SECOND);
+    out.failing = true;
+
+    game.setCellAlive(1, 1);
+    assertThrows(IOException.class, () -> animation.finish(game));
+  }
+
+  /**
+   * A terminal whose writes can be made to fail.
+   */
+  private static final class FailingTerminal extends ByteArrayOutputStream {
+
+    private volatile boolean failing;
+
+    @Override
+    public void flush() throws IOException {
+      if (failing) {
+        throw new IOException("terminal closed");
+      }
+    }
+  }
+}
@@ -0,0 +1,144 @@
+package org.sosylab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the {@link Headless} run mode. The runs read the pattern given as <code>-</code> from
+ * a string and write to byte arrays instead of stdout and stderr.
+ */
+public class HeadlessTest {
+
+  private static final String RLE_GLIDER = """
+      x = 3, y = 3
+      bo$2bo$3o!
+      """;
+
+  private final ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+  private final ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+
+  private int run(String stdin, String... args) {
+    Headless headless = new Headless(
+        new ByteArrayInputStream(stdin.getBytes(StandardCharsets.US_ASCII)), stdout,
+        new PrintStream(stderr, true, StandardCharsets.US_ASCII));
+    return headless.run(args);
+  }
+
+  private String output() {
+    return stdout.toString(StandardCharsets.US_ASCII);
+  }
+
+  private String errors() {
+    return stderr.toString(StandardCharsets.US_ASCII);
+  }
+
+  @Test
+  public void run_help_printsUsage() {
+    assertEquals(0, run("", "--size", "3x3", "--help"));
+
+    assertTrue(output().startsWith("Usage: GameOfLifeMain [options]"));
+    assertEquals("", errors());
+  }
+
+  @Test
+  public void run_invalidOptions_reportErrors() {
+    assertEquals(1, run("", "--size"));
+    assertEquals("Error! Missing argument for option --size\n", errors());
+
+    stderr.reset();
+    assertEquals(1, run("", "--speed", "3"));
+    assertEquals("Error! Unknown option: --speed\n", errors());
+
+    stderr.reset();
+    assertEquals(1, run("", "--size", "80y40"));
+    assertEquals("Error! Size must be given as XxY, e.g. 80x40\n", errors());
+
+    stderr.reset();
+    assertEquals(1, run("", "--size", "3x3", "--generations", "-1"));
+    assertEquals("Error! Argument of option --generations may not be negative\n", errors());
+
+    stderr.reset();
+    assertEquals(1, run("", "--size", "3x3", "--format", "svg"));
+    assertEquals("Error! Unknown format: svg, available formats are grid, cells and population\n",
+        errors());
+
+    stderr.reset();
+    assertEquals(1, run("", "--pattern", "-", "--shape", "glider"));
+    assertEquals("Error! Options --pattern and --shape may not be combined\n", errors());
+
+    stderr.reset();
+    assertEquals(1, run("", "--generations", "3"));
+    assertEquals("Error! Option --size is required without a pattern\n", errors());
+    assertEquals("", output());
+  }
+
+  @Test
+  public void run_patternWithoutSize_usesSizeOfPattern() {
+    assertEquals(0, run(RLE_GLIDER, "--pattern", "-"));
+
+    assertEquals(".X.\n..X\nXXX\n", output());
+  }
+
+  @Test
+  public void run_shapeWithoutSize_usesSizeOfShape() {
+    assertEquals(0, run("", "--shape", "blinker", "--format", "population"));
+
+    assertEquals("0 3\n", output());
+  }
+
+  @Test
+  public void run_shapeLargerThanField_dropsCells() {
+    assertEquals(0, run("", "--shape", "glider", "--size", "2x2", "--format", "population"));
+
+    assertEquals("0 1\n", output());
+  }
+
+  @Test
+  public void run_every_writesEveryKthGenerationAndTheLast() {
+    assertEquals(0, run(RLE_GLIDER, "--pattern", "-", "--size", "8x8", "--generations", "5",
+        "--every", "2", "--format", "population"));
+
+    assertEquals("0 5\n2 5\n4 5\n5 5\n", output());
+  }
+
+  @Test
+  public void run_cellsFormat_writesCellsByRowAndSeparatesStates() {
+    assertEquals(0, run(RLE_GLIDER, "--pattern", "-", "--generations", "1", "--every", "1",
+        "--format", "cells"));
+
+    assertEquals("1 0\n2 1\n0 2\n1 2\n2 2\n\n0 1\n2 1\n1 2\n2 2\n", output());
+  }
+
+  @Test
+  public void run_gridFormatWithRule_writesStatesSeparatedByEmptyLines() {
+    assertEquals(0, run("", "--shape", "blinker", "--size", "3x3", "--rule", "B3/S23",
+        "--generations", "2", "--every", "1", "--engine", "bit"));
+
+    assertEquals("...\nXXX\n...\n\n.X.\n.X.\n.X.\n\n...\nXXX\n...\n", output());
+  }
+
+  @Test
+  public void run_save_writesSnapshotThatCanBeRestored() throws IOException {
+    Path file = Files.createTempFile("headless", ".gol");
+    try {
+      assertEquals(0, run(RLE_GLIDER, "--pattern", "-", "--size", "6x6", "--generations", "4",
+          "--format", "population", "--save", file.toString()));
+      assertEquals("4 5\n", output());
+
+      stdout.reset();
+      assertEquals(0, run("", "--pattern", file.toString(), "--format", "population"));
+      assertEquals("4 5\n", output());
+    } finally {
+      Files.delete(file);
+    }
+  }
+}
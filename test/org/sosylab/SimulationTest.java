@@ -0,0 +1,158 @@
+package org.sosylab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the {@link Simulation} computing generations on a worker thread.
+ */
+public class SimulationTest {
+
+  private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+  private final AtomicLong generation = new AtomicLong();
+  private Simulation simulation;
+
+  private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.nanoTime() + TIMEOUT.toNanos();
+    while (!condition.getAsBoolean()) {
+      assertTrue(System.nanoTime() < deadline, "condition not reached in time");
+      Thread.sleep(1);
+    }
+  }
+
+  /**
+   * Ends the worker of the simulation created by the test.
+   *
+   * @throws IOException thrown when the test is interrupted while waiting for the worker
+   */
+  @AfterEach
+  public void stopSimulation() throws IOException {
+    if (simulation != null) {
+      simulation.stop();
+    }
+  }
+
+  private void start(Runnable step) {
+    simulation = new Simulation(step, generation::get);
+  }
+
+  @Test
+  public void submit_severalTasks_runInOrder() throws IOException {
+    start(generation::incrementAndGet);
+    List<Integer> order = new ArrayList<>();
+
+    for (int i = 0; i < 100; i++) {
+      int task = i;
+      simulation.submit(() -> order.add(task));
+    }
+
+    List<Integer> actual = simulation.call(() -> new ArrayList<>(order));
+    for (int i = 0; i < 100; i++) {
+      assertEquals(i, actual.get(i));
+    }
+  }
+
+  @Test
+  public void pause_thenResume_stopsAndContinuesGenerations() throws Exception {
+    start(generation::incrementAndGet);
+    awaitCondition(() -> simulation.getGeneration() > 0);
+
+    simulation.pause();
+    long paused = simulation.call(generation::get);
+    Thread.sleep(20);
+
+    assertTrue(simulation.isPaused());
+    assertEquals(paused, generation.get());
+    assertEquals(paused, simulation.getGeneration());
+
+    simulation.resume();
+    awaitCondition(() -> simulation.getGeneration() > paused);
+    assertFalse(simulation.isPaused());
+  }
+
+  @Test
+  public void call_task_returnsResultAndPropagatesExceptions() throws IOException {
+    start(generation::incrementAndGet);
+    IOException io = new IOException("disk");
+    IllegalArgumentException illegal = new IllegalArgumentException("argument");
+
+    assertEquals("result", simulation.call(() -> "result"));
+    assertSame(io, assertThrows(IOException.class, () -> simulation.call(() -> {
+      throw io;
+    })));
+    assertSame(illegal, assertThrows(IllegalArgumentException.class,
+        () -> simulation.call(() -> {
+          throw illegal;
+        })));
+    IllegalStateException wrapped = assertThrows(IllegalStateException.class,
+        () -> simulation.call(() -> {
+          throw new TimeoutException("checked");
+        }));
+    assertTrue(wrapped.getCause() instanceof TimeoutException);
+    assertNull(simulation.getFailure());
+  }
+
+  @Test
+  public void submit_failingTask_pausesAndKeepsFailure() throws Exception {
+    start(generation::incrementAndGet);
+
+    simulation.submit(() -> {
+      throw new OutOfMemoryError("heap");
+    });
+    awaitCondition(() -> simulation.getFailure() != null);
+
+    assertEquals("heap", simulation.getFailure());
+    assertTrue(simulation.isPaused());
+    assertEquals("alive", simulation.call(() -> "alive"));
+    simulation.resume();
+    assertNull(simulation.getFailure());
+  }
+
+  @Test
+  public void step_failing_pausesAndKeepsFailure() throws Exception {
+    start(() -> {
+      if (generation.get() == 3) {
+        throw new IllegalStateException("stuck");
+      }
+      generation.incrementAndGet();
+    });
+
+    awaitCondition(simulation::isPaused);
+
+    assertEquals("stuck", simulation.getFailure());
+    assertEquals(3, simulation.call(generation::get));
+  }
+
+  @Test
+  public void call_afterWorkerEnded_failsInsteadOfBlocking() throws Exception {
+    simulation = new Simulation(generation::incrementAndGet, () -> {
+      if (generation.get() >= 5) {
+        throw new StackOverflowError();
+      }
+      return generation.get();
+    });
+    awaitCondition(simulation::isPaused);
+
+    assertEquals("StackOverflowError", simulation.getFailure());
+    assertTimeoutPreemptively(TIMEOUT, () -> {
+      assertThrows(IllegalStateException.class, () -> simulation.call(() -> "late"));
+      assertThrows(IllegalStateException.class, simulation::resume);
+    });
+  }
+}
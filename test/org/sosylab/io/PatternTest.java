@@ -0,0 +1,183 @@
+package org.sosylab.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.sosylab.model.Game;
+import org.sosylab.model.Grid;
+
+/**
+ * Tests for the import of patterns.
+ */
+public class PatternTest {
+
+  private static final String GLIDER = """
+      .....
+      ..X..
+      ...X.
+      .XXX.
+      .....""";
+
+  private static final String RLE_GLIDER = """
+      #N Glider
+      #C A comment
+      x = 3, y = 3, rule = B3/S23
+      bo$2bo$3o!
+      """;
+
+  private static final String LIFE_106_GLIDER = """
+      #Life 1.06
+      0 -1
+      1 0
+      -1 1
+      0 1
+      1 1
+      """;
+
+  private static final String PLAINTEXT_GLIDER = """
+      !Name: Glider
+      .O.
+      ..O
+      OOO
+      """;
+
+  private static Pattern pattern(String content) throws IOException {
+    return Pattern.read(new ByteArrayInputStream(content.getBytes(StandardCharsets.US_ASCII)));
+  }
+
+  private static String place(Pattern pattern, int columns, int rows) throws IOException {
+    Grid world = new Game(columns, rows);
+    pattern.placeOn(world);
+    return world.toString();
+  }
+
+  @Test
+  public void testRle() throws IOException {
+    Pattern pattern = pattern(RLE_GLIDER);
+
+    assertEquals(PatternFormat.RLE, pattern.getFormat());
+    assertEquals(3, pattern.getColumns());
+    assertEquals(3, pattern.getRows());
+    assertEquals(GLIDER, place(pattern, 5, 5));
+  }
+
+  @Test
+  public void testLife106() throws IOException {
+    Pattern pattern = pattern(LIFE_106_GLIDER);
+
+    assertEquals(PatternFormat.LIFE_106, pattern.getFormat());
+    assertEquals(3, pattern.getColumns());
+    assertEquals(3, pattern.getRows());
+    assertEquals(GLIDER, place(pattern, 5, 5));
+  }
+
+  @Test
+  public void testPlaintext() throws IOException {
+    Pattern pattern = pattern(PLAINTEXT_GLIDER);
+
+    assertEquals(PatternFormat.PLAINTEXT, pattern.getFormat());
+    assertEquals(3, pattern.getColumns());
+    assertEquals(3, pattern.getRows());
+    assertEquals(GLIDER, place(pattern, 5, 5));
+  }
+
+  @Test
+  public void testRunsAcrossLines() throws IOException {
+    Pattern pattern = pattern("x = 12, y = 3\n12o$\n2$b10\n0o!trailing text");
+
+    assertEquals("XXXXXXXXXXXX\n............\n............",
+        place(pattern, 12, 3));
+  }
+
+  @Test
+  public void testSplitIntoChunks() throws IOException {
+    for (String content : new String[]{RLE_GLIDER, LIFE_106_GLIDER, PLAINTEXT_GLIDER}) {
+      byte[] bytes = content.getBytes(StandardCharsets.US_ASCII);
+      for (int split = 1; split < bytes.length; split++) {
+        Pattern pattern = new Pattern(List.of(ByteBuffer.wrap(bytes, 0, split).slice(),
+            ByteBuffer.wrap(bytes, split, bytes.length - split).slice()), "memory");
+        assertEquals(GLIDER, place(pattern, 5, 5));
+      }
+    }
+  }
+
+  @Test
+  public void testClipping() throws IOException {
+    assertEquals(".X\nXX", place(pattern(PLAINTEXT_GLIDER), 2, 2));
+    assertEquals("OOO", place(pattern("x = 3, y = 3\n3o$3o$3o!"), 3, 1).replace('X', 'O'));
+  }
+
+  @Test
+  public void testMappedFile() throws IOException {
+    Path file = Files.createTempFile("glider", ".rle");
+    try {
+      Files.writeString(file, RLE_GLIDER);
+      assertEquals(GLIDER, place(Pattern.map(file), 5, 5));
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  public void testInvalidPatterns() {
+    IOException exception = assertThrows(IOException.class,
+        () -> place(pattern(".O.\n.Q.\n"), 5, 5));
+    assertEquals("Invalid plaintext pattern in line 2: unexpected character 'Q'",
+        exception.getMessage());
+
+    exception = assertThrows(IOException.class,
+        () -> pattern("#Life 1.06\n1 2 3\n").getColumns());
+    assertEquals("Invalid Life 1.06 pattern in line 2: more than two coordinates",
+        exception.getMessage());
+
+    exception = assertThrows(IOException.class, () -> pattern("x = 3\nooo!").getColumns());
+    assertEquals("Invalid RLE pattern in line 1: header must contain x and y",
+        exception.getMessage());
+
+    exception = assertThrows(IOException.class,
+        () -> place(pattern("x = 3, y = 1\no?o!"), 5, 5));
+    assertEquals("Invalid RLE pattern in line 2: unexpected character '?'",
+        exception.getMessage());
+  }
+
+  @Test
+  public void testValidateDetectsInvalidBody() throws IOException {
+    Pattern pattern = pattern("x = 3, y = 1\no?o!");
+    assertEquals(3, pattern.getColumns());
+
+    IOException exception = assertThrows(IOException.class, pattern::validate);
+    assertEquals("Invalid RLE pattern in line 2: unexpected character '?'",
+        exception.getMessage());
+
+    pattern = pattern(RLE_GLIDER);
+    pattern.validate();
+    assertEquals(GLIDER, place(pattern, 5, 5));
+  }
+
+  @Test
+  public void testRunCountTooLarge() {
+    IOException exception = assertThrows(IOException.class,
+        () -> pattern("x = 3, y = 1\n99999999999999999999o!").validate());
+    assertEquals("Invalid RLE pattern in line 2: run count is too large",
+        exception.getMessage());
+  }
+
+  @Test
+  public void testLongRunsAreClippedWithoutVisitingTheirCells() {
+    assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+      Pattern pattern = pattern("x = 3, y = 2\n2147483647o$2147483647b2147483647o!");
+      pattern.validate();
+      assertEquals(".....\n.XXXX\n.....\n.....\n.....", place(pattern, 5, 5));
+    });
+  }
+}
@@ -0,0 +1,104 @@
+package org.sosylab.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.sosylab.model.BitGrid;
+import org.sosylab.model.Game;
+import org.sosylab.model.Grid;
+import org.sosylab.model.HashLifeGrid;
+import org.sosylab.model.SparseGrid;
+
+/**
+ * Tests for saving and restoring games.
+ */
+public class SnapshotTest {
+
+  private Path file;
+
+  @BeforeEach
+  public void createFile() throws IOException {
+    file = Files.createTempFile("game", ".gol");
+  }
+
+  @AfterEach
+  public void deleteFile() throws IOException {
+    Files.delete(file);
+  }
+
+  private static Grid soup(Grid world) {
+    Random random = new Random(7);
+    for (int row = 0; row < world.getRows(); row++) {
+      for (int col = 0; col < world.getColumns(); col++) {
+        if (random.nextInt(3) == 0) {
+          world.setCellAlive(col, row);
+        }
+      }
+    }
+    return world;
+  }
+
+  @Test
+  public void testRestoreIntoAllEngines() throws IOException {
+    Grid original = soup(new Game(70, 23));
+    original.next(5);
+    Snapshot.save(original, file);
+
+    assertTrue(Snapshot.isSnapshot(file));
+    for (Grid world : new Grid[]{new Game(3, 3), new BitGrid(200, 1), new SparseGrid(5, 5),
+        new HashLifeGrid(100, 100)}) {
+      world.setCellAlive(0, 0);
+      Snapshot.load(file, world);
+
+      assertEquals(70, world.getColumns());
+      assertEquals(23, world.getRows());
+      assertEquals(5, world.getGenerations());
+      assertEquals(original.toString(), world.toString());
+    }
+  }
+
+  @Test
+  public void testRoundTripFromBitGrid() throws IOException {
+    Grid original = soup(new BitGrid(130, 9));
+    original.setGenerations(1L << 40);
+    Snapshot.save(original, file);
+
+    Grid restored = new SparseGrid(1, 1);
+    Snapshot.load(file, restored);
+
+    assertEquals(1L << 40, restored.getGenerations());
+    assertEquals(original.getPopulation(), restored.getPopulation());
+  }
+
+  @Test
+  public void testCorruptedSnapshot() throws IOException {
+    Snapshot.save(soup(new BitGrid(64, 4)), file);
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.wrap(new byte[]{0x55}), 40);
+    }
+
+    IOException exception = assertThrows(IOException.class,
+        () -> Snapshot.load(file, new BitGrid(1, 1)));
+    assertEquals("Snapshot is corrupted: " + file, exception.getMessage());
+  }
+
+  @Test
+  public void testNotASnapshot() throws IOException {
+    Files.writeString(file, "x = 3, y = 1\n3o!\n");
+
+    assertFalse(Snapshot.isSnapshot(file));
+    assertThrows(IOException.class, () -> Snapshot.load(file, new Game(1, 1)));
+  }
+}
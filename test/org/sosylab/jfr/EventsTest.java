@@ -0,0 +1,88 @@
+package org.sosylab.jfr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.sosylab.model.BitGrid;
+import org.sosylab.model.Grid;
+import org.sosylab.model.Shapes;
+
+/**
+ * Tests for the JFR events of the simulation.
+ */
+public class EventsTest {
+
+  private static List<RecordedEvent> record(Runnable action) throws IOException {
+    Path file = Files.createTempFile("events", ".jfr");
+    try (Recording recording = new Recording()) {
+      for (String name : new String[]{"Generation", "Resize", "Render", "ShapePlacement"}) {
+        recording.enable("org.sosylab." + name).withoutThreshold();
+      }
+      recording.start();
+      action.run();
+      recording.stop();
+      recording.dump(file);
+      return RecordingFile.readAllEvents(file).stream()
+          .filter(event -> event.getEventType().getName().startsWith("org.sosylab."))
+          .collect(Collectors.toList());
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  public void testEventsOfAGame() throws IOException {
+    List<RecordedEvent> events = record(() -> {
+      Grid world = new BitGrid(10, 10);
+      world.placeShape(Shapes.getShapeByName("blinker"));
+      world.next();
+      world.resize(12, 8);
+      try {
+        world.render(new ByteArrayOutputStream());
+      } catch (IOException e) {
+        throw new AssertionError(e);
+      }
+    });
+
+    assertEquals(List.of("org.sosylab.ShapePlacement", "org.sosylab.Generation",
+            "org.sosylab.Resize", "org.sosylab.Render"),
+        events.stream().map(event -> event.getEventType().getName())
+            .collect(Collectors.toList()));
+    RecordedEvent shape = events.get(0);
+    assertEquals("blinker", shape.getString("shape"));
+    assertEquals(3, shape.getLong("cells"));
+    RecordedEvent generation = events.get(1);
+    assertEquals("BitGrid", generation.getString("engine"));
+    assertEquals(1, generation.getLong("generation"));
+    assertEquals(3, generation.getLong("population"));
+    RecordedEvent resize = events.get(2);
+    assertEquals(10, resize.getInt("oldColumns"));
+    assertEquals(8, resize.getInt("rows"));
+    assertEquals(13 * 8, events.get(3).getLong("bytes"));
+  }
+
+  @Test
+  public void testEventsAreDisabledByDefault() throws IOException {
+    Path file = Files.createTempFile("events", ".jfr");
+    try (Recording recording = new Recording()) {
+      recording.start();
+      new BitGrid(4, 4).next();
+      recording.stop();
+      recording.dump(file);
+      assertTrue(RecordingFile.readAllEvents(file).stream()
+          .noneMatch(event -> event.getEventType().getName().startsWith("org.sosylab.")));
+    } finally {
+      Files.delete(file);
+    }
+  }
+}
@@ -0,0 +1,40 @@
+package org.sosylab.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.LongBuffer;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the {@link BitGrid} engine. It has to fulfill the same contract as {@link Game}.
+ */
+public class BitGridTest extends GridTest {
+
+  @Override
+  Grid newWorld(int col, int row) {
+    return new BitGrid(col, row);
+  }
+
+  @Test
+  public void fingerprint_afterStepsAndEdits_matchesRecomputation() {
+    int columns = 130;
+    int rows = 40;
+    BitGrid world = new BitGrid(columns, rows);
+    Random random = new Random(7);
+    for (int i = 0; i < 1500; i++) {
+      world.setCellAlive(random.nextInt(columns), random.nextInt(rows));
+    }
+    for (int i = 0; i < 10; i++) {
+      world.next();
+      world.setCellDead(random.nextInt(columns), random.nextInt(rows));
+      world.setCellAlive(random.nextInt(columns), random.nextInt(rows));
+    }
+
+    LongBuffer bits = LongBuffer.allocate(rows * 3);
+    world.exportBits(bits);
+    BitGrid copy = new BitGrid(columns, rows);
+    copy.importBits(bits);
+    assertEquals(copy.fingerprint(), world.fingerprint());
+  }
+}
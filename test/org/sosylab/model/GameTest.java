@@ -0,0 +1,118 @@
+package org.sosylab.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the {@link Game} engine on fields that would not fit into memory cell by cell. The
+ * contract of the engine is tested by {@link GridTest}.
+ */
+public class GameTest {
+
+  private static final int GIANT = 1_000_000;
+
+  @Test
+  public void testGiantFieldCostsOnlyItsPopulation() {
+    Game world = new Game(GIANT, GIANT, Shapes.getShapeByName("glider"));
+    Set<Cell> glider = new HashSet<>(world.getPopulation());
+    assertEquals(5, glider.size());
+
+    world.next(4);
+    Set<Cell> moved = new HashSet<>();
+    for (Cell cell : glider) {
+      moved.add(new Cell(cell.getColumn() - 1, cell.getRow() - 1));
+    }
+    assertEquals(moved, new HashSet<>(world.getPopulation()));
+
+    world.resize(GIANT - 1, GIANT);
+    assertEquals(moved, new HashSet<>(world.getPopulation()));
+
+    world.clear();
+    assertTrue(world.getPopulation().isEmpty());
+    assertEquals(0, world.getGenerations());
+  }
+
+  @Test
+  public void testSettledBurstCostsNothing() {
+    Game world = new Game(1000, 1000);
+    // a field of blocks that is stable right away, placed as one large edit
+    for (int row = 0; row < 996; row += 4) {
+      for (int col = 0; col < 996; col += 4) {
+        world.setCellAlive(col, row);
+        world.setCellAlive(col + 1, row);
+        world.setCellAlive(col, row + 1);
+        world.setCellAlive(col + 1, row + 1);
+      }
+    }
+    for (int col = 997; col <= 999; col++) {
+      world.setCellAlive(col, 998);
+    }
+
+    world.next(4);
+
+    assertTrue(world.frontierCapacity() <= 64, "capacity " + world.frontierCapacity());
+    assertTrue(world.isCellAlive(997, 998));
+    assertFalse(world.isCellAlive(998, 997));
+    assertEquals(249 * 249 * 4 + 3, world.getPopulationCount());
+  }
+
+  @Test
+  public void testShrinkingRecalculatesNeighborsOfRemovedCells() {
+    Game world = new Game(GIANT, 3);
+    // a block that loses its right half and a blinker far away that survives the resize
+    for (int row = 0; row <= 1; row++) {
+      world.setCellAlive(GIANT - 2, row);
+      world.setCellAlive(GIANT - 1, row);
+    }
+    for (int col = 10; col <= 12; col++) {
+      world.setCellAlive(col, 1);
+    }
+    world.next();
+
+    world.resize(GIANT - 1, 3);
+    world.next();
+
+    assertFalse(world.isCellAlive(GIANT - 2, 0));
+    assertFalse(world.isCellAlive(GIANT - 2, 1));
+    assertTrue(world.isCellAlive(11, 1));
+    assertTrue(world.isCellAlive(10, 1));
+    assertEquals(3, world.getPopulation().size());
+  }
+
+  @Test
+  public void testAreasOfGiantFieldLookOnlyAtOccupiedTiles() throws IOException {
+    Game world = new Game(GIANT, GIANT);
+    // a block in the corner and a blinker
+    for (int col = GIANT - 2; col < GIANT; col++) {
+      world.setCellAlive(col, GIANT - 2);
+      world.setCellAlive(col, GIANT - 1);
+    }
+    world.setCellAlive(70, 5);
+    world.setCellAlive(71, 5);
+    world.setCellAlive(72, 5);
+    world.next();
+
+    assertEquals(7, world.getPopulationCount(0, 0, GIANT, GIANT));
+    assertEquals(4, world.getPopulationCount(0, 0, GIANT - 1, GIANT - 1));
+    assertEquals(1, world.getPopulationCount(71, 0, 1, 5));
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    world.render(out, 69, 3, 4, 4);
+    assertEquals("....\n..X.\n..X.\n..X.\n", out.toString(StandardCharsets.US_ASCII));
+
+    out.reset();
+    world.renderDensity(out, 1 << 16);
+    String[] overview = out.toString(StandardCharsets.US_ASCII).split("\n");
+    assertEquals(16, overview.length);
+    assertEquals(":" + ".".repeat(15), overview[0]);
+    assertEquals(".".repeat(15) + ":", overview[15]);
+  }
+}
@@ -1,11 +1,17 @@
 package org.sosylab.model;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Random;
 import java.util.Set;
 import org.junit.jupiter.api.Test;
 
@@ -201,6 +207,28 @@ public class GridTest {
     worldIsExactly(world, cells);
   }
 
+  @Test
+  public void resize_whenShrinkingColumns_removesCellsOutOfRange() {
+    Set<Cell> cells = new HashSet<>();
+    addCell(cells, 1, 1);
+    addCell(cells, 1, 2);
+    addCell(cells, 2, 1);
+    addCell(cells, 4, 2);
+    addCell(cells, 3, 4);
+
+    Grid world = newWorld(cells);
+    world.resize(3, WORLD_TOTAL_ROWS);
+
+    removeCell(cells, 4, 2);
+    removeCell(cells, 3, 4);
+    worldIsExactly(world, cells);
+    assertEquals(cells, new HashSet<>(world.getPopulation()));
+
+    world.next();
+    addCell(cells, 2, 2);
+    worldIsExactly(world, cells);
+  }
+
   @Test
   public void getColumns_returnsColumns() {
     Grid world = newWorld();
@@ -252,6 +280,29 @@ public class GridTest {
     worldIsExactly(world, block);
   }
 
+  @Test
+  public void next_whenEditingSettledBlock_recalculatesNeighborhood() {
+    Set<Cell> block = new HashSet<>();
+    addCell(block, 1, 1);
+    addCell(block, 1, 2);
+    addCell(block, 2, 1);
+    addCell(block, 2, 2);
+
+    Grid world = newWorld(block);
+    world.next();
+    world.next();
+    world.setCellAlive(3, 1);
+    world.next();
+
+    Set<Cell> expected = new HashSet<>();
+    addCell(expected, 1, 1);
+    addCell(expected, 1, 2);
+    addCell(expected, 2, 0);
+    addCell(expected, 3, 1);
+    addCell(expected, 3, 2);
+    worldIsExactly(world, expected);
+  }
+
   @Test
   public void next_lineTwitches() {
     Set<Cell> line = new HashSet<>();
@@ -275,6 +326,44 @@ public class GridTest {
     worldIsExactly(world, line);
   }
 
+  @Test
+  public void getPeriod_whenLineTwitches_detectsPeriodTwo() {
+    Grid world = newWorld();
+    world.setCellAlive(1, 2);
+    world.setCellAlive(2, 2);
+    world.setCellAlive(3, 2);
+    assertEquals(0, world.getPeriod());
+
+    for (int i = 0; i < 4; i++) {
+      world.next();
+    }
+
+    assertEquals(2, world.getPeriod());
+    assertEquals(0, world.getPeriodStart());
+
+    world.setCellAlive(0, 0);
+    assertEquals(0, world.getPeriod());
+  }
+
+  @Test
+  public void nextSteps_whenPeriodic_skipsWholePeriods() {
+    Set<Cell> row = new HashSet<>();
+    addCell(row, 2, 1);
+    addCell(row, 2, 2);
+    addCell(row, 2, 3);
+
+    Grid world = newWorld();
+    world.setCellAlive(1, 2);
+    world.setCellAlive(2, 2);
+    world.setCellAlive(3, 2);
+
+    long steps = 1_000_000_000_001L;
+    world.next(steps);
+
+    assertEquals(steps, world.getGenerations());
+    worldIsExactly(world, row);
+  }
+
   @Test
   public void getGenerations_isInitiallyZero() {
     Grid world = newWorld();
@@ -293,6 +382,360 @@ public class GridTest {
     assertEquals(world.getGenerations(), numberGenerations);
   }
 
+  @Test
+  public void next_randomSoup_matchesGame() {
+    int columns = 131;
+    int rows = 47;
+    Grid expected = new Game(columns, rows);
+    Grid actual = newWorld(columns, rows);
+    Random random = new Random(42);
+    for (int row = 0; row < rows; row++) {
+      for (int col = 0; col < columns; col++) {
+        if (random.nextInt(3) == 0) {
+          expected.setCellAlive(col, row);
+          actual.setCellAlive(col, row);
+        }
+      }
+    }
+
+    for (int i = 0; i < 50; i++) {
+      expected.next();
+      actual.next();
+      assertEquals(expected.getPopulation(), actual.getPopulation());
+    }
+  }
+
+  /**
+   * The soup stays away from the border, so engines with an unbounded plane agree as well.
+   */
+  @Test
+  public void next_lifeLikeRules_matchReference() {
+    int size = 64;
+    for (String notation : new String[]{"B36/S23", "B3678/S34678", "B2/S", "B1357/S02468"}) {
+      Rule rule = Rule.parse(notation);
+      Grid world = newWorld(size, size);
+      world.setRule(rule);
+      boolean[][] expected = new boolean[size][size];
+      Random random = new Random(notation.hashCode());
+      for (int row = 24; row < 40; row++) {
+        for (int col = 24; col < 40; col++) {
+          if (random.nextInt(3) == 0) {
+            world.setCellAlive(col, row);
+            expected[row][col] = true;
+          }
+        }
+      }
+
+      for (int i = 0; i < 12; i++) {
+        world.next();
+        expected = referenceStep(expected, rule);
+        for (int row = 0; row < size; row++) {
+          for (int col = 0; col < size; col++) {
+            assertEquals(expected[row][col], world.isCellAlive(col, row),
+                notation + " generation " + (i + 1) + " at " + col + ", " + row);
+          }
+        }
+      }
+    }
+  }
+
+  private static boolean[][] referenceStep(boolean[][] cells, Rule rule) {
+    int size = cells.length;
+    boolean[][] next = new boolean[size][size];
+    for (int row = 1; row < size - 1; row++) {
+      for (int col = 1; col < size - 1; col++) {
+        int aliveNeighbors = 0;
+        for (int dy = -1; dy <= 1; dy++) {
+          for (int dx = -1; dx <= 1; dx++) {
+            if ((dx != 0 || dy != 0) && cells[row + dy][col + dx]) {
+              aliveNeighbors++;
+            }
+          }
+        }
+        next[row][col] = rule.isAliveNext(cells[row][col], aliveNeighbors);
+      }
+    }
+    return next;
+  }
+
+  @Test
+  public void setRule_stableBlock_followsNewRule() {
+    Grid world = newWorld(6, 6);
+    world.setCellAlive(2, 2);
+    world.setCellAlive(3, 2);
+    world.setCellAlive(2, 3);
+    world.setCellAlive(3, 3);
+    world.next();
+    assertEquals(Rule.CONWAY, world.getRule());
+    assertEquals(4, world.getPopulation().size());
+
+    world.setRule(Rule.parse("B3/S"));
+    world.next();
+
+    assertEquals(0, world.getPopulation().size());
+  }
+
+  @Test
+  public void next_isolatedCellWithSurvivalWithoutNeighbors_survives() {
+    Grid world = newWorld(5, 5);
+    world.setRule(Rule.parse("B3/S0"));
+    world.setCellAlive(2, 2);
+
+    world.next(3);
+
+    assertEquals(Collections.singleton(new Cell(2, 2)), new HashSet<>(world.getPopulation()));
+  }
+
+  @Test
+  public void next_wideField_keepsCellsApart() {
+    Grid world = newWorld(70000, 3);
+    // a stable block and blinkers whose cells had the same hashes as the block's
+    for (int col = 10; col <= 11; col++) {
+      world.setCellAlive(col, 0);
+      world.setCellAlive(col, 1);
+    }
+    for (int col = 5009; col <= 5011; col++) {
+      world.setCellAlive(col, 1);
+    }
+    for (int col = 65545; col <= 65547; col++) {
+      world.setCellAlive(col, 1);
+    }
+
+    world.next();
+
+    Set<Cell> cells = new HashSet<>();
+    addCell(cells, 10, 0);
+    addCell(cells, 11, 0);
+    addCell(cells, 10, 1);
+    addCell(cells, 11, 1);
+    for (int row = 0; row < 3; row++) {
+      addCell(cells, 5010, row);
+      addCell(cells, 65546, row);
+    }
+    assertEquals(cells, new HashSet<>(world.getPopulation()));
+    assertTrue(world.isCellAlive(65546, 2));
+    assertFalse(world.isCellAlive(65545, 1));
+  }
+
+  @Test
+  public void forEachAlive_keysAndCount_matchPopulation() {
+    Grid world = newWorld(150, 70);
+    Random random = new Random(7);
+    for (int i = 0; i < 2000; i++) {
+      world.setCellAlive(random.nextInt(150), random.nextInt(70));
+    }
+    world.next(3);
+    Set<Cell> expected = new HashSet<>(world.getPopulation());
+
+    Set<Cell> visited = new HashSet<>();
+    world.forEachAlive((col, row) -> assertTrue(visited.add(new Cell(col, row))));
+    assertEquals(expected, visited);
+
+    Set<Cell> streamed = new HashSet<>();
+    world.getPopulationKeys()
+        .forEach(key -> assertTrue(streamed.add(new Cell(Cell.columnOf(key), Cell.rowOf(key)))));
+    assertEquals(expected, streamed);
+    assertEquals(expected.size(), world.getPopulationCount());
+
+    world.clear();
+    assertEquals(0, world.getPopulationKeys().count());
+    assertEquals(0, world.getPopulationCount());
+  }
+
+  @Test
+  public void getPopulationCount_ofAreas_matchesCells() {
+    Grid world = newWorld(200, 150);
+    Random random = new Random(11);
+    for (int i = 0; i < 6000; i++) {
+      world.setCellAlive(random.nextInt(200), random.nextInt(150));
+    }
+    world.next(2);
+    world.setCellDead(64, 64);
+    world.setCellAlive(127, 63);
+
+    for (int i = 0; i < 50; i++) {
+      int col = random.nextInt(200);
+      int row = random.nextInt(150);
+      int width = 1 + random.nextInt(200 - col);
+      int height = 1 + random.nextInt(150 - row);
+      long expected = world.getPopulation().stream()
+          .filter(cell -> cell.getColumn() >= col && cell.getColumn() < col + width
+              && cell.getRow() >= row && cell.getRow() < row + height)
+          .count();
+      assertEquals(expected, world.getPopulationCount(col, row, width, height),
+          "Area " + col + " " + row + " " + width + " " + height);
+    }
+    assertEquals(world.getPopulationCount(), world.getPopulationCount(0, 0, 200, 150));
+  }
+
+  @Test
+  public void getPopulationCount_afterResizeAndSteps_matchesCells() {
+    Grid world = newWorld(150, 140);
+    Random random = new Random(13);
+    for (int i = 0; i < 5000; i++) {
+      world.setCellAlive(random.nextInt(150), random.nextInt(140));
+    }
+    world.next(3);
+    world.resize(100, 70);
+    world.next();
+    world.resize(130, 130);
+    world.next(2);
+
+    for (int tileRow = 0; tileRow < 130; tileRow += 64) {
+      for (int tileCol = 0; tileCol < 130; tileCol += 64) {
+        int col = tileCol;
+        int row = tileRow;
+        int width = Math.min(64, 130 - col);
+        int height = Math.min(64, 130 - row);
+        long expected = world.getPopulation().stream()
+            .filter(cell -> cell.getColumn() >= col && cell.getColumn() < col + width
+                && cell.getRow() >= row && cell.getRow() < row + height)
+            .count();
+        assertEquals(expected, world.getPopulationCount(col, row, width, height),
+            "Tile " + col + " " + row);
+      }
+    }
+    assertEquals(world.getPopulationCount(), world.getPopulationCount(0, 0, 130, 130));
+  }
+
+  @Test
+  public void render_area_matchesRowsOfField() throws IOException {
+    Grid world = newWorld(150, 90);
+    Random random = new Random(5);
+    for (int i = 0; i < 3000; i++) {
+      world.setCellAlive(random.nextInt(150), random.nextInt(90));
+    }
+    world.next();
+    String[] rows = world.toString().split("\n");
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    world.render(out, 60, 10, 80, 70);
+
+    StringBuilder expected = new StringBuilder();
+    for (int row = 10; row < 80; row++) {
+      expected.append(rows[row], 60, 140).append('\n');
+    }
+    assertEquals(expected.toString(), out.toString(StandardCharsets.US_ASCII));
+  }
+
+  @Test
+  public void getPopulationCount_whenAreaExceedsField_throwsException() {
+    try {
+      newWorld().getPopulationCount(2, 2, 3, 4);
+      fail("Area exceeds the field");
+    } catch (IllegalArgumentException e) {
+      assertEquals(
+          "Parameters for column and row may not exceed the maximum number of columns and rows",
+          e.getMessage());
+    }
+  }
+
+  @Test
+  public void renderDensity_shadesBlocksByDensity() throws IOException {
+    Grid world = newWorld(10, 5);
+    for (int row = 0; row < 4; row++) {
+      for (int col = 0; col < 4; col++) {
+        world.setCellAlive(col, row);
+      }
+    }
+    world.setCellAlive(9, 4);
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    world.renderDensity(out, 4);
+    assertEquals("X..\n..+\n", out.toString(StandardCharsets.US_ASCII));
+
+    out.reset();
+    world.renderDensity(out, 1);
+    assertEquals(world + "\n", out.toString(StandardCharsets.US_ASCII));
+  }
+
+  @Test
+  public void renderDensity_whenBlocksAreTiles_countsTiles() throws IOException {
+    Grid world = newWorld(130, 70);
+    for (int row = 0; row < 64; row++) {
+      for (int col = 0; col < 64; col++) {
+        world.setCellAlive(col, row);
+        if (col % 2 == 0) {
+          world.setCellAlive(col + 64, row);
+        }
+      }
+    }
+    world.setCellAlive(5, 66);
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    world.renderDensity(out, 64);
+    assertEquals("X+.\n:..\n", out.toString(StandardCharsets.US_ASCII));
+  }
+
+  @Test
+  public void cell_keysAndHashes_areDistinct() {
+    Set<Long> keys = new HashSet<>();
+    Set<Integer> hashes = new HashSet<>();
+    for (int row = 0; row < 4; row++) {
+      for (int col = 0; col < 65536; col += 4999) {
+        Cell cell = new Cell(col, row);
+        assertTrue(keys.add(cell.getKey()));
+        assertTrue(hashes.add(cell.hashCode()));
+        assertEquals(col, Cell.columnOf(cell.getKey()));
+        assertEquals(row, Cell.rowOf(cell.getKey()));
+      }
+    }
+  }
+
+  @Test
+  public void render_always_matchesToString() throws IOException {
+    Grid world = newWorld(7, 3);
+    world.setCellAlive(0, 0);
+    world.setCellAlive(6, 2);
+    world.setCellAlive(3, 1);
+
+    assertEquals("X......\n...X...\n......X", world.toString());
+    assertEquals(world.toString() + "\n", render(world));
+  }
+
+  @Test
+  public void render_afterChanges_rendersCurrentField() throws IOException {
+    Grid world = newWorld(5, 5);
+    world.setCellAlive(1, 2);
+    world.setCellAlive(2, 2);
+    world.setCellAlive(3, 2);
+    assertEquals(".....\n.....\n.XXX.\n.....\n.....\n", render(world));
+    assertEquals(".....\n.....\n.XXX.\n.....\n.....\n", render(world));
+
+    world.next();
+    assertEquals(".....\n..X..\n..X..\n..X..\n.....\n", render(world));
+
+    world.setCellDead(2, 1);
+    assertEquals(".....\n.....\n..X..\n..X..\n.....\n", render(world));
+
+    world.resize(3, 3);
+    assertEquals("...\n...\n..X\n", render(world));
+
+    world.clear();
+    assertEquals("...\n...\n...\n", render(world));
+  }
+
+  @Test
+  public void exportBits_thenImportBits_restoresPopulation() {
+    Grid world = newWorld(70, 3);
+    world.setCellAlive(0, 0);
+    world.setCellAlive(63, 1);
+    world.setCellAlive(64, 1);
+    world.setCellAlive(69, 2);
+
+    LongBuffer bits = LongBuffer.allocate(6);
+    bits.put(0, -1L);
+    world.exportBits(bits);
+    assertEquals(LongBuffer.wrap(new long[]{1L, 0L, 1L << 63, 1L, 0L, 1L << 5}), bits);
+
+    Grid copy = newWorld(70, 3);
+    copy.setCellAlive(1, 1);
+    bits.put(5, bits.get(5) | 1L << 6);
+    copy.importBits(bits);
+    assertEquals(world.toString(), copy.toString());
+    assertEquals(world.getPopulation(), copy.getPopulation());
+  }
+
   private void addCell(Set<Cell> cells, int x, int y) {
     cells.add(new Cell(x, y));
   }
@@ -316,4 +759,10 @@ public class GridTest {
       }
     }
   }
+
+  private static String render(Grid world) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    world.render(out);
+    return out.toString(StandardCharsets.US_ASCII);
+  }
 }
@@ -0,0 +1,73 @@
+package org.sosylab.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the {@link HashLifeGrid} engine. It has to fulfill the same contract as {@link Game}.
+ */
+public class HashLifeGridTest extends GridTest {
+
+  @Override
+  Grid newWorld(int col, int row) {
+    return new HashLifeGrid(col, row);
+  }
+
+  @Test
+  public void nextSteps_whenSkippingGenerations_matchesSingleSteps() {
+    Grid expected = new HashLifeGrid(64, 64);
+    Grid actual = new HashLifeGrid(64, 64);
+    Shape pulsar = Shapes.getShapeByName("pulsar");
+    expected.placeShape(pulsar);
+    actual.placeShape(pulsar);
+
+    actual.next(1000);
+    for (int i = 0; i < 1000; i++) {
+      expected.next();
+    }
+
+    assertEquals(expected.getPopulation(), actual.getPopulation());
+    assertEquals(1000, actual.getGenerations());
+  }
+
+  @Test
+  public void nextSteps_beyondIntRange_countsGenerations() {
+    Grid world = new HashLifeGrid(20, 20, 1 << 12);
+    world.placeShape(Shapes.getShapeByName("block"));
+
+    long steps = 3L * Integer.MAX_VALUE;
+    world.next(steps);
+
+    assertEquals(steps, world.getGenerations());
+    assertEquals(4, world.getPopulation().size());
+    assertTrue(world.isCellAlive(9, 9));
+  }
+
+  @Test
+  public void nextSteps_beyondLargestJump_keepsStillLife() {
+    Grid world = new HashLifeGrid(20, 20, 1 << 12);
+    world.placeShape(Shapes.getShapeByName("block"));
+
+    long steps = Long.MAX_VALUE - 1;
+    world.next(steps);
+
+    assertEquals(steps, world.getGenerations());
+    assertEquals(4, world.getPopulation().size());
+    assertTrue(world.isCellAlive(9, 9));
+  }
+
+  @Test
+  public void next_gliderAtBorder_diesLikeGame() {
+    Grid expected = new Game(8, 8);
+    Grid actual = newWorld(8, 8);
+    expected.placeShape(Shapes.getShapeByName("glider"));
+    actual.placeShape(Shapes.getShapeByName("glider"));
+
+    expected.next(64);
+    actual.next(64);
+
+    assertEquals(expected.getPopulation(), actual.getPopulation());
+  }
+}
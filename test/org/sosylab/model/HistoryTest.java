@@ -0,0 +1,131 @@
+package org.sosylab.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the history of generations.
+ */
+public class HistoryTest {
+
+  private static Grid soup(int columns, int rows) {
+    Grid world = new BitGrid(columns, rows);
+    Random random = new Random(3);
+    for (int row = 0; row < rows; row++) {
+      for (int col = 0; col < columns; col++) {
+        if (random.nextInt(3) == 0) {
+          world.setCellAlive(col, row);
+        }
+      }
+    }
+    return world;
+  }
+
+  @Test
+  public void testRestoreEveryGeneration() {
+    Grid world = soup(40, 30);
+    History history = new History(1000);
+    List<String> states = new ArrayList<>();
+    history.record(world);
+    states.add(world.toString());
+    for (int i = 0; i < 200; i++) {
+      world.next();
+      history.record(world);
+      states.add(world.toString());
+    }
+
+    Grid restored = new Game(1, 1);
+    for (int generation = 200; generation >= 0; generation -= 7) {
+      history.restore(generation, restored);
+      assertEquals(generation, restored.getGenerations());
+      assertEquals(states.get(generation), restored.toString());
+    }
+  }
+
+  @Test
+  public void testOldGenerationsAreDropped() {
+    Grid world = soup(20, 20);
+    History history = new History(40);
+    history.record(world);
+    for (int i = 0; i < 100; i++) {
+      world.next();
+      history.record(world);
+    }
+
+    assertEquals(100, history.getNewestGeneration());
+    assertTrue(history.size() <= 40);
+    assertTrue(history.size() >= 30);
+    assertFalse(history.contains(50));
+
+    String newest = world.toString();
+    Grid restored = new SparseGrid(20, 20);
+    history.restore(history.getOldestGeneration(), restored);
+    restored.next(100 - history.getOldestGeneration());
+    assertEquals(newest, restored.toString());
+  }
+
+  @Test
+  public void testRecordAfterEdit() {
+    Grid world = new Game(6, 6);
+    History history = new History(10);
+    world.setCellAlive(1, 2);
+    world.setCellAlive(2, 2);
+    world.setCellAlive(3, 2);
+    history.record(world);
+    world.next();
+    history.record(world);
+    world.next();
+    history.record(world);
+
+    history.restore(1, world);
+    world.setCellAlive(5, 5);
+    history.record(world);
+
+    assertEquals(1, history.getNewestGeneration());
+    assertFalse(history.contains(2));
+    Grid restored = new Game(6, 6);
+    history.restore(1, restored);
+    assertEquals(world.toString(), restored.toString());
+    history.restore(0, restored);
+    assertEquals("""
+        ......
+        ......
+        .XXX..
+        ......
+        ......
+        ......""", restored.toString());
+  }
+
+  @Test
+  public void testRestoreDimensions() {
+    Grid world = new Game(8, 4);
+    History history = new History(10);
+    world.setCellAlive(7, 3);
+    history.record(world);
+    world.next();
+    world.resize(3, 3);
+    history.record(world);
+
+    history.restore(0, world);
+    assertEquals(8, world.getColumns());
+    assertEquals(4, world.getRows());
+    assertTrue(world.isCellAlive(7, 3));
+    history.restore(1, world);
+    assertEquals(3, world.getColumns());
+  }
+
+  @Test
+  public void testUnknownGeneration() {
+    History history = new History(10);
+    history.record(new Game(3, 3));
+
+    assertThrows(IllegalArgumentException.class, () -> history.restore(1, new Game(3, 3)));
+  }
+}
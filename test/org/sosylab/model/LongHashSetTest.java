@@ -0,0 +1,67 @@
+package org.sosylab.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the {@link LongHashSet}.
+ */
+public class LongHashSetTest {
+
+  @Test
+  public void addAndRemove_randomOperations_behaveLikeHashSet() {
+    LongHashSet actual = new LongHashSet();
+    Set<Long> expected = new HashSet<>();
+    Random random = new Random(7);
+
+    for (int i = 0; i < 100_000; i++) {
+      long key = random.nextInt(2000) - 1000L;
+      if (random.nextInt(16) == 0) {
+        key = Long.MIN_VALUE;
+      }
+      if (random.nextBoolean()) {
+        assertEquals(expected.add(key), actual.add(key));
+      } else {
+        assertEquals(expected.remove(key), actual.remove(key));
+      }
+      assertEquals(expected.size(), actual.size());
+    }
+
+    for (long key = -1000; key < 1000; key++) {
+      assertEquals(expected.contains(key), actual.contains(key));
+    }
+    Set<Long> visited = new HashSet<>();
+    actual.forEach(key -> assertTrue(visited.add(key)));
+    assertEquals(expected, visited);
+  }
+
+  @Test
+  public void clear_afterBurstSettles_shrinksTable() {
+    LongHashSet set = new LongHashSet();
+    for (long key = 0; key < 250_000; key++) {
+      set.add(key);
+    }
+    set.clear();
+    int burstCapacity = set.capacity();
+
+    // a few generations of a blinker after the burst
+    for (int generation = 0; generation < 3; generation++) {
+      for (long key = 0; key < 3; key++) {
+        set.add(key);
+      }
+      set.clear();
+    }
+
+    assertTrue(burstCapacity >= 250_000);
+    assertTrue(set.capacity() <= 16);
+    set.add(42);
+    Set<Long> visited = new HashSet<>();
+    set.forEach(visited::add);
+    assertEquals(Set.of(42L), visited);
+  }
+}
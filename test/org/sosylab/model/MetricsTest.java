@@ -0,0 +1,98 @@
+package org.sosylab.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the metrics of the computed generations.
+ */
+public class MetricsTest {
+
+  @Test
+  public void snapshot_recordedSteps_computesPercentiles() {
+    Metrics metrics = new Metrics();
+    for (int nanos = 1; nanos <= 100; nanos++) {
+      metrics.recordStep(1, nanos, 10);
+    }
+
+    MetricsSnapshot snapshot = metrics.snapshot();
+    assertEquals(100, snapshot.getSteps());
+    assertEquals(5050, snapshot.getTotalNanos());
+    assertEquals(50, snapshot.getMedianNanos());
+    assertEquals(90, snapshot.getPercentile90Nanos());
+    assertEquals(99, snapshot.getPercentile99Nanos());
+    assertEquals(100, snapshot.getMaxNanos());
+    assertEquals(0, snapshot.getDetailedSteps());
+    assertEquals(-1, snapshot.getPopulation());
+  }
+
+  @Test
+  public void snapshot_manySteps_keepsOnlyRecentDurations() {
+    Metrics metrics = new Metrics();
+    for (int i = 0; i < 5000; i++) {
+      metrics.recordStep(2, i < 3000 ? 1_000_000 : 7, -1);
+    }
+
+    MetricsSnapshot snapshot = metrics.snapshot();
+    assertEquals(5000, snapshot.getSteps());
+    assertEquals(10000, snapshot.getGenerations());
+    assertEquals(7, snapshot.getMaxNanos());
+
+    metrics.reset();
+    assertEquals(0, metrics.snapshot().getSteps());
+    assertEquals(0, metrics.snapshot().getMaxNanos());
+  }
+
+  @Test
+  public void snapshot_whileRecording_isConsistent() throws InterruptedException {
+    Metrics metrics = new Metrics();
+    Thread writer = new Thread(() -> {
+      for (int i = 0; i < 200_000; i++) {
+        metrics.recordStep(3, 5, 7);
+      }
+    });
+    writer.start();
+
+    while (writer.isAlive()) {
+      MetricsSnapshot snapshot = metrics.snapshot();
+      assertEquals(3 * snapshot.getSteps(), snapshot.getGenerations());
+      assertEquals(5 * snapshot.getSteps(), snapshot.getTotalNanos());
+    }
+    writer.join();
+    assertEquals(200_000, metrics.snapshot().getSteps());
+  }
+
+  @Test
+  public void getMetrics_blinker_recordsBirthsAndDeaths() {
+    Grid world = new Game(5, 5);
+    world.setCellAlive(1, 2);
+    world.setCellAlive(2, 2);
+    world.setCellAlive(3, 2);
+
+    world.next();
+    world.next();
+
+    MetricsSnapshot snapshot = world.getMetrics();
+    assertEquals(2, snapshot.getSteps());
+    assertEquals(2, snapshot.getDetailedSteps());
+    assertEquals(4, snapshot.getBirths());
+    assertEquals(4, snapshot.getDeaths());
+    assertEquals(3, snapshot.getPopulation());
+    assertTrue(snapshot.getEvaluatedCells() >= 2 * 9);
+    assertTrue(snapshot.getTotalNanos() >= snapshot.getEvaluationNanos());
+  }
+
+  @Test
+  public void getMetrics_skippedGenerations_recordsOneStepPerJump() {
+    Grid world = new HashLifeGrid(16, 16);
+    world.placeShape(Shapes.getShapeByName("glider"));
+
+    world.next(5);
+
+    MetricsSnapshot snapshot = world.getMetrics();
+    assertEquals(2, snapshot.getSteps());
+    assertEquals(5, snapshot.getGenerations());
+  }
+}
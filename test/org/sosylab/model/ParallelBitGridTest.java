@@ -0,0 +1,75 @@
+package org.sosylab.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the {@link BitGrid} engine computing generations on several threads. The results have
+ * to be identical to the sequential computation.
+ */
+public class ParallelBitGridTest extends GridTest {
+
+  private final List<Grid> worlds = new ArrayList<>();
+
+  @Override
+  Grid newWorld(int col, int row) {
+    Grid world = new BitGrid(col, row);
+    world.setThreads(4);
+    worlds.add(world);
+    return world;
+  }
+
+  /**
+   * Shuts down the pools of the worlds created by the test.
+   */
+  @AfterEach
+  public void closeWorlds() {
+    worlds.forEach(Grid::close);
+    worlds.clear();
+  }
+
+  @Test
+  public void next_largeField_matchesSequentialEngine() {
+    int columns = 300;
+    int rows = 4000;
+    Grid expected = new BitGrid(columns, rows);
+    Grid actual = newWorld(columns, rows);
+    Random random = new Random(4);
+    for (int row = 0; row < rows; row++) {
+      for (int col = 0; col < columns; col++) {
+        if (random.nextInt(3) == 0) {
+          expected.setCellAlive(col, row);
+          actual.setCellAlive(col, row);
+        }
+      }
+    }
+
+    for (int i = 0; i < 20; i++) {
+      expected.next();
+      actual.next();
+    }
+
+    assertEquals(expected.getPopulation(), actual.getPopulation());
+  }
+
+  @Test
+  public void close_afterParallelSteps_continuesOnOneThread() {
+    Grid expected = new BitGrid(64, 64);
+    Grid actual = newWorld(64, 64);
+    expected.placeShape(Shapes.getShapeByName("pulsar"));
+    actual.placeShape(Shapes.getShapeByName("pulsar"));
+    actual.next(5);
+
+    actual.close();
+    actual.next(5);
+
+    expected.next(10);
+    assertEquals(1, actual.getThreads());
+    assertEquals(expected.getPopulation(), actual.getPopulation());
+  }
+}
@@ -0,0 +1,51 @@
+package org.sosylab.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the {@link Rule} of a game.
+ */
+public class RuleTest {
+
+  @Test
+  public void parse_conway_equalsConstant() {
+    assertEquals(Rule.CONWAY, Rule.parse("B3/S23"));
+    assertEquals(Rule.CONWAY, Rule.parse("s23/b3"));
+    assertEquals(Rule.CONWAY, Rule.parse("23/3"));
+    assertEquals("B3/S23", Rule.CONWAY.toString());
+  }
+
+  @Test
+  public void isAliveNext_conway_matchesClassicRules() {
+    for (int neighbors = 0; neighbors <= 8; neighbors++) {
+      assertEquals(neighbors == 3, Rule.CONWAY.isAliveNext(false, neighbors));
+      assertEquals(neighbors == 2 || neighbors == 3, Rule.CONWAY.isAliveNext(true, neighbors));
+    }
+  }
+
+  @Test
+  public void parse_otherRules_keepsAllCounts() {
+    Rule dayAndNight = Rule.parse("B3678/S34678");
+
+    assertEquals("B3678/S34678", dayAndNight.toString());
+    assertTrue(dayAndNight.isBorn(8));
+    assertTrue(dayAndNight.survives(8));
+    assertFalse(dayAndNight.survives(2));
+    assertEquals("B2/S", Rule.parse("B2/S").toString());
+  }
+
+  @Test
+  public void parse_invalidRules_areRejected() {
+    assertThrows(IllegalArgumentException.class, () -> Rule.parse("B3S23"));
+    assertThrows(IllegalArgumentException.class, () -> Rule.parse("B9/S23"));
+    assertThrows(IllegalArgumentException.class, () -> Rule.parse("B3/X23"));
+    IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+        () -> Rule.parse("B03/S23"));
+    assertEquals("Rules with B0 are not supported", exception.getMessage());
+  }
+}
@@ -0,0 +1,12 @@
+package org.sosylab.model;
+
+/**
+ * Tests for the {@link SparseGrid} engine. It has to fulfill the same contract as {@link Game}.
+ */
+public class SparseGridTest extends GridTest {
+
+  @Override
+  Grid newWorld(int col, int row) {
+    return new SparseGrid(col, row);
+  }
+}
@@ -0,0 +1,149 @@
+package org.sosylab.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the {@link UnboundedGrid} engine. It has to fulfill the same contract as {@link Game}
+ * in its window.
+ */
+public class UnboundedGridTest extends GridTest {
+
+  private static final String GLIDER = """
+      .X.
+      ..X
+      XXX
+      """;
+
+  @Override
+  Grid newWorld(int col, int row) {
+    return new UnboundedGrid(col, row);
+  }
+
+  private static void placeGlider(UnboundedGrid world, long col, long row) {
+    world.setAlive(col + 1, row);
+    world.setAlive(col + 2, row + 1);
+    world.setAlive(col, row + 2);
+    world.setAlive(col + 1, row + 2);
+    world.setAlive(col + 2, row + 2);
+  }
+
+  private static String render(UnboundedGrid world, BoundingBox area) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    world.render(out, area);
+    return out.toString(StandardCharsets.US_ASCII);
+  }
+
+  /**
+   * Cells of this engine do not die at the border, so the soup is kept away from it.
+   */
+  @Override
+  @Test
+  public void next_randomSoup_matchesGame() {
+    int size = 200;
+    Grid expected = new Game(size, size);
+    Grid actual = newWorld(size, size);
+    Random random = new Random(42);
+    for (int row = 70; row < 130; row++) {
+      for (int col = 70; col < 130; col++) {
+        if (random.nextInt(3) == 0) {
+          expected.setCellAlive(col, row);
+          actual.setCellAlive(col, row);
+        }
+      }
+    }
+
+    for (int i = 0; i < 60; i++) {
+      expected.next();
+      actual.next();
+      assertEquals(expected.getPopulation(), actual.getPopulation());
+    }
+  }
+
+  @Test
+  public void testNegativeCoordinates() {
+    UnboundedGrid world = new UnboundedGrid(4, 4);
+    world.setAlive(-5, -7);
+
+    assertTrue(world.isAlive(-5, -7));
+    assertFalse(world.isAlive(5, 7));
+    assertEquals(0, world.getPopulation().size());
+    assertEquals(1, world.getUniversePopulation());
+    assertEquals(new BoundingBox(-5, -7, -5, -7), world.getBoundingBox());
+
+    world.setDead(-5, -7);
+    assertNull(world.getBoundingBox());
+  }
+
+  @Test
+  public void testGliderCrossesTheOrigin() throws IOException {
+    UnboundedGrid world = new UnboundedGrid(1, 1);
+    placeGlider(world, -8, -8);
+
+    world.next(32);
+
+    assertEquals(5, world.getUniversePopulation());
+    BoundingBox area = world.getBoundingBox();
+    assertEquals(new BoundingBox(0, 0, 2, 2), area);
+    assertEquals(GLIDER, render(world, area));
+  }
+
+  @Test
+  public void testGliderAtTheLimits() throws IOException {
+    UnboundedGrid world = new UnboundedGrid(1, 1);
+    long start = Long.MAX_VALUE - 200;
+    placeGlider(world, start, start);
+
+    world.next(400);
+
+    BoundingBox area = world.getBoundingBox();
+    assertEquals(new BoundingBox(start + 100, start + 100, start + 102, start + 102), area);
+    assertEquals(GLIDER, render(world, area));
+  }
+
+  @Test
+  public void testResizeKeepsCells() {
+    UnboundedGrid world = new UnboundedGrid(10, 10);
+    world.setCellAlive(8, 8);
+
+    world.resize(5, 5);
+    assertEquals(0, world.getPopulation().size());
+    assertTrue(world.isAlive(8, 8));
+
+    world.resize(10, 10);
+    assertTrue(world.isCellAlive(8, 8));
+  }
+
+  @Test
+  public void testAreaCountSeesOnlyTheWindow() {
+    UnboundedGrid world = new UnboundedGrid(70, 70);
+    world.setAlive(65, 3);
+    world.setAlive(100, 3);
+    world.setAlive(-1, 3);
+
+    assertEquals(1, world.getPopulationCount(0, 0, 70, 70));
+    world.resize(64, 64);
+    assertEquals(0, world.getPopulationCount(0, 0, 64, 64));
+    world.resize(128, 64);
+    assertEquals(2, world.getPopulationCount(0, 0, 128, 64));
+    assertEquals(2, world.getPopulationCount(64, 0, 64, 64));
+  }
+
+  @Test
+  public void testRenderArea() throws IOException {
+    UnboundedGrid world = new UnboundedGrid(3, 3);
+    world.setAlive(-1, 0);
+    world.setAlive(1, -1);
+
+    assertEquals("..X\nX..\n", render(world, world.getBoundingBox()));
+    assertEquals("X.\n..\n", render(world, new BoundingBox(-1, 0, 0, 1)));
+  }
+}
@@ -0,0 +1,40 @@
+package org.sosylab.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the {@link VectorGrid} engine. It has to fulfill the same contract as {@link Game}.
+ */
+public class VectorGridTest extends GridTest {
+
+  @Override
+  Grid newWorld(int col, int row) {
+    return new VectorGrid(col, row);
+  }
+
+  @Test
+  public void next_wideField_matchesScalarEngine() {
+    int columns = 1500;
+    int rows = 40;
+    Grid expected = new BitGrid(columns, rows);
+    Grid actual = newWorld(columns, rows);
+    Random random = new Random(5);
+    for (int row = 0; row < rows; row++) {
+      for (int col = 0; col < columns; col++) {
+        if (random.nextInt(3) == 0) {
+          expected.setCellAlive(col, row);
+          actual.setCellAlive(col, row);
+        }
+      }
+    }
+
+    for (int i = 0; i < 30; i++) {
+      expected.next();
+      actual.next();
+      assertEquals(expected.getPopulation(), actual.getPopulation());
+    }
+  }
+}